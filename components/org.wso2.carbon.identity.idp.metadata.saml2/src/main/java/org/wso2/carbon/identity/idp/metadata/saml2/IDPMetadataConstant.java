@@ -31,4 +31,39 @@ public final class IDPMetadataConstant {
     public static final String SAML = "saml";
     public static final String SOAP_BINDING_SAML2 = "urn:oasis:names:tc:SAML:2.0:bindings:SOAP";
     public static final String META_DATA_SAML = "meta_data_saml";
+    public static final String SAML_METADATA_CACHE_ENABLED = "SAMLMetadata.Cache.Enable";
+    public static final String SAML_METADATA_CACHE_LOAD_TIMEOUT = "SAMLMetadata.Cache.LoadTimeout";
+    public static final String SAML_METADATA_CACHE_STALE_MAX_AGE = "SAMLMetadata.Cache.StaleMaxAge";
+    public static final String SAML_METADATA_CACHE_VALIDATION_INTERVAL = "SAMLMetadata.Cache.ValidationInterval";
+    public static final String SAML_METADATA_REFRESH_AHEAD_ENABLED = "SAMLMetadata.Cache.RefreshAhead.Enable";
+    public static final String SAML_METADATA_REFRESH_AHEAD_INTERVAL = "SAMLMetadata.Cache.RefreshAhead.Interval";
+    public static final String SAML_METADATA_REFRESH_AHEAD_FACTOR = "SAMLMetadata.Cache.RefreshAhead.Factor";
+    public static final String SAML_METADATA_ROOT_TENANT_CACHE_MAX_SIZE = "SAMLMetadata.RootTenantCache.MaxSize";
+    public static final String SAML_METADATA_ROOT_TENANT_CACHE_TTL = "SAMLMetadata.RootTenantCache.TimeToLive";
+    public static final String SAML_METADATA_SIGNING_MAX_CONCURRENCY = "SAMLMetadata.Signing.MaxConcurrency";
+    public static final String SAML_METADATA_SIGNING_MAX_QUEUE_SIZE = "SAMLMetadata.Signing.MaxQueueSize";
+    public static final String SAML_METADATA_SIGNING_QUEUE_TIMEOUT = "SAMLMetadata.Signing.QueueTimeout";
+    public static final String SAML_METADATA_SIGNING_CREDENTIAL_CACHE_TTL =
+            "SAMLMetadata.SigningCredentialCache.TimeToLive";
+    public static final String SAML_METADATA_SIGNING_CREDENTIAL_VALIDATION_INTERVAL =
+            "SAMLMetadata.SigningCredentialCache.ValidationInterval";
+    public static final String SAML_METADATA_SIGNING_STREAMING_ENABLED = "SAMLMetadata.Signing.Streaming.Enable";
+    public static final String SAML_METADATA_RESIGNING_POOL_SIZE = "SAMLMetadata.Resigning.PoolSize";
+    public static final String SAML_METADATA_SIGNATURE_VALIDATION_ENABLED = "SAMLMetadata.SignatureValidation.Enable";
+    public static final String SAML_METADATA_SIGNATURE_VALIDATION_CACHE_MAX_SIZE =
+            "SAMLMetadata.SignatureValidation.Cache.MaxSize";
+    public static final String SAML_METADATA_SIGNATURE_VALIDATION_CACHE_TTL =
+            "SAMLMetadata.SignatureValidation.Cache.TimeToLive";
+    public static final String SAML_METADATA_CERTIFICATE_VALIDATION_ENABLED =
+            "SAMLMetadata.CertificateValidation.Enable";
+    public static final String SAML_METADATA_CERTIFICATE_VALIDATION_REVOCATION_ENABLED =
+            "SAMLMetadata.CertificateValidation.RevocationCheck.Enable";
+    public static final String SAML_METADATA_CERTIFICATE_VALIDATION_CRL_REFRESH_INTERVAL =
+            "SAMLMetadata.CertificateValidation.CRLRefreshInterval";
+    public static final String SAML_METADATA_CERTIFICATE_VALIDATION_CACHE_MAX_SIZE =
+            "SAMLMetadata.CertificateValidation.Cache.MaxSize";
+    public static final String SAML_METADATA_CERTIFICATE_VALIDATION_CACHE_TTL =
+            "SAMLMetadata.CertificateValidation.Cache.TimeToLive";
+    public static final String SAML_METADATA_TEMPLATE_ENABLED = "SAMLMetadata.Template.Enable";
+    public static final String SAML_METADATA_XML_POOL_MAX_SIZE = "SAMLMetadata.XMLPool.MaxSize";
 }
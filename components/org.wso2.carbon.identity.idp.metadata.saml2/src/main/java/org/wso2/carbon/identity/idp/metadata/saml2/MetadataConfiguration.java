@@ -0,0 +1,614 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.identity.base.IdentityConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataRefreshScheduler;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataConfigUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataSigningLimiter;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataTrustStore;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the configuration of the SAML metadata components, covering how the resident IdP metadata is
+ * built, cached, refreshed and signed and how imported metadata is validated, so that requests read plain fields
+ * instead of looking up the configuration. carbon.xml and identity.xml are only parsed at server startup, so the
+ * snapshot is read when the component is activated and replaced by {@link #reload(Map)} whenever the configuration of
+ * the component is updated through the OSGi configuration admin. Properties of the component named after an
+ * identity.xml configuration take precedence over the file. The sign key store, the primary key store and the metadata
+ * trust store are only read from carbon.xml, so that the component configuration cannot replace the key stores or
+ * their passwords.
+ */
+public final class MetadataConfiguration {
+
+    private static final Log log = LogFactory.getLog(MetadataConfiguration.class);
+    private static final String SECURITY_KEY_STORE_KEY_ALIAS = "Security.KeyStore.KeyAlias";
+
+    private static final long DEFAULT_LOAD_TIMEOUT_IN_SECONDS = 30;
+    private static final long DEFAULT_STALE_MAX_AGE_IN_SECONDS = 60;
+    private static final long DEFAULT_CACHE_VALIDATION_INTERVAL_IN_SECONDS = 30;
+    private static final long DEFAULT_CREDENTIAL_TIME_TO_LIVE_IN_SECONDS = 900;
+    private static final long DEFAULT_CREDENTIAL_VALIDATION_INTERVAL_IN_SECONDS = 30;
+    private static final long DEFAULT_REFRESH_INTERVAL_IN_SECONDS = 60;
+    private static final double DEFAULT_REFRESH_AHEAD_FACTOR = 0.75;
+    private static final int DEFAULT_ROOT_TENANT_CACHE_MAX_SIZE = 1000;
+    private static final long DEFAULT_ROOT_TENANT_CACHE_TIME_TO_LIVE_IN_SECONDS = 900;
+    private static final long DEFAULT_SIGNING_QUEUE_TIMEOUT_IN_MILLIS = 5000;
+    private static final int DEFAULT_VALIDATION_CACHE_MAX_SIZE = 1000;
+    private static final long DEFAULT_SIGNATURE_VALIDATION_CACHE_TIME_TO_LIVE_IN_SECONDS = 3600;
+    private static final long DEFAULT_CERTIFICATE_VALIDATION_CACHE_TIME_TO_LIVE_IN_SECONDS = 86400;
+    private static final long DEFAULT_CRL_REFRESH_INTERVAL_IN_SECONDS = 3600;
+
+    private static volatile MetadataConfiguration instance;
+
+    private final Map<String, String> overrides;
+
+    private final String signKeyStoreLocation;
+    private final String signKeyStoreType;
+    private final String signKeyStorePassword;
+    private final String signKeyStoreKeyAlias;
+    private final String signKeyStoreKeyPassword;
+    private final boolean signKeyStoreConfigured;
+    private final String primaryKeyStoreKeyAlias;
+    private final String trustStoreLocation;
+    private final String trustStoreType;
+    private final String trustStorePassword;
+    private final boolean trustStoreConfigured;
+    private final boolean sha256Enabled;
+    private final boolean streamingSigningEnabled;
+    private final long credentialTimeToLive;
+    private final long credentialValidationInterval;
+    private final boolean cacheEnabled;
+    private final long loadTimeout;
+    private final long staleMaxAge;
+    private final long cacheValidationInterval;
+    private final boolean templateEnabled;
+    private final boolean refreshAheadEnabled;
+    private final long refreshInterval;
+    private final double refreshAheadFactor;
+    private final int rootTenantCacheMaxSize;
+    private final long rootTenantCacheTimeToLive;
+    private final int signingMaxConcurrency;
+    private final int signingMaxQueueSize;
+    private final long signingQueueTimeout;
+    private final int resigningPoolSize;
+    private final int xmlPoolMaxSize;
+    private final boolean signatureValidationEnabled;
+    private final int signatureValidationCacheMaxSize;
+    private final long signatureValidationCacheTimeToLive;
+    private final boolean certificateValidationEnabled;
+    private final boolean revocationEnabled;
+    private final long crlRefreshInterval;
+    private final int certificateValidationCacheMaxSize;
+    private final long certificateValidationCacheTimeToLive;
+
+    private MetadataConfiguration(Map<String, String> overrides) {
+
+        this.overrides = overrides;
+        signKeyStoreLocation = getServerProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_LOCATION);
+        signKeyStoreType = getServerProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_TYPE);
+        signKeyStorePassword = getServerProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_PASSWORD);
+        signKeyStoreKeyAlias = getServerProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_KEY_ALIAS);
+        signKeyStoreKeyPassword = getServerProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_KEY_PASSWORD);
+        signKeyStoreConfigured = StringUtils.isNotBlank(signKeyStoreLocation)
+                && StringUtils.isNotBlank(signKeyStoreType)
+                && StringUtils.isNotBlank(signKeyStorePassword)
+                && StringUtils.isNotBlank(signKeyStoreKeyAlias)
+                && StringUtils.isNotBlank(signKeyStoreKeyPassword);
+        primaryKeyStoreKeyAlias = getServerProperty(SECURITY_KEY_STORE_KEY_ALIAS);
+        trustStoreLocation = getServerProperty(MetadataTrustStore.SECURITY_SAML_METADATA_TRUST_STORE_LOCATION);
+        trustStoreType = getServerProperty(MetadataTrustStore.SECURITY_SAML_METADATA_TRUST_STORE_TYPE);
+        trustStorePassword = getServerProperty(MetadataTrustStore.SECURITY_SAML_METADATA_TRUST_STORE_PASSWORD);
+        trustStoreConfigured = StringUtils.isNotBlank(trustStoreLocation)
+                && StringUtils.isNotBlank(trustStoreType)
+                && trustStorePassword != null;
+        sha256Enabled = Boolean.parseBoolean(getIdentityProperty(
+                IdentityConstants.ServerConfig.SAML_METADATA_IDP_ENABLE_SHA256_ALGO));
+        streamingSigningEnabled = MetadataConfigUtil.parseBoolean(
+                getIdentityProperty(IDPMetadataConstant.SAML_METADATA_SIGNING_STREAMING_ENABLED), false);
+        credentialTimeToLive = getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_SIGNING_CREDENTIAL_CACHE_TTL,
+                DEFAULT_CREDENTIAL_TIME_TO_LIVE_IN_SECONDS) * 1000;
+        credentialValidationInterval = getPositiveLongProperty(
+                IDPMetadataConstant.SAML_METADATA_SIGNING_CREDENTIAL_VALIDATION_INTERVAL,
+                DEFAULT_CREDENTIAL_VALIDATION_INTERVAL_IN_SECONDS) * 1000;
+        cacheEnabled = MetadataConfigUtil.parseBoolean(
+                getIdentityProperty(IDPMetadataConstant.SAML_METADATA_CACHE_ENABLED), true);
+        loadTimeout = getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_CACHE_LOAD_TIMEOUT,
+                DEFAULT_LOAD_TIMEOUT_IN_SECONDS) * 1000;
+        staleMaxAge = getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_CACHE_STALE_MAX_AGE,
+                DEFAULT_STALE_MAX_AGE_IN_SECONDS) * 1000;
+        cacheValidationInterval = getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_CACHE_VALIDATION_INTERVAL,
+                DEFAULT_CACHE_VALIDATION_INTERVAL_IN_SECONDS) * 1000;
+        templateEnabled = MetadataConfigUtil.parseBoolean(
+                getIdentityProperty(IDPMetadataConstant.SAML_METADATA_TEMPLATE_ENABLED), true);
+
+        refreshAheadEnabled = MetadataConfigUtil.parseBoolean(
+                getIdentityProperty(IDPMetadataConstant.SAML_METADATA_REFRESH_AHEAD_ENABLED), true);
+        refreshInterval = getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_REFRESH_AHEAD_INTERVAL,
+                DEFAULT_REFRESH_INTERVAL_IN_SECONDS) * 1000;
+        refreshAheadFactor = parseRefreshAheadFactor();
+        rootTenantCacheMaxSize = (int) getPositiveLongProperty(
+                IDPMetadataConstant.SAML_METADATA_ROOT_TENANT_CACHE_MAX_SIZE, DEFAULT_ROOT_TENANT_CACHE_MAX_SIZE);
+        rootTenantCacheTimeToLive = getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_ROOT_TENANT_CACHE_TTL,
+                DEFAULT_ROOT_TENANT_CACHE_TIME_TO_LIVE_IN_SECONDS) * 1000;
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        signingMaxConcurrency = (int) getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_SIGNING_MAX_CONCURRENCY,
+                processors);
+        signingMaxQueueSize = (int) getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_SIGNING_MAX_QUEUE_SIZE,
+                signingMaxConcurrency * 4L);
+        signingQueueTimeout = getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_SIGNING_QUEUE_TIMEOUT,
+                DEFAULT_SIGNING_QUEUE_TIMEOUT_IN_MILLIS);
+        resigningPoolSize = (int) getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_RESIGNING_POOL_SIZE,
+                Math.max(1, processors / 2));
+        xmlPoolMaxSize = (int) getPositiveLongProperty(IDPMetadataConstant.SAML_METADATA_XML_POOL_MAX_SIZE,
+                processors * 2L);
+
+        signatureValidationEnabled = MetadataConfigUtil.parseBoolean(
+                getIdentityProperty(IDPMetadataConstant.SAML_METADATA_SIGNATURE_VALIDATION_ENABLED), false);
+        signatureValidationCacheMaxSize = (int) getPositiveLongProperty(
+                IDPMetadataConstant.SAML_METADATA_SIGNATURE_VALIDATION_CACHE_MAX_SIZE,
+                DEFAULT_VALIDATION_CACHE_MAX_SIZE);
+        signatureValidationCacheTimeToLive = getPositiveLongProperty(
+                IDPMetadataConstant.SAML_METADATA_SIGNATURE_VALIDATION_CACHE_TTL,
+                DEFAULT_SIGNATURE_VALIDATION_CACHE_TIME_TO_LIVE_IN_SECONDS) * 1000;
+        certificateValidationEnabled = MetadataConfigUtil.parseBoolean(
+                getIdentityProperty(IDPMetadataConstant.SAML_METADATA_CERTIFICATE_VALIDATION_ENABLED), false);
+        revocationEnabled = MetadataConfigUtil.parseBoolean(getIdentityProperty(
+                IDPMetadataConstant.SAML_METADATA_CERTIFICATE_VALIDATION_REVOCATION_ENABLED), false);
+        crlRefreshInterval = getPositiveLongProperty(
+                IDPMetadataConstant.SAML_METADATA_CERTIFICATE_VALIDATION_CRL_REFRESH_INTERVAL,
+                DEFAULT_CRL_REFRESH_INTERVAL_IN_SECONDS) * 1000;
+        certificateValidationCacheMaxSize = (int) getPositiveLongProperty(
+                IDPMetadataConstant.SAML_METADATA_CERTIFICATE_VALIDATION_CACHE_MAX_SIZE,
+                DEFAULT_VALIDATION_CACHE_MAX_SIZE);
+        certificateValidationCacheTimeToLive = getPositiveLongProperty(
+                IDPMetadataConstant.SAML_METADATA_CERTIFICATE_VALIDATION_CACHE_TTL,
+                DEFAULT_CERTIFICATE_VALIDATION_CACHE_TIME_TO_LIVE_IN_SECONDS) * 1000;
+    }
+
+    /**
+     * Get the current configuration, reading it if it has not been read yet.
+     *
+     * @return Metadata configuration.
+     */
+    public static MetadataConfiguration getInstance() {
+
+        MetadataConfiguration configuration = instance;
+        if (configuration == null) {
+            synchronized (MetadataConfiguration.class) {
+                configuration = instance;
+                if (configuration == null) {
+                    configuration = new MetadataConfiguration(Collections.<String, String>emptyMap());
+                    instance = configuration;
+                }
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * Read the configuration again and replace the current snapshot. If the signing configuration has changed, the
+     * cached signing credentials are dropped and the cached metadata is re-signed with the new configuration. The
+     * metadata refresh is rescheduled and the signing limits are replaced when their configuration has changed.
+     *
+     * @param properties Properties of the component, which override the identity.xml configuration of the same name.
+     *                   May be null.
+     */
+    public static void reload(Map<String, ?> properties) {
+
+        Map<String, String> overrides = new HashMap<>();
+        if (properties != null) {
+            for (Map.Entry<String, ?> property : properties.entrySet()) {
+                if (property.getValue() != null) {
+                    overrides.put(property.getKey(), String.valueOf(property.getValue()));
+                }
+            }
+        }
+
+        MetadataConfiguration previous;
+        MetadataConfiguration configuration = new MetadataConfiguration(Collections.unmodifiableMap(overrides));
+        synchronized (MetadataConfiguration.class) {
+            previous = instance;
+            instance = configuration;
+        }
+        if (previous == null) {
+            return;
+        }
+        if (!previous.hasSameRefreshSettings(configuration)) {
+            IDPMetadataRefreshScheduler.getInstance().reschedule();
+        }
+        if (!previous.hasSameSigningLimits(configuration)) {
+            MetadataSigningLimiter.reset();
+        }
+        if (!previous.hasSameTrustStoreSettings(configuration)) {
+            MetadataTrustStore.getInstance().reload();
+        }
+        if (previous.hasSameSigningSettings(configuration)) {
+            return;
+        }
+        log.info("Metadata signing configuration has changed. Re-signing the cached metadata.");
+        SuperTenantSignKeyStore signKeyStore = SuperTenantSignKeyStore.getInstance();
+        signKeyStore.stopWatching();
+        signKeyStore.invalidate();
+        signKeyStore.startWatching();
+        SigningCredentialCache.getInstance().rotate();
+    }
+
+    /**
+     * Check whether a separate sign key store is configured under Security.SAMLSignKeyStore for the super tenant.
+     *
+     * @return true if all the configurations of the sign key store are defined.
+     */
+    public boolean isSignKeyStoreConfigured() {
+
+        return signKeyStoreConfigured;
+    }
+
+    public String getSignKeyStoreLocation() {
+
+        return signKeyStoreLocation;
+    }
+
+    public String getSignKeyStoreType() {
+
+        return signKeyStoreType;
+    }
+
+    public String getSignKeyStorePassword() {
+
+        return signKeyStorePassword;
+    }
+
+    public String getSignKeyStoreKeyAlias() {
+
+        return signKeyStoreKeyAlias;
+    }
+
+    public String getSignKeyStoreKeyPassword() {
+
+        return signKeyStoreKeyPassword;
+    }
+
+    /**
+     * Get the alias of the key of the primary key store, which is used by the super tenant when no separate sign key
+     * store is configured.
+     *
+     * @return Key alias.
+     */
+    public String getPrimaryKeyStoreKeyAlias() {
+
+        return primaryKeyStoreKeyAlias;
+    }
+
+    /**
+     * Check whether the trust store holding the trust anchors of imported metadata is configured under
+     * Security.SAMLMetadataTrustStore. The trust store of the server is never used in its place.
+     *
+     * @return true if the location, the type and the password of the metadata trust store are defined.
+     */
+    public boolean isTrustStoreConfigured() {
+
+        return trustStoreConfigured;
+    }
+
+    public String getTrustStoreLocation() {
+
+        return trustStoreLocation;
+    }
+
+    public String getTrustStoreType() {
+
+        return trustStoreType;
+    }
+
+    public String getTrustStorePassword() {
+
+        return trustStorePassword;
+    }
+
+    /**
+     * Check whether RSA and DSA keys should sign the metadata with SHA-256.
+     *
+     * @return true if SHA-256 is enabled for metadata signing.
+     */
+    public boolean isSha256Enabled() {
+
+        return sha256Enabled;
+    }
+
+    public boolean isStreamingSigningEnabled() {
+
+        return streamingSigningEnabled;
+    }
+
+    /**
+     * Get the time a loaded signing credential is used before it is read from the key store again.
+     *
+     * @return Time to live in milliseconds.
+     */
+    public long getCredentialTimeToLive() {
+
+        return credentialTimeToLive;
+    }
+
+    /**
+     * Get how often a cached signing credential is checked against the modification time of its key store.
+     *
+     * @return Validation interval in milliseconds.
+     */
+    public long getCredentialValidationInterval() {
+
+        return credentialValidationInterval;
+    }
+
+    public boolean isCacheEnabled() {
+
+        return cacheEnabled;
+    }
+
+    /**
+     * Get the time a request waits for the metadata being built for it.
+     *
+     * @return Load timeout in milliseconds.
+     */
+    public long getLoadTimeout() {
+
+        return loadTimeout;
+    }
+
+    /**
+     * Get the time for which the last good metadata of a tenant may be cached by requesters when it is served
+     * because the metadata could not be signed for lack of signing capacity or time.
+     *
+     * @return Max age of stale metadata in milliseconds.
+     */
+    public long getStaleMaxAge() {
+
+        return staleMaxAge;
+    }
+
+    /**
+     * Get the time for which cached metadata is served without checking the SAML2 SSO configuration of the resident
+     * IdP again. Updates of the resident IdP clear the cached metadata straight away, so the check only catches
+     * changes made without going through the identity provider management service.
+     *
+     * @return Cache validation interval in milliseconds.
+     */
+    public long getCacheValidationInterval() {
+
+        return cacheValidationInterval;
+    }
+
+    /**
+     * Check whether the default metadata builder may render unsigned metadata from templates.
+     *
+     * @return true if metadata templates are enabled.
+     */
+    public boolean isTemplateEnabled() {
+
+        return templateEnabled;
+    }
+
+    /**
+     * Check whether the cached metadata of active tenants is regenerated in the background before it expires.
+     *
+     * @return true if refresh ahead is enabled.
+     */
+    public boolean isRefreshAheadEnabled() {
+
+        return refreshAheadEnabled;
+    }
+
+    /**
+     * Get how often the cached metadata is checked for tenants to refresh.
+     *
+     * @return Refresh interval in milliseconds.
+     */
+    public long getRefreshInterval() {
+
+        return refreshInterval;
+    }
+
+    /**
+     * Get the fraction of the validity period of cached metadata after which it is refreshed.
+     *
+     * @return Refresh ahead factor, between 0 and 1.
+     */
+    public double getRefreshAheadFactor() {
+
+        return refreshAheadFactor;
+    }
+
+    public int getRootTenantCacheMaxSize() {
+
+        return rootTenantCacheMaxSize;
+    }
+
+    /**
+     * Get the time a resolved root tenant domain is cached.
+     *
+     * @return Time to live in milliseconds.
+     */
+    public long getRootTenantCacheTimeToLive() {
+
+        return rootTenantCacheTimeToLive;
+    }
+
+    public int getSigningMaxConcurrency() {
+
+        return signingMaxConcurrency;
+    }
+
+    public int getSigningMaxQueueSize() {
+
+        return signingMaxQueueSize;
+    }
+
+    /**
+     * Get the time a metadata build waits for a signing permit.
+     *
+     * @return Queue timeout in milliseconds.
+     */
+    public long getSigningQueueTimeout() {
+
+        return signingQueueTimeout;
+    }
+
+    public int getResigningPoolSize() {
+
+        return resigningPoolSize;
+    }
+
+    public int getXMLPoolMaxSize() {
+
+        return xmlPoolMaxSize;
+    }
+
+    public boolean isSignatureValidationEnabled() {
+
+        return signatureValidationEnabled;
+    }
+
+    public int getSignatureValidationCacheMaxSize() {
+
+        return signatureValidationCacheMaxSize;
+    }
+
+    /**
+     * Get the time a validated metadata signature is cached.
+     *
+     * @return Time to live in milliseconds.
+     */
+    public long getSignatureValidationCacheTimeToLive() {
+
+        return signatureValidationCacheTimeToLive;
+    }
+
+    public boolean isCertificateValidationEnabled() {
+
+        return certificateValidationEnabled;
+    }
+
+    public boolean isRevocationEnabled() {
+
+        return revocationEnabled;
+    }
+
+    /**
+     * Get how often the revocation status of a validated certification path is checked again.
+     *
+     * @return CRL refresh interval in milliseconds.
+     */
+    public long getCrlRefreshInterval() {
+
+        return crlRefreshInterval;
+    }
+
+    public int getCertificateValidationCacheMaxSize() {
+
+        return certificateValidationCacheMaxSize;
+    }
+
+    /**
+     * Get the time a validated certification path is cached when revocation checking is disabled.
+     *
+     * @return Time to live in milliseconds.
+     */
+    public long getCertificateValidationCacheTimeToLive() {
+
+        return certificateValidationCacheTimeToLive;
+    }
+
+    private String getServerProperty(String name) {
+
+        return ServerConfiguration.getInstance().getFirstProperty(name);
+    }
+
+    private String getIdentityProperty(String name) {
+
+        String value = overrides.get(name);
+        return value != null ? value : IdentityUtil.getProperty(name);
+    }
+
+    private long getPositiveLongProperty(String name, long defaultValue) {
+
+        return MetadataConfigUtil.parsePositiveLong(name, getIdentityProperty(name), defaultValue);
+    }
+
+    private double parseRefreshAheadFactor() {
+
+        String value = getIdentityProperty(IDPMetadataConstant.SAML_METADATA_REFRESH_AHEAD_FACTOR);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                double factor = Double.parseDouble(value.trim());
+                if (factor > 0 && factor < 1) {
+                    return factor;
+                }
+            } catch (NumberFormatException e) {
+                // Falls back to the default value below.
+            }
+            log.warn("Invalid metadata refresh ahead factor: " + value + ". Using the default value: " +
+                    DEFAULT_REFRESH_AHEAD_FACTOR);
+        }
+        return DEFAULT_REFRESH_AHEAD_FACTOR;
+    }
+
+    private boolean hasSameRefreshSettings(MetadataConfiguration other) {
+
+        return refreshAheadEnabled == other.refreshAheadEnabled
+                && refreshInterval == other.refreshInterval
+                && refreshAheadFactor == other.refreshAheadFactor;
+    }
+
+    private boolean hasSameSigningLimits(MetadataConfiguration other) {
+
+        return signingMaxConcurrency == other.signingMaxConcurrency
+                && signingMaxQueueSize == other.signingMaxQueueSize
+                && signingQueueTimeout == other.signingQueueTimeout;
+    }
+
+    private boolean hasSameTrustStoreSettings(MetadataConfiguration other) {
+
+        return StringUtils.equals(trustStoreLocation, other.trustStoreLocation)
+                && StringUtils.equals(trustStoreType, other.trustStoreType)
+                && StringUtils.equals(trustStorePassword, other.trustStorePassword);
+    }
+
+    private boolean hasSameSigningSettings(MetadataConfiguration other) {
+
+        return StringUtils.equals(signKeyStoreLocation, other.signKeyStoreLocation)
+                && StringUtils.equals(signKeyStoreType, other.signKeyStoreType)
+                && StringUtils.equals(signKeyStorePassword, other.signKeyStorePassword)
+                && StringUtils.equals(signKeyStoreKeyAlias, other.signKeyStoreKeyAlias)
+                && StringUtils.equals(signKeyStoreKeyPassword, other.signKeyStoreKeyPassword)
+                && StringUtils.equals(primaryKeyStoreKeyAlias, other.primaryKeyStoreKeyAlias)
+                && sha256Enabled == other.sha256Enabled
+                && streamingSigningEnabled == other.streamingSigningEnabled;
+    }
+}
@@ -20,49 +20,80 @@ package org.wso2.carbon.identity.idp.metadata.saml2;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.opensaml.core.xml.XMLObjectBuilder;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
-import org.opensaml.core.xml.io.Marshaller;
-import org.opensaml.core.xml.io.MarshallingException;
 import org.opensaml.saml.saml2.metadata.EntityDescriptor;
 import org.opensaml.saml.saml2.metadata.KeyDescriptor;
 import org.opensaml.saml.saml2.metadata.RoleDescriptor;
 import org.opensaml.security.credential.UsageType;
-import org.opensaml.security.x509.X509Credential;
 import org.opensaml.xmlsec.signature.KeyInfo;
 import org.opensaml.xmlsec.signature.Signature;
 import org.opensaml.xmlsec.signature.X509Certificate;
 import org.opensaml.xmlsec.signature.X509Data;
 import org.opensaml.xmlsec.signature.support.SignatureConstants;
-import org.w3c.dom.Document;
-import org.wso2.carbon.identity.base.IdentityConstants;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
-import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.SAMLObjectFactory;
 import org.wso2.carbon.idp.mgt.MetadataException;
 
-import java.security.cert.CertificateEncodingException;
 import java.util.List;
 import javax.xml.namespace.QName;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 
 /**
  * This class adds key descriptors to RoleDescriptors.
  */
 public class MetadataCryptoProvider implements CryptoProvider {
 
-    private X509Credential credential;
+    private final SignKeyDataHolder credential;
+    private final String encodedCertificate;
 
     private static final Log log = LogFactory.getLog(MetadataCryptoProvider.class);
+    private static final SAMLObjectFactory<KeyInfo> KEY_INFO_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.XMLSIGNATURE_NS, "KeyInfo", "");
+    private static final SAMLObjectFactory<X509Data> X509_DATA_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.XMLSIGNATURE_NS, "X509Data", "");
+    private static final SAMLObjectFactory<X509Certificate> X509_CERTIFICATE_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.XMLSIGNATURE_NS, "X509Certificate", "");
+    private static final SAMLObjectFactory<KeyDescriptor> KEY_DESCRIPTOR_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.FED_METADATA_NS, "KeyDescriptor", "");
 
     public MetadataCryptoProvider() throws MetadataException {
 
         if (log.isDebugEnabled()) {
             log.debug("Creating the credential object");
         }
-        credential = new SignKeyDataHolder();
+        credential = SigningCredentialCache.getInstance().getCredential(
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+        encodedCertificate = credential.getEncodedEntityCertificate();
+    }
+
+    private MetadataCryptoProvider(String encodedCertificate) {
+
+        this.credential = null;
+        this.encodedCertificate = encodedCertificate;
+    }
+
+    /**
+     * Create a crypto provider for metadata which is not signed. Only the signing certificate of the tenant is read
+     * to add the key descriptors, and the signing credential is not loaded.
+     *
+     * @return Crypto provider which cannot sign the metadata.
+     * @throws MetadataException if there is an error while reading the signing certificate.
+     */
+    public static MetadataCryptoProvider forUnsignedMetadata() throws MetadataException {
+
+        return new MetadataCryptoProvider(SigningCredentialCache.getInstance().getEncodedCertificate(
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain()));
+    }
+
+    /**
+     * Get the signing credential of the tenant.
+     *
+     * @return Signing credential, or null if the provider was created for unsigned metadata.
+     */
+    public SignKeyDataHolder getCredential() {
+
+        return credential;
     }
 
     public void signMetadata(EntityDescriptor baseDescriptor) throws MetadataException {
@@ -77,15 +108,6 @@ public class MetadataCryptoProvider implements CryptoProvider {
         if (log.isDebugEnabled()) {
             log.debug("Key Descriptors set for all the role descriptor types");
         }
-
-        // Set signature namespace to the default value.
-        try {
-            org.apache.xml.security.utils.ElementProxy.setDefaultPrefix(ConfigElements.XMLSIGNATURE_NS,
-                    ConfigElements.DEFAULT_XMLSIGNATURE_NS_PREFIX);
-        } catch (XMLSecurityException e) {
-            throw new MetadataException("Unable to set default prefix for signature element", e);
-        }
-        org.apache.xml.security.Init.init();
     }
 
     /**
@@ -98,17 +120,11 @@ public class MetadataCryptoProvider implements CryptoProvider {
         if (log.isDebugEnabled()) {
             log.debug("Creating the KeyInfo element");
         }
-        KeyInfo keyInfo = BuilderUtil.createSAMLObject(ConfigElements.XMLSIGNATURE_NS, "KeyInfo", "");
-        X509Data data = BuilderUtil.createSAMLObject(ConfigElements.XMLSIGNATURE_NS, "X509Data", "");
-        X509Certificate cert = BuilderUtil.createSAMLObject(ConfigElements.XMLSIGNATURE_NS, "X509Certificate", "");
-
-        String value;
-        try {
-            value = org.apache.xml.security.utils.Base64.encode(credential.getEntityCertificate().getEncoded());
-        } catch (CertificateEncodingException e) {
-            throw new MetadataException("Error while encoding the certificate.", e);
-        }
-        cert.setValue(value);
+        KeyInfo keyInfo = KEY_INFO_FACTORY.build();
+        X509Data data = X509_DATA_FACTORY.build();
+        X509Certificate cert = X509_CERTIFICATE_FACTORY.build();
+
+        cert.setValue(encodedCertificate);
         data.getX509Certificates().add(cert);
         keyInfo.getX509Datas().add(data);
 
@@ -130,65 +146,25 @@ public class MetadataCryptoProvider implements CryptoProvider {
         if (log.isDebugEnabled()) {
             log.debug("Creating the KeyDescriptor element");
         }
-        KeyDescriptor keyDescriptor = BuilderUtil.createSAMLObject(ConfigElements.FED_METADATA_NS, "KeyDescriptor", "");
+        KeyDescriptor keyDescriptor = KEY_DESCRIPTOR_FACTORY.build();
         keyDescriptor.setUse(UsageType.SIGNING);
         keyDescriptor.setKeyInfo(createKeyInfo());
 
         return keyDescriptor;
     }
 
-    /**
-     * Marshall the provided descriptor element contents to DOM.
-     *
-     * @param desc The entity descriptor to be marshalled.
-     * @return Document after marshalling the SAML object to XML.
-     * @throws MetadataException if there is an error while marshalling.
-     */
-    private Document marshallDescriptor(EntityDescriptor desc) throws MetadataException {
-
-        DocumentBuilderFactory factory = IdentityUtil.getSecuredDocumentBuilderFactory();
-        DocumentBuilder builder;
-        try {
-            builder = factory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new MetadataException("Error while creating the document.", e);
-        }
-
-        if (log.isDebugEnabled()) {
-            log.debug("Marshalling the metadata element contents");
-        }
-        Document document = builder.newDocument();
-        Marshaller out = XMLObjectProviderRegistrySupport.getMarshallerFactory().getMarshaller(desc);
-
-        try {
-            out.marshall(desc, document);
-        } catch (MarshallingException e) {
-            throw new MetadataException("Error while marshalling the descriptor.", e);
-        }
-
-        if (log.isDebugEnabled()) {
-            log.debug("Marshalling completed");
-        }
-        return document;
-
-    }
-
     @SuppressWarnings("unchecked")
     public Signature getSignature(EntityDescriptor baseDescriptor) {
 
+        if (credential == null) {
+            throw new IllegalStateException("Signing credential is not loaded for unsigned metadata.");
+        }
         QName qname = Signature.DEFAULT_ELEMENT_NAME;
         XMLObjectBuilder<Signature> builder = (XMLObjectBuilder<Signature>)
                 XMLObjectProviderRegistrySupport.getBuilderFactory().getBuilder(qname);
         Signature signature = builder.buildObject(qname);
         signature.setSigningCredential(credential);
-        String signatureAlgorithm;
-        if (Boolean.parseBoolean(IdentityUtil.getProperty(IdentityConstants.ServerConfig
-                .SAML_METADATA_IDP_ENABLE_SHA256_ALGO))) {
-            signatureAlgorithm = SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA256;
-        } else {
-            signatureAlgorithm = SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA1;
-        }
-        signature.setSignatureAlgorithm(signatureAlgorithm);
+        signature.setSignatureAlgorithm(credential.getSignatureAlgorithm());
         signature.setCanonicalizationAlgorithm(SignatureConstants.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
         baseDescriptor.setSignature(signature);
         return signature;
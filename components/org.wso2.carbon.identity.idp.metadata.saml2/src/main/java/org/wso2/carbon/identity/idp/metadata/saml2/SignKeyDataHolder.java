@@ -26,30 +26,30 @@ import org.opensaml.security.credential.Credential;
 import org.opensaml.security.credential.CredentialContextSet;
 import org.opensaml.security.credential.UsageType;
 import org.opensaml.security.x509.X509Credential;
-import org.wso2.carbon.base.ServerConfiguration;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.core.RegistryResources;
 import org.wso2.carbon.core.util.KeyStoreManager;
 import org.wso2.carbon.identity.idp.metadata.saml2.internal.IDPMetadataSAMLServiceComponentHolder;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.SigningKey;
 import org.wso2.carbon.idp.mgt.MetadataException;
+import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.security.keystore.KeyStoreAdmin;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.security.Key;
 import java.security.KeyStore;
-import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import javax.crypto.SecretKey;
 
 /**
@@ -63,12 +63,17 @@ public class SignKeyDataHolder implements X509Credential {
     public static final String SECURITY_SAML_SIGN_KEY_STORE_KEY_ALIAS = "Security.SAMLSignKeyStore.KeyAlias";
     public static final String SECURITY_SAML_SIGN_KEY_STORE_KEY_PASSWORD = "Security.SAMLSignKeyStore.KeyPassword";
 
-    private String signatureAlgorithm = null;
+    private final String signatureAlgorithm;
 
-    private X509Certificate[] issuerCerts = null;
+    private final X509Certificate[] issuerCerts;
 
-    private PrivateKey issuerPrivateKey = null;
-    private static KeyStore superTenantSignKeyStore = null;
+    private final PrivateKey issuerPrivateKey;
+
+    private final String encodedEntityCertificate;
+
+    private final String certificateThumbprint;
+
+    private final long keyStoreLastModified;
 
     private static final Log log = LogFactory.getLog(SignKeyDataHolder.class);
 
@@ -88,15 +93,24 @@ public class SignKeyDataHolder implements X509Credential {
                 log.debug("Key store used for signing is based on the tenant:  " + userTenantDomain);
             }
 
+            // Read before the keys, so that a key store updated while the keys are read is detected later on.
+            keyStoreLastModified = getKeyStoreLastModified(tenantID, userTenantDomain);
+            SigningKey signingKey;
             if (tenantID != MultitenantConstants.SUPER_TENANT_ID) {
-                initializeKeyDataForTenant(tenantID, userTenantDomain);
+                signingKey = initializeKeyDataForTenant(tenantID, userTenantDomain);
             } else {
-                if (isSignKeyStoreConfigured()) {
-                    initializeKeyDataForSuperTenantFromSignKeyStore();
+                if (SuperTenantSignKeyStore.isConfigured()) {
+                    signingKey = initializeKeyDataForSuperTenantFromSignKeyStore();
                 } else {
-                    initializeKeyDataForSuperTenantFromSystemKeyStore();
+                    signingKey = initializeKeyDataForSuperTenantFromSystemKeyStore();
                 }
             }
+            issuerPrivateKey = signingKey.getPrivateKey();
+            issuerCerts = signingKey.getCertificateChain();
+            signatureAlgorithm = resolveSignatureAlgorithm(issuerCerts[0].getPublicKey());
+            // Encoded once per credential, since the credential is cached and shared by the metadata builds.
+            encodedEntityCertificate = encodeCertificate(issuerCerts[0]);
+            certificateThumbprint = getThumbprint(issuerCerts[0]);
 
         } catch (Exception e) {
             throw new MetadataException("Error occurred while creating certificate credentials", e);
@@ -105,48 +119,153 @@ public class SignKeyDataHolder implements X509Credential {
     }
 
     /**
-     * Set parameters needed for build Sign Key from the tenant KeyStore.
+     * Get the time the key store used to sign the metadata of the given tenant was last modified. The key store of a
+     * tenant is kept in the registry. The key stores of the super tenant are files, which are either watched or only
+     * read at server startup, so their modification time is not tracked.
+     *
+     * @param tenantId     ID of the tenant.
+     * @param tenantDomain Domain of the tenant.
+     * @return Last modified time of the key store, or 0 if it is not tracked or does not exist.
+     * @throws MetadataException if there is an error while reading the registry.
+     */
+    public static long getKeyStoreLastModified(int tenantId, String tenantDomain) throws MetadataException {
+
+        if (tenantId == MultitenantConstants.SUPER_TENANT_ID) {
+            return 0;
+        }
+        String path = RegistryResources.SecurityManagement.KEY_STORES + "/" + getKeyStoreName(tenantDomain);
+        try {
+            Registry registry = IDPMetadataSAMLServiceComponentHolder.getInstance().getRegistryService()
+                    .getGovernanceSystemRegistry(tenantId);
+            if (!registry.resourceExists(path)) {
+                return 0;
+            }
+            Date lastModified = registry.get(path).getLastModified();
+            return lastModified != null ? lastModified.getTime() : 0;
+        } catch (RegistryException e) {
+            throw new MetadataException("Error while reading the key store of tenant: " + tenantDomain, e);
+        }
+    }
+
+    /**
+     * Read the certificate used to sign the metadata of the given tenant without decrypting its private key, for
+     * metadata which only publishes the certificate in its key descriptors.
+     *
+     * @param tenantId     ID of the tenant.
+     * @param tenantDomain Domain of the tenant.
+     * @return Entity certificate.
+     * @throws MetadataException if the certificate cannot be read from the key store.
+     */
+    public static X509Certificate getEntityCertificate(int tenantId, String tenantDomain) throws MetadataException {
+
+        Certificate certificate;
+        try {
+            if (tenantId != MultitenantConstants.SUPER_TENANT_ID) {
+                certificate = KeyStoreManager.getInstance(tenantId).getKeyStore(getKeyStoreName(tenantDomain))
+                        .getCertificate(tenantDomain);
+            } else if (SuperTenantSignKeyStore.isConfigured()) {
+                // The separate sign key store of the super tenant is read and cached as a whole.
+                certificate = SuperTenantSignKeyStore.getInstance().getSigningKey().getCertificateChain()[0];
+            } else {
+                String keyAlias = MetadataConfiguration.getInstance().getPrimaryKeyStoreKeyAlias();
+                if (StringUtils.isBlank(keyAlias)) {
+                    throw new MetadataException("Invalid file configurations. The key alias is not found.");
+                }
+                certificate = KeyStoreManager.getInstance(tenantId).getPrimaryKeyStore().getCertificate(keyAlias);
+            }
+        } catch (MetadataException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MetadataException("Error while reading the signing certificate of tenant: " + tenantDomain, e);
+        }
+        if (!(certificate instanceof X509Certificate)) {
+            throw new MetadataException("Signing certificate of tenant: " + tenantDomain + " is not found.");
+        }
+        return (X509Certificate) certificate;
+    }
+
+    /**
+     * Encode a certificate in Base64, as published in the X509Certificate element of the metadata.
+     *
+     * @param certificate Certificate.
+     * @return Encoded certificate.
+     * @throws MetadataException if the certificate cannot be encoded.
+     */
+    public static String encodeCertificate(X509Certificate certificate) throws MetadataException {
+
+        try {
+            return org.apache.xml.security.utils.Base64.encode(certificate.getEncoded());
+        } catch (CertificateEncodingException e) {
+            throw new MetadataException("Error while encoding the signing certificate.", e);
+        }
+    }
+
+    /**
+     * Get the SHA-256 thumbprint of a certificate, which identifies its key.
+     *
+     * @param certificate Certificate.
+     * @return Lower case hex thumbprint.
+     * @throws MetadataException if the certificate cannot be encoded.
+     */
+    public static String getThumbprint(X509Certificate certificate) throws MetadataException {
+
+        StringBuilder thumbprint = new StringBuilder();
+        try {
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded())) {
+                thumbprint.append(String.format("%02x", b & 0xff));
+            }
+        } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+            throw new MetadataException("Error while computing the thumbprint of the signing certificate.", e);
+        }
+        return thumbprint.toString();
+    }
+
+    private static String getKeyStoreName(String tenantDomain) {
+
+        return tenantDomain.trim().replace(".", "-") + ".jks";
+    }
+
+    /**
+     * Get the key needed for build Sign Key from the tenant KeyStore.
      *
      * @param tenantID     ID of the tenant.
      * @param tenantDomain Domain of the tenant.
+     * @return Signing key.
      * @throws Exception if there is an error while retrieving from the key store manager.
      */
-    private void initializeKeyDataForTenant(int tenantID, String tenantDomain) throws Exception {
+    private SigningKey initializeKeyDataForTenant(int tenantID, String tenantDomain)
+            throws Exception {
 
         if (log.isDebugEnabled()) {
             log.debug("Initializing Key Data for tenant: " + tenantDomain);
         }
 
-        String keyStoreName = tenantDomain.trim().replace(".", "-") + ".jks";
+        String keyStoreName = getKeyStoreName(tenantDomain);
         String keyAlias = tenantDomain;
         KeyStoreManager keyMan = KeyStoreManager.getInstance(tenantID);
 
         KeyStore keyStore = keyMan.getKeyStore(keyStoreName);
-        issuerPrivateKey = (PrivateKey) keyMan.getPrivateKey(keyStoreName, tenantDomain);
+        PrivateKey privateKey = (PrivateKey) keyMan.getPrivateKey(keyStoreName, tenantDomain);
 
         Certificate[] certificates = keyStore.getCertificateChain(keyAlias);
-        issuerCerts = Arrays.copyOf(certificates, certificates.length, X509Certificate[].class);
-
-        signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256;
-        String pubKeyAlgo = issuerCerts[0].getPublicKey().getAlgorithm();
-        if ("DSA".equalsIgnoreCase(pubKeyAlgo)) {
-            signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_DSA;
-        }
+        return new SigningKey(privateKey,
+                Arrays.copyOf(certificates, certificates.length, X509Certificate[].class));
     }
 
     /**
-     * Set parameters needed for build Sign Key from the Sign KeyStore which is defined under Security.KeyStore in
+     * Get the key needed for build Sign Key from the Sign KeyStore which is defined under Security.KeyStore in
      * carbon.xml.
      *
+     * @return Signing key.
      * @throws Exception if the keyAlias is empty or if there is an error while retrieving through the key store admin.
      */
-    private void initializeKeyDataForSuperTenantFromSystemKeyStore() throws Exception {
+    private SigningKey initializeKeyDataForSuperTenantFromSystemKeyStore() throws Exception {
 
         if (log.isDebugEnabled()) {
             log.debug("Initializing Key Data for super tenant using system key store");
         }
 
-        String keyAlias = ServerConfiguration.getInstance().getFirstProperty("Security.KeyStore.KeyAlias");
+        String keyAlias = MetadataConfiguration.getInstance().getPrimaryKeyStoreKeyAlias();
         if (StringUtils.isBlank(keyAlias)) {
             throw new MetadataException("Invalid file configurations. The key alias is not found.");
         }
@@ -154,108 +273,90 @@ public class SignKeyDataHolder implements X509Credential {
         KeyStoreAdmin keyAdmin = new KeyStoreAdmin(MultitenantConstants.SUPER_TENANT_ID,
                 IDPMetadataSAMLServiceComponentHolder.getInstance().getRegistryService().getGovernanceSystemRegistry());
         KeyStoreManager keyMan = KeyStoreManager.getInstance(MultitenantConstants.SUPER_TENANT_ID);
-        issuerPrivateKey = (PrivateKey) keyAdmin.getPrivateKey(keyAlias, true);
+        PrivateKey privateKey = (PrivateKey) keyAdmin.getPrivateKey(keyAlias, true);
 
         Certificate[] certificates = keyMan.getPrimaryKeyStore().getCertificateChain(keyAlias);
-        issuerCerts = Arrays.copyOf(certificates, certificates.length, X509Certificate[].class);
-
-        signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256;
-        String pubKeyAlgo = issuerCerts[0].getPublicKey().getAlgorithm();
-        if ("DSA".equalsIgnoreCase(pubKeyAlgo)) {
-            signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_DSA;
-        }
-    }
-
-    /**
-     * Check whether separate configurations for sign KeyStore available.
-     *
-     * @return true if necessary configurations are defined for sign KeyStore; false otherwise.
-     */
-    private boolean isSignKeyStoreConfigured() {
-
-        String keyStoreLocation = ServerConfiguration.getInstance().getFirstProperty(
-                SECURITY_SAML_SIGN_KEY_STORE_LOCATION);
-        String keyStoreType = ServerConfiguration.getInstance().getFirstProperty(
-                SECURITY_SAML_SIGN_KEY_STORE_TYPE);
-        String keyStorePassword = ServerConfiguration.getInstance().getFirstProperty(
-                SECURITY_SAML_SIGN_KEY_STORE_PASSWORD);
-        String keyAlias = ServerConfiguration.getInstance().getFirstProperty(
-                SECURITY_SAML_SIGN_KEY_STORE_KEY_ALIAS);
-        String keyPassword = ServerConfiguration.getInstance().getFirstProperty(
-                SECURITY_SAML_SIGN_KEY_STORE_KEY_PASSWORD);
-
-        return StringUtils.isNotBlank(keyStoreLocation) && StringUtils.isNotBlank(keyStoreType)
-                && StringUtils.isNotBlank(keyStorePassword) && StringUtils.isNotBlank(keyAlias)
-                && StringUtils.isNotBlank(keyPassword);
+        return new SigningKey(privateKey,
+                Arrays.copyOf(certificates, certificates.length, X509Certificate[].class));
     }
 
     /**
-     * Set parameters needed for build Sign Key from the Sign KeyStore which is defined under Security.SAMLSignKeyStore
+     * Get the key needed for build Sign Key from the Sign KeyStore which is defined under Security.SAMLSignKeyStore
      * in carbon.xml.
      *
+     * @return Signing key.
      * @throws MetadataException if there is an error while using the key store and certificates.
      */
-    private void initializeKeyDataForSuperTenantFromSignKeyStore() throws MetadataException {
+    private SigningKey initializeKeyDataForSuperTenantFromSignKeyStore()
+            throws MetadataException {
 
         if (log.isDebugEnabled()) {
             log.debug("Initializing Key Data for super tenant using separate sign key store");
         }
 
-        try {
-            if (superTenantSignKeyStore == null) {
-
-                String keyStoreLocation = ServerConfiguration.getInstance().getFirstProperty(
-                        SECURITY_SAML_SIGN_KEY_STORE_LOCATION);
-                try (FileInputStream is = new FileInputStream(keyStoreLocation)) {
-                    String keyStoreType = ServerConfiguration.getInstance().getFirstProperty(
-                            SECURITY_SAML_SIGN_KEY_STORE_TYPE);
-                    KeyStore keyStore = KeyStore.getInstance(keyStoreType);
-
-                    char[] keyStorePassword = ServerConfiguration.getInstance().getFirstProperty(
-                            SECURITY_SAML_SIGN_KEY_STORE_PASSWORD).toCharArray();
-                    keyStore.load(is, keyStorePassword);
-
-                    superTenantSignKeyStore = keyStore;
-
-                } catch (FileNotFoundException e) {
-                    throw new MetadataException("Unable to locate keystore", e);
-                } catch (IOException e) {
-                    throw new MetadataException("Unable to read keystore", e);
-                } catch (CertificateException e) {
-                    throw new MetadataException("Unable to read certificate", e);
-                }
+        return SuperTenantSignKeyStore.getInstance().getSigningKey();
+    }
+
+    /**
+     * Resolve the signature algorithm matching the type and size of the signing key. RSA and DSA keys use SHA-256
+     * only if it is enabled for metadata signing, while EC keys use the SHA-2 digest matching the curve size.
+     *
+     * @param publicKey Public key of the signing certificate.
+     * @return Signature algorithm URI.
+     * @throws MetadataException if the key type is not supported for signing metadata.
+     */
+    private String resolveSignatureAlgorithm(PublicKey publicKey) throws MetadataException {
+
+        String keyAlgorithm = publicKey.getAlgorithm();
+        boolean sha256Enabled = MetadataConfiguration.getInstance().isSha256Enabled();
+        if ("RSA".equalsIgnoreCase(keyAlgorithm)) {
+            return sha256Enabled ? XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256 : XMLSignature.ALGO_ID_SIGNATURE_RSA;
+        } else if ("DSA".equalsIgnoreCase(keyAlgorithm)) {
+            return sha256Enabled ? XMLSignature.ALGO_ID_SIGNATURE_DSA_SHA256 : XMLSignature.ALGO_ID_SIGNATURE_DSA;
+        } else if (publicKey instanceof ECPublicKey) {
+            int keySize = ((ECPublicKey) publicKey).getParams().getCurve().getField().getFieldSize();
+            if (keySize <= 256) {
+                return XMLSignature.ALGO_ID_SIGNATURE_ECDSA_SHA256;
+            } else if (keySize <= 384) {
+                return XMLSignature.ALGO_ID_SIGNATURE_ECDSA_SHA384;
             }
+            return XMLSignature.ALGO_ID_SIGNATURE_ECDSA_SHA512;
+        } else if ("EdDSA".equalsIgnoreCase(keyAlgorithm) || "Ed25519".equalsIgnoreCase(keyAlgorithm)
+                || "Ed448".equalsIgnoreCase(keyAlgorithm)) {
+            throw new MetadataException("EdDSA keys are not supported by the XML signature library for signing " +
+                    "metadata. Use an RSA or EC signing key.");
+        }
+        throw new MetadataException("Unsupported signing key algorithm: " + keyAlgorithm);
+    }
 
-            String keyAlias = ServerConfiguration.getInstance().getFirstProperty(
-                    SECURITY_SAML_SIGN_KEY_STORE_KEY_ALIAS);
-            char[] keyPassword = ServerConfiguration.getInstance().getFirstProperty(
-                    SECURITY_SAML_SIGN_KEY_STORE_KEY_PASSWORD).toCharArray();
-            Key key = superTenantSignKeyStore.getKey(keyAlias, keyPassword);
+    /**
+     * Get the signature algorithm to sign the metadata with, which matches the type of the signing key.
+     *
+     * @return Signature algorithm URI.
+     */
+    public String getSignatureAlgorithm() {
 
-            if (key instanceof PrivateKey) {
-                issuerPrivateKey = (PrivateKey) key;
+        return signatureAlgorithm;
+    }
 
-                Certificate[] certificates = superTenantSignKeyStore.getCertificateChain(keyAlias);
-                issuerCerts = Arrays.copyOf(certificates, certificates.length, X509Certificate[].class);
+    /**
+     * Get the SHA-256 thumbprint of the entity certificate, which identifies the signing key of the credential.
+     *
+     * @return Lower case hex thumbprint.
+     */
+    public String getCertificateThumbprint() {
 
-                signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_RSA;
-                Certificate cert = superTenantSignKeyStore.getCertificate(keyAlias);
-                PublicKey publicKey = cert.getPublicKey();
-                String pubKeyAlgo = publicKey.getAlgorithm();
-                if ("DSA".equalsIgnoreCase(pubKeyAlgo)) {
-                    signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_DSA;
-                }
-            } else {
-                throw new MetadataException("Configured signing KeyStore private key is invalid");
-            }
+        return certificateThumbprint;
+    }
 
-        } catch (NoSuchAlgorithmException e) {
-            throw new MetadataException("Unable to load algorithm", e);
-        } catch (UnrecoverableKeyException e) {
-            throw new MetadataException("Unable to load key", e);
-        } catch (KeyStoreException e) {
-            throw new MetadataException("Unable to load keystore", e);
-        }
+    /**
+     * Get the time the key store was last modified when this credential was read from it.
+     *
+     * @return Last modified time of the key store, or 0 if it is not tracked.
+     */
+    public long getKeyStoreLastModified() {
+
+        return keyStoreLastModified;
     }
 
     public Collection<X509CRL> getCRLs() {
@@ -268,6 +369,16 @@ public class SignKeyDataHolder implements X509Credential {
         return issuerCerts[0];
     }
 
+    /**
+     * Get the Base64 encoded entity certificate, as published in the X509Certificate element of the metadata.
+     *
+     * @return Encoded entity certificate.
+     */
+    public String getEncodedEntityCertificate() {
+
+        return encodedEntityCertificate;
+    }
+
     public Collection<X509Certificate> getEntityCertificateChain() {
 
         return Arrays.asList(issuerCerts);
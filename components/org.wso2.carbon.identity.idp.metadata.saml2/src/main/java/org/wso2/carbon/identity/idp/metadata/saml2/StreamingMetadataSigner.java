@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.stax.ext.OutboundXMLSec;
+import org.apache.xml.security.stax.ext.SecurePart;
+import org.apache.xml.security.stax.ext.XMLSec;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.ext.XMLSecurityProperties;
+import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
+import org.opensaml.xmlsec.signature.support.SignatureConstants;
+import org.w3c.dom.Document;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataSigningLimiter;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.XMLStreamUtil;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Signs a marshalled metadata document while it is being serialized. The document is streamed through the StAX
+ * signer of the XML security library, which canonicalizes and digests the events as they are written, instead of
+ * canonicalizing the DOM once for the digest and traversing it again for serialization. The enveloped signature is
+ * placed as the first child of the document element, as required by the SAML metadata schema.
+ */
+public class StreamingMetadataSigner {
+
+    private static final Log log = LogFactory.getLog(StreamingMetadataSigner.class);
+    private static final String ENCODING = "UTF-8";
+
+    private final SignKeyDataHolder credential;
+
+    public StreamingMetadataSigner(SignKeyDataHolder credential) {
+
+        this.credential = credential;
+    }
+
+    /**
+     * Sign and serialize the given unsigned metadata document.
+     *
+     * @param document Marshalled metadata document without a signature.
+     * @return Signed metadata.
+     * @throws MetadataException if there is an error while signing the document.
+     */
+    public String sign(Document document) throws MetadataException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sign(document, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sign the given unsigned metadata document and write it as UTF-8 to the output stream.
+     *
+     * @param document Marshalled metadata document without a signature.
+     * @param out      Output stream, which is not closed.
+     * @throws MetadataException if there is an error while signing the document.
+     */
+    public void sign(Document document, OutputStream out) throws MetadataException {
+
+        OutboundXMLSec outboundXMLSec;
+        try {
+            outboundXMLSec = XMLSec.getOutboundXMLSec(getSecurityProperties());
+        } catch (XMLSecurityException e) {
+            throw new MetadataException("Error while initializing the streaming metadata signer.", e);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Signing the metadata with the streaming signer using algorithm: " +
+                    credential.getSignatureAlgorithm());
+        }
+        MetadataSigningLimiter signingLimiter = MetadataSigningLimiter.getInstance();
+        signingLimiter.acquire();
+        try {
+            // Written through the metadata stream writer, so that the signed metadata is escaped as the unsigned one.
+            XMLStreamWriter writer = outboundXMLSec.processOutMessage(XMLStreamUtil.createXMLStreamWriter(out),
+                    ENCODING);
+            XMLStreamUtil.writeDocument(document, writer);
+            // The signature is only computed and written once the document element is closed.
+            writer.close();
+        } catch (XMLSecurityException | XMLStreamException e) {
+            throw new MetadataException("Error while signing the descriptor.", e);
+        } finally {
+            signingLimiter.release();
+        }
+    }
+
+    private XMLSecurityProperties getSecurityProperties() {
+
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        List<XMLSecurityConstants.Action> actions = new ArrayList<>();
+        actions.add(XMLSecurityConstants.SIGNATURE);
+        properties.setActions(actions);
+
+        properties.setSignatureKey(credential.getPrivateKey());
+        properties.setSignatureCerts(credential.getEntityCertificateChain().toArray(new X509Certificate[0]));
+        properties.setSignatureKeyIdentifier(SecurityTokenConstants.KeyIdentifier_X509KeyIdentifier);
+        properties.setSignatureAlgorithm(credential.getSignatureAlgorithm());
+        properties.setSignatureDigestAlgorithm(SignatureConstants.ALGO_ID_DIGEST_SHA256);
+        properties.setSignatureCanonicalizationAlgorithm(SignatureConstants.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+        properties.setSignaturePosition(0);
+
+        // Reference the whole document with an empty URI, so that the descriptor does not need an ID attribute.
+        SecurePart securePart = new SecurePart(null, SecurePart.Modifier.Element,
+                new String[]{SignatureConstants.TRANSFORM_ENVELOPED_SIGNATURE,
+                        SignatureConstants.ALGO_ID_C14N_EXCL_OMIT_COMMENTS},
+                SignatureConstants.ALGO_ID_DIGEST_SHA256);
+        securePart.setSecureEntireRequest(true);
+        properties.addSignaturePart(securePart);
+        return properties;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.SigningKey;
+import org.wso2.carbon.idp.mgt.MetadataException;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the signing key of the super tenant loaded from the key store configured under Security.SAMLSignKeyStore in
+ * carbon.xml, as read into the {@link MetadataConfiguration}. The key and its certificate chain are kept as an
+ * immutable snapshot which is swapped atomically, so that the key store file can be reloaded while requests keep
+ * signing with the previous snapshot. A background watcher reloads the key store whenever the file changes and keeps
+ * the previous snapshot if the new file is not a valid signing key store.
+ */
+public class SuperTenantSignKeyStore {
+
+    private static final Log log = LogFactory.getLog(SuperTenantSignKeyStore.class);
+    private static final SuperTenantSignKeyStore instance = new SuperTenantSignKeyStore();
+
+    private final AtomicReference<SigningKey> signingKey = new AtomicReference<>();
+    private WatchService watchService;
+
+    private SuperTenantSignKeyStore() {
+
+    }
+
+    public static SuperTenantSignKeyStore getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Check whether separate configurations for sign KeyStore available.
+     *
+     * @return true if necessary configurations are defined for sign KeyStore; false otherwise.
+     */
+    public static boolean isConfigured() {
+
+        return MetadataConfiguration.getInstance().isSignKeyStoreConfigured();
+    }
+
+    /**
+     * Get the current signing key, loading the key store if it has not been loaded yet.
+     *
+     * @return Signing key.
+     * @throws MetadataException if the key store cannot be loaded.
+     */
+    public SigningKey getSigningKey() throws MetadataException {
+
+        SigningKey currentKey = signingKey.get();
+        if (currentKey != null) {
+            return currentKey;
+        }
+        synchronized (this) {
+            currentKey = signingKey.get();
+            if (currentKey == null) {
+                currentKey = load();
+                signingKey.set(currentKey);
+            }
+            return currentKey;
+        }
+    }
+
+    /**
+     * Reload the key store and replace the current signing key, invalidating the credential and the metadata of the
+     * super tenant. The current signing key is kept if the key store is not valid.
+     */
+    public void reload() {
+
+        SigningKey reloadedKey;
+        try {
+            reloadedKey = load();
+        } catch (MetadataException e) {
+            log.error("Error while reloading the SAML sign key store. The previously loaded key is kept.", e);
+            return;
+        }
+        signingKey.set(reloadedKey);
+        SigningCredentialCache.getInstance().clearCacheEntry(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        log.info("Reloaded the SAML sign key store.");
+    }
+
+    /**
+     * Discard the loaded signing key, so that the key store is loaded again on its next use. Should be invoked when
+     * the configuration of the sign key store is changed.
+     */
+    public void invalidate() {
+
+        signingKey.set(null);
+    }
+
+    /**
+     * Start watching the key store file for changes, if a separate sign key store is configured.
+     */
+    public synchronized void startWatching() {
+
+        if (watchService != null || !isConfigured()) {
+            return;
+        }
+
+        final Path keyStorePath = Paths.get(MetadataConfiguration.getInstance().getSignKeyStoreLocation())
+                .toAbsolutePath();
+        final WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            keyStorePath.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.error("Error while watching the SAML sign key store: " + keyStorePath + " for changes.", e);
+            return;
+        }
+        watchService = service;
+
+        Thread watcher = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                watch(service, keyStorePath);
+            }
+        }, "SAMLSignKeyStoreWatcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        if (log.isDebugEnabled()) {
+            log.debug("Started watching the SAML sign key store: " + keyStorePath + " for changes.");
+        }
+    }
+
+    public synchronized void stopWatching() {
+
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.error("Error while closing the SAML sign key store watcher.", e);
+        }
+        watchService = null;
+    }
+
+    private void watch(WatchService service, Path keyStorePath) {
+
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // An overflow may have dropped the event of the key store file.
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || keyStorePath.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    reload();
+                }
+                if (!key.reset()) {
+                    log.warn("Stopped watching the SAML sign key store: " + keyStorePath + " as its directory is " +
+                            "no longer accessible.");
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // The watcher has been stopped.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load the key store and validate that it holds a private key with a certificate chain under the configured
+     * alias.
+     *
+     * @return Signing key.
+     * @throws MetadataException if there is an error while using the key store and certificates.
+     */
+    private SigningKey load() throws MetadataException {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loading the SAML sign key store");
+        }
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        try {
+            KeyStore keyStore;
+            try (FileInputStream is = new FileInputStream(configuration.getSignKeyStoreLocation())) {
+                keyStore = KeyStore.getInstance(configuration.getSignKeyStoreType());
+                keyStore.load(is, configuration.getSignKeyStorePassword().toCharArray());
+            } catch (FileNotFoundException e) {
+                throw new MetadataException("Unable to locate keystore", e);
+            } catch (IOException e) {
+                throw new MetadataException("Unable to read keystore", e);
+            } catch (CertificateException e) {
+                throw new MetadataException("Unable to read certificate", e);
+            }
+
+            String keyAlias = configuration.getSignKeyStoreKeyAlias();
+            Key key = keyStore.getKey(keyAlias, configuration.getSignKeyStoreKeyPassword().toCharArray());
+            if (!(key instanceof PrivateKey)) {
+                throw new MetadataException("Configured signing KeyStore private key is invalid");
+            }
+            Certificate[] certificates = keyStore.getCertificateChain(keyAlias);
+            if (certificates == null || certificates.length == 0) {
+                throw new MetadataException("Configured signing KeyStore certificate chain is not found");
+            }
+            return new SigningKey((PrivateKey) key,
+                    Arrays.copyOf(certificates, certificates.length, X509Certificate[].class));
+        } catch (NoSuchAlgorithmException e) {
+            throw new MetadataException("Unable to load algorithm", e);
+        } catch (UnrecoverableKeyException e) {
+            throw new MetadataException("Unable to load key", e);
+        } catch (KeyStoreException e) {
+            throw new MetadataException("Unable to load keystore", e);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityResponse;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityResponseFactory;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataHttpUtil;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -62,9 +63,31 @@ public class HttpSAMLMetadataResponseFactory extends HttpIdentityResponseFactory
         HttpIdentityResponse.HttpIdentityResponseBuilder builder = new HttpIdentityResponse
                 .HttpIdentityResponseBuilder();
 
+        if (metadataResponse.getETag() != null) {
+            builder.addHeader(MetadataHttpUtil.HEADER_ETAG, metadataResponse.getETag());
+        }
+        if (metadataResponse.getLastModified() > 0) {
+            builder.addHeader(MetadataHttpUtil.HEADER_LAST_MODIFIED,
+                    MetadataHttpUtil.formatHttpDate(metadataResponse.getLastModified()));
+        }
+        if (metadataResponse.getExpiryTime() > 0) {
+            // Caches must not serve the metadata beyond its validUntil, so only the remaining lifetime is allowed.
+            long maxAge = Math.max(0, (metadataResponse.getExpiryTime() - System.currentTimeMillis()) / 1000);
+            builder.addHeader(MetadataHttpUtil.HEADER_CACHE_CONTROL, "public, max-age=" + maxAge);
+            builder.addHeader(MetadataHttpUtil.HEADER_EXPIRES,
+                    MetadataHttpUtil.formatHttpDate(metadataResponse.getExpiryTime()));
+        }
+        if (metadataResponse.isNotModified()) {
+            builder.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+            return builder;
+        }
+
+        // The charset is set explicitly so that the container encodes the body as the UTF-8 bytes the content length
+        // was computed from, rather than its default ISO-8859-1.
         String metadata = metadataResponse.getMetadata();
+        setContentLength(builder, metadataResponse);
         builder.setBody(metadata);
-        builder.setContentType("application/xml");
+        builder.setContentType(getContentType(metadataResponse) + "; charset=UTF-8");
         builder.setStatusCode(HttpServletResponse.SC_OK);
         return builder;
     }
@@ -83,7 +106,28 @@ public class HttpSAMLMetadataResponseFactory extends HttpIdentityResponseFactory
         String message = errorResponse.getMessage();
         builder.setBody(message);
         builder.setContentType("text/html");
-        builder.setStatusCode(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        if (errorResponse.getStatusCode() > 0) {
+            builder.setStatusCode(errorResponse.getStatusCode());
+        } else {
+            builder.setStatusCode(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
         return builder;
     }
+
+    private void setContentLength(HttpIdentityResponse.HttpIdentityResponseBuilder builder,
+                                  SAMLMetadataResponse metadataResponse) {
+
+        if (metadataResponse.getContentLength() >= 0) {
+            builder.addHeader(MetadataHttpUtil.HEADER_CONTENT_LENGTH,
+                    String.valueOf(metadataResponse.getContentLength()));
+        }
+    }
+
+    private String getContentType(SAMLMetadataResponse metadataResponse) {
+
+        if (metadataResponse.getContentType() != null) {
+            return metadataResponse.getContentType();
+        }
+        return "application/xml";
+    }
 }
@@ -28,11 +28,13 @@ import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
 public class SAMLMetadataErrorResponse extends IdentityResponse {
 
     private String message;
+    private int statusCode;
 
     protected SAMLMetadataErrorResponse(IdentityResponse.IdentityResponseBuilder builder) {
 
         super(builder);
         message = ((SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder) builder).message;
+        statusCode = ((SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder) builder).statusCode;
     }
 
 
@@ -46,12 +48,23 @@ public class SAMLMetadataErrorResponse extends IdentityResponse {
         this.message = metadata;
     }
 
+    /**
+     * Get the HTTP status code of the error.
+     *
+     * @return HTTP status code, or 0 if it is an internal server error.
+     */
+    public int getStatusCode() {
+
+        return statusCode;
+    }
+
     /**
      * Class which is responsible for building a SAML metadata error response.
      */
     public static class SAMLMetadataErrorResponseBuilder extends IdentityResponse.IdentityResponseBuilder {
 
         private String message;
+        private int statusCode;
 
         static {
             BuilderUtil.doBootstrap();
@@ -72,6 +85,11 @@ public class SAMLMetadataErrorResponse extends IdentityResponse {
             this.message = metadata;
         }
 
+        public void setStatusCode(int statusCode) {
+
+            this.statusCode = statusCode;
+        }
+
         @Override
         public IdentityResponse build() {
 
@@ -29,11 +29,23 @@ import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
 public class SAMLMetadataResponse extends IdentityResponse {
 
     private String metadata;
+    private String contentType;
+    private String etag;
+    private long lastModified;
+    private long expiryTime;
+    private boolean notModified;
+    private int contentLength = -1;
 
     protected SAMLMetadataResponse(IdentityResponseBuilder builder) {
 
         super(builder);
         metadata = ((SAMLMetadataResponseBuilder) builder).metadata;
+        contentType = ((SAMLMetadataResponseBuilder) builder).contentType;
+        etag = ((SAMLMetadataResponseBuilder) builder).etag;
+        lastModified = ((SAMLMetadataResponseBuilder) builder).lastModified;
+        expiryTime = ((SAMLMetadataResponseBuilder) builder).expiryTime;
+        notModified = ((SAMLMetadataResponseBuilder) builder).notModified;
+        contentLength = ((SAMLMetadataResponseBuilder) builder).contentLength;
     }
 
 
@@ -47,12 +59,68 @@ public class SAMLMetadataResponse extends IdentityResponse {
         this.metadata = metadata;
     }
 
+    /**
+     * Get the media type of the metadata.
+     *
+     * @return Media type, or null if the metadata is sent as application/xml.
+     */
+    public String getContentType() {
+
+        return contentType;
+    }
+
+    public String getETag() {
+
+        return etag;
+    }
+
+    public long getLastModified() {
+
+        return lastModified;
+    }
+
+    /**
+     * Get the time until which the metadata can be reused by the requester and intermediate caches.
+     *
+     * @return Expiry time in milliseconds, or 0 if the metadata should not be cached.
+     */
+    public long getExpiryTime() {
+
+        return expiryTime;
+    }
+
+    /**
+     * Check whether the requester already holds the current metadata, in which case no body is sent.
+     *
+     * @return true if the metadata has not been modified since the requester fetched it.
+     */
+    public boolean isNotModified() {
+
+        return notModified;
+    }
+
+    /**
+     * Get the length in bytes of the UTF-8 encoded metadata.
+     *
+     * @return Content length, or -1 if it is not known.
+     */
+    public int getContentLength() {
+
+        return contentLength;
+    }
+
     /**
      * Class which is responsible for building a SAML metadata response.
      */
     public static class SAMLMetadataResponseBuilder extends IdentityResponseBuilder {
 
         private String metadata;
+        private String contentType;
+        private String etag;
+        private long lastModified;
+        private long expiryTime;
+        private boolean notModified;
+        private int contentLength = -1;
 
         static {
             BuilderUtil.doBootstrap();
@@ -73,6 +141,36 @@ public class SAMLMetadataResponse extends IdentityResponse {
             this.metadata = metadata;
         }
 
+        public void setContentType(String contentType) {
+
+            this.contentType = contentType;
+        }
+
+        public void setETag(String etag) {
+
+            this.etag = etag;
+        }
+
+        public void setLastModified(long lastModified) {
+
+            this.lastModified = lastModified;
+        }
+
+        public void setExpiryTime(long expiryTime) {
+
+            this.expiryTime = expiryTime;
+        }
+
+        public void setNotModified(boolean notModified) {
+
+            this.notModified = notModified;
+        }
+
+        public void setContentLength(int contentLength) {
+
+            this.contentLength = contentLength;
+        }
+
         @Override
         public IdentityResponse build() {
 
@@ -34,27 +34,26 @@ import org.opensaml.xmlsec.signature.Signature;
 import org.opensaml.xmlsec.signature.support.SignatureException;
 import org.opensaml.xmlsec.signature.support.Signer;
 import org.w3c.dom.Document;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
-import org.wso2.carbon.identity.application.common.model.Property;
-import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.idp.metadata.saml2.ConfigElements;
 import org.wso2.carbon.identity.idp.metadata.saml2.CryptoProvider;
 import org.wso2.carbon.identity.idp.metadata.saml2.IDPMetadataConstant;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
 import org.wso2.carbon.identity.idp.metadata.saml2.MetadataCryptoProvider;
-import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.StreamingMetadataSigner;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataSigningLimiter;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.SAMLObjectFactory;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.XMLProcessorPool;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.XMLStreamUtil;
 import org.wso2.carbon.idp.mgt.MetadataException;
 
-import java.io.IOException;
-import java.io.StringWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * This class builds a metadata String using a saml2SSOFederatedAuthenticatedConfig.
@@ -62,7 +61,18 @@ import javax.xml.transform.stream.StreamResult;
 public class DefaultIDPMetadataBuilder extends IDPMetadataBuilder {
 
     private static final int PRIORITY = 50;
+    private static final int INITIAL_BUFFER_SIZE = 8192;
     private static final Log log = LogFactory.getLog(DefaultIDPMetadataBuilder.class);
+    private static final SAMLObjectFactory<EntityDescriptor> ENTITY_DESCRIPTOR_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.FED_METADATA_NS, ConfigElements.ENTITY_DESCRIPTOR, "");
+    private static final SAMLObjectFactory<IDPSSODescriptor> IDPSSO_DESCRIPTOR_FACTORY =
+            new SAMLObjectFactory<>(IDPMetadataConstant.IDP_METADATA_SAML2, ConfigElements.IDPSSO_DESCRIPTOR, "");
+    private static final SAMLObjectFactory<NameIDFormat> NAMEID_FORMAT_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.FED_METADATA_NS, ConfigElements.NAMEID_FORMAT, "");
+    private static final SAMLObjectFactory<SingleLogoutService> SLO_SERVICE_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.FED_METADATA_NS, ConfigElements.SLOSERVICE_DESCRIPTOR, "");
+    private static final SAMLObjectFactory<ArtifactResolutionService> ARTIFACT_RESOLUTION_SERVICE_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.FED_METADATA_NS, ConfigElements.ARTIFACTRESSERVICE_DESCRIPTOR, "");
 
     @Override
     public int getPriority() {
@@ -70,20 +80,71 @@ public class DefaultIDPMetadataBuilder extends IDPMetadataBuilder {
         return PRIORITY;
     }
 
-    public String build(FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig) throws MetadataException {
+    @Override
+    protected String build(IDPMetadataConfig metadataConfig) throws MetadataException {
+
+        // Extensions of this builder may change any build stage, so only this builder renders from templates.
+        if (getClass() != DefaultIDPMetadataBuilder.class || metadataConfig.isMetadataSigningEnabled() ||
+                !MetadataConfiguration.getInstance().isTemplateEnabled()) {
+            return super.build(metadataConfig);
+        }
+        return buildFromTemplate(metadataConfig);
+    }
+
+    /**
+     * Render the unsigned metadata from the template of the shape of the configuration. The first build of a shape
+     * goes through the builder and compiles the template, which is only kept if it renders the same metadata.
+     *
+     * @param metadataConfig Compiled configuration.
+     * @return Metadata.
+     * @throws MetadataException if the metadata could not be built.
+     */
+    private String buildFromTemplate(IDPMetadataConfig metadataConfig) throws MetadataException {
+
+        // The metadata is not signed, so only the certificate is needed.
+        String certificate = SigningCredentialCache.getInstance().getEncodedCertificate(
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+        if (!IDPMetadataTemplate.isRenderable(metadataConfig, certificate)) {
+            return super.build(metadataConfig);
+        }
 
-        return super.build(samlFederatedAuthenticatorConfig);
+        String shape = IDPMetadataTemplate.getShape(metadataConfig);
+        IDPMetadataTemplate template = IDPMetadataTemplate.getTemplate(shape);
+        if (template == null) {
+            String metadata = super.build(metadataConfig);
+            compileTemplate(shape, metadata, metadataConfig, certificate);
+            return metadata;
+        }
+        if (!template.isSupported()) {
+            return super.build(metadataConfig);
+        }
+        setWantAuthRequestSigned(metadataConfig.isAuthnRequestsSigningEnabled());
+        return template.render(metadataConfig, certificate, System.currentTimeMillis());
     }
 
-    private Property getFederatedAuthenticatorConfigProperty(
-            FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig, String name) {
+    private void compileTemplate(String shape, String metadata, IDPMetadataConfig metadataConfig, String certificate)
+            throws MetadataException {
 
-        for (Property property : samlFederatedAuthenticatorConfig.getProperties()) {
-            if (name.equals(property.getName())) {
-                return property;
+        FederatedAuthenticatorConfig sentinelConfig = IDPMetadataTemplate.createSentinelConfig(metadataConfig);
+        String sentinelMetadata = new DefaultIDPMetadataBuilder().buildDocument(
+                IDPMetadataConfig.compile(sentinelConfig));
+        IDPMetadataTemplate template = IDPMetadataTemplate.compile(sentinelMetadata, metadataConfig, certificate);
+        if (template != null && template.isEquivalent(metadata, metadataConfig, certificate)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Compiled the unsigned metadata template of shape: " + shape);
             }
+            IDPMetadataTemplate.addTemplate(shape, template);
+        } else {
+            // Not retried, the builder output of the shape would not match on the next build either.
+            log.warn("The unsigned metadata template of shape: " + shape + " does not match the built metadata. " +
+                    "Metadata of this shape will be built without a template.");
+            IDPMetadataTemplate.addTemplate(shape, IDPMetadataTemplate.UNSUPPORTED);
         }
-        return null;
+    }
+
+    private String buildDocument(IDPMetadataConfig metadataConfig) throws MetadataException {
+
+        return super.build(metadataConfig);
     }
 
     public void buildExtensions(IDPSSODescriptor idpSsoDesc) throws MetadataException {
@@ -93,18 +154,21 @@ public class DefaultIDPMetadataBuilder extends IDPMetadataBuilder {
     public EntityDescriptor buildEntityDescriptor(FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig)
             throws MetadataException {
 
-        EntityDescriptor entityDescriptor = BuilderUtil
-                .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.ENTITY_DESCRIPTOR, "");
-        entityDescriptor.setEntityID(getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                IdentityApplicationConstants.Authenticator.SAML2SSO.IDP_ENTITY_ID).getValue());
+        return buildEntityDescriptor(IDPMetadataConfig.compile(samlFederatedAuthenticatorConfig));
+    }
+
+    @Override
+    protected EntityDescriptor buildEntityDescriptor(IDPMetadataConfig metadataConfig) throws MetadataException {
+
+        EntityDescriptor entityDescriptor = ENTITY_DESCRIPTOR_FACTORY.build();
+        entityDescriptor.setEntityID(metadataConfig.getEntityId());
         entityDescriptor.setNoNamespaceSchemaLocation("");
         return entityDescriptor;
     }
 
     public IDPSSODescriptor buildIDPSSODescriptor() throws MetadataException {
 
-        return BuilderUtil.createSAMLObject(IDPMetadataConstant.IDP_METADATA_SAML2, ConfigElements.IDPSSO_DESCRIPTOR,
-                "");
+        return IDPSSO_DESCRIPTOR_FACTORY.build();
     }
 
     public void buildValidityPeriod(IDPSSODescriptor idpSsoDesc) throws MetadataException {
@@ -120,36 +184,61 @@ public class DefaultIDPMetadataBuilder extends IDPMetadataBuilder {
 
     public void buildKeyDescriptor(EntityDescriptor entityDescriptor) throws MetadataException {
 
-        CryptoProvider cryptoProvider = new MetadataCryptoProvider();
+        CryptoProvider cryptoProvider = getSamlMetadataSigningEnabled() ? new MetadataCryptoProvider() :
+                MetadataCryptoProvider.forUnsignedMetadata();
         cryptoProvider.signMetadata(entityDescriptor);
     }
 
     public String marshallDescriptor(EntityDescriptor entityDescriptor) throws MetadataException {
 
-        DocumentBuilderFactory factory = IdentityUtil.getSecuredDocumentBuilderFactory();
-        DocumentBuilder builder;
-        try {
-            builder = factory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new MetadataException("Error while creating the document.", e);
-        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        marshallDescriptor(entityDescriptor, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Marshall the descriptor, signing it if metadata signing is enabled, and write it as UTF-8 to the output
+     * stream. The marshalled DOM is serialized with a stream writer instead of an identity transformation.
+     *
+     * @param entityDescriptor Entity descriptor.
+     * @param out              Output stream, which is not closed.
+     * @throws MetadataException if there is an error while marshalling, signing or serializing the descriptor.
+     */
+    public void marshallDescriptor(EntityDescriptor entityDescriptor, OutputStream out) throws MetadataException {
 
         if (log.isDebugEnabled()) {
             log.debug("Marshalling the metadata element contents");
         }
-        Document document = builder.newDocument();
-        Marshaller out = XMLObjectProviderRegistrySupport.getMarshallerFactory().getMarshaller(entityDescriptor);
-        CryptoProvider cryptoProvider;
+        // The document does not refer to its builder, so the builder can be given back straight away.
+        DocumentBuilder builder = XMLProcessorPool.getInstance().borrowDocumentBuilder();
+        Document document;
+        try {
+            document = builder.newDocument();
+        } finally {
+            XMLProcessorPool.getInstance().returnDocumentBuilder(builder);
+        }
+        Marshaller marshaller = XMLObjectProviderRegistrySupport.getMarshallerFactory().getMarshaller(entityDescriptor);
+        MetadataCryptoProvider cryptoProvider = null;
         Signature signature = null;
+        boolean streamingSigningEnabled = false;
         if (getSamlMetadataSigningEnabled()) {
             cryptoProvider = new MetadataCryptoProvider();
-            signature = ((MetadataCryptoProvider) cryptoProvider).getSignature(entityDescriptor);
+            streamingSigningEnabled = MetadataConfiguration.getInstance().isStreamingSigningEnabled();
+            if (!streamingSigningEnabled) {
+                signature = cryptoProvider.getSignature(entityDescriptor);
+            }
         }
 
         try {
-            out.marshall(entityDescriptor, document);
+            marshaller.marshall(entityDescriptor, document);
             if (signature != null) {
-                Signer.signObject(signature);
+                MetadataSigningLimiter signingLimiter = MetadataSigningLimiter.getInstance();
+                signingLimiter.acquire();
+                try {
+                    Signer.signObject(signature);
+                } finally {
+                    signingLimiter.release();
+                }
             }
         } catch (MarshallingException e) {
             throw new MetadataException("Error while marshalling the descriptor.", e);
@@ -160,30 +249,23 @@ public class DefaultIDPMetadataBuilder extends IDPMetadataBuilder {
         if (log.isDebugEnabled()) {
             log.debug("Marshalling metadata completed.");
         }
-        org.apache.xml.security.Init.init();
 
-        Transformer transformer;
-        StreamResult streamResult;
-        StringWriter stringWriter = new StringWriter();
-        try {
-            transformer = TransformerFactory.newInstance().newTransformer();
-
-            streamResult = new StreamResult(stringWriter);
-            DOMSource source = new DOMSource(document);
-            transformer.transform(source, streamResult);
-            stringWriter.close();
-            return stringWriter.toString();
-        } catch (TransformerException | IOException e) {
-            log.error("Error Occurred while creating XML transformer", e);
+        if (streamingSigningEnabled) {
+            // The document is signed while it is serialized.
+            new StreamingMetadataSigner(cryptoProvider.getCredential()).sign(document, out);
+            return;
         }
 
-        return stringWriter.toString();
+        try {
+            XMLStreamUtil.writeDocument(document, out);
+        } catch (XMLStreamException e) {
+            throw new MetadataException("Error while serializing the descriptor.", e);
+        }
     }
 
     public void buildNameIdFormat(IDPSSODescriptor idpSsoDesc) throws MetadataException {
 
-        NameIDFormat nameIdFormat = BuilderUtil.createSAMLObject(ConfigElements.FED_METADATA_NS,
-                ConfigElements.NAMEID_FORMAT, "");
+        NameIDFormat nameIdFormat = NAMEID_FORMAT_FACTORY.build();
         nameIdFormat.setFormat(IDPMetadataConstant.NAME_FORMAT_ID_SAML);
         idpSsoDesc.getNameIDFormats().add(nameIdFormat);
     }
@@ -192,52 +274,52 @@ public class DefaultIDPMetadataBuilder extends IDPMetadataBuilder {
                                          FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig)
             throws MetadataException {
 
-        SingleSignOnService ssoHTTPPost = BuilderUtil
-                .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.SSOSERVICE_DESCRIPTOR, "");
+        buildSingleSignOnService(idpSsoDesc, IDPMetadataConfig.compile(samlFederatedAuthenticatorConfig));
+    }
+
+    @Override
+    protected void buildSingleSignOnService(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig)
+            throws MetadataException {
+
+        SingleSignOnService ssoHTTPPost = SSO_SERVICE_FACTORY.build();
         ssoHTTPPost.setBinding(IDPMetadataConstant.HTTP_BINDING_POST_SAML2);
-        ssoHTTPPost.setLocation(
-                getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                        IdentityApplicationConstants.Authenticator.SAML2SSO.SSO_URL).getValue());
+        ssoHTTPPost.setLocation(metadataConfig.getSsoUrl());
         idpSsoDesc.getSingleSignOnServices().add(ssoHTTPPost);
 
-        SingleSignOnService ssoHTTPRedirect = BuilderUtil
-                .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.SSOSERVICE_DESCRIPTOR, "");
+        SingleSignOnService ssoHTTPRedirect = SSO_SERVICE_FACTORY.build();
         ssoHTTPRedirect.setBinding(IDPMetadataConstant.HTTP_BINDING_REDIRECT_SAML2);
-        ssoHTTPRedirect.setLocation(
-                getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                        IdentityApplicationConstants.Authenticator.SAML2SSO.SSO_URL).getValue());
+        ssoHTTPRedirect.setLocation(metadataConfig.getSsoUrl());
         idpSsoDesc.getSingleSignOnServices().add(ssoHTTPRedirect);
 
-        SingleSignOnService ssoSOAP = BuilderUtil
-                .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.SSOSERVICE_DESCRIPTOR, "");
+        SingleSignOnService ssoSOAP = SSO_SERVICE_FACTORY.build();
         ssoSOAP.setBinding(IDPMetadataConstant.SOAP_BINDING_SAML2);
-        ssoSOAP.setLocation(
-                getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                        IdentityApplicationConstants.Authenticator.SAML2SSO.ECP_URL).getValue());
+        ssoSOAP.setLocation(metadataConfig.getEcpUrl());
     }
 
     public void buildSingleLogOutService(IDPSSODescriptor idpSsoDesc,
                                          FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig)
             throws MetadataException {
 
-        addSingleLogoutService(idpSsoDesc, samlFederatedAuthenticatorConfig, IDPMetadataConstant.SOAP_BINDING_SAML2);
-        addSingleLogoutService(idpSsoDesc, samlFederatedAuthenticatorConfig,
-                IDPMetadataConstant.HTTP_BINDING_POST_SAML2);
-        addSingleLogoutService(idpSsoDesc, samlFederatedAuthenticatorConfig,
-                IDPMetadataConstant.HTTP_BINDING_REDIRECT_SAML2);
+        buildSingleLogOutService(idpSsoDesc, IDPMetadataConfig.compile(samlFederatedAuthenticatorConfig));
     }
 
-    private void addSingleLogoutService(IDPSSODescriptor idpSsoDesc,
-                                        FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig, String binding)
+    @Override
+    protected void buildSingleLogOutService(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig)
             throws MetadataException {
 
-        SingleLogoutService sloServiceDesc = BuilderUtil
-                .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.SLOSERVICE_DESCRIPTOR, "");
+        addSingleLogoutService(idpSsoDesc, metadataConfig, IDPMetadataConstant.SOAP_BINDING_SAML2);
+        addSingleLogoutService(idpSsoDesc, metadataConfig, IDPMetadataConstant.HTTP_BINDING_POST_SAML2);
+        addSingleLogoutService(idpSsoDesc, metadataConfig, IDPMetadataConstant.HTTP_BINDING_REDIRECT_SAML2);
+    }
+
+    private void addSingleLogoutService(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig,
+                                        String binding) throws MetadataException {
+
+        SingleLogoutService sloServiceDesc = SLO_SERVICE_FACTORY.build();
         sloServiceDesc.setBinding(binding);
-        sloServiceDesc.setLocation(getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                IdentityApplicationConstants.Authenticator.SAML2SSO.LOGOUT_REQ_URL).getValue());
-        sloServiceDesc.setResponseLocation(getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                IdentityApplicationConstants.Authenticator.SAML2SSO.LOGOUT_REQ_URL).getValue());
+        String logoutRequestUrl = metadataConfig.getLogoutRequestUrl();
+        sloServiceDesc.setLocation(logoutRequestUrl);
+        sloServiceDesc.setResponseLocation(logoutRequestUrl);
         idpSsoDesc.getSingleLogoutServices().add(sloServiceDesc);
     }
 
@@ -245,11 +327,16 @@ public class DefaultIDPMetadataBuilder extends IDPMetadataBuilder {
                                                FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig)
             throws MetadataException {
 
-        ArtifactResolutionService aresServiceDesc = BuilderUtil
-                .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.ARTIFACTRESSERVICE_DESCRIPTOR, "");
+        buildArtifactResolutionService(idpSsoDesc, IDPMetadataConfig.compile(samlFederatedAuthenticatorConfig));
+    }
+
+    @Override
+    protected void buildArtifactResolutionService(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig)
+            throws MetadataException {
+
+        ArtifactResolutionService aresServiceDesc = ARTIFACT_RESOLUTION_SERVICE_FACTORY.build();
         aresServiceDesc.setBinding(IDPMetadataConstant.SOAP_BINDING_SAML2);
-        aresServiceDesc.setLocation(getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                IdentityApplicationConstants.Authenticator.SAML2SSO.ARTIFACT_RESOLVE_URL).getValue());
+        aresServiceDesc.setLocation(metadataConfig.getArtifactResolveUrl());
         aresServiceDesc.setIndex(1);
         idpSsoDesc.getArtifactResolutionServices().add(aresServiceDesc);
     }
@@ -18,7 +18,6 @@
 
 package org.wso2.carbon.identity.idp.metadata.saml2.builder;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.joda.time.DateTime;
@@ -27,12 +26,11 @@ import org.opensaml.saml.saml2.metadata.IDPSSODescriptor;
 import org.opensaml.saml.saml2.metadata.SingleSignOnService;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
-import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
 import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
 import org.wso2.carbon.identity.idp.metadata.saml2.ConfigElements;
 import org.wso2.carbon.identity.idp.metadata.saml2.IDPMetadataConstant;
-import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.SAMLObjectFactory;
 import org.wso2.carbon.idp.mgt.MetadataException;
 
 /**
@@ -44,54 +42,56 @@ public abstract class IDPMetadataBuilder extends AbstractIdentityHandler {
 
     static final long ONE_MINUTE_IN_MILLIS = 60000;
 
+    static final SAMLObjectFactory<SingleSignOnService> SSO_SERVICE_FACTORY =
+            new SAMLObjectFactory<>(ConfigElements.FED_METADATA_NS, ConfigElements.SSOSERVICE_DESCRIPTOR, "");
+
     private boolean samlMetadataSigningEnabled;
 
     private boolean samlAuthRequestSigningEnabled;
 
     public String build(FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig) throws MetadataException {
 
+        // Compiled once and passed to the build stages, so that they do not scan the properties for every value.
+        return build(IDPMetadataConfig.compile(samlFederatedAuthenticatorConfig));
+    }
+
+    /**
+     * Build the metadata of the given compiled configuration.
+     *
+     * @param metadataConfig Compiled SAML federated authenticator configuration.
+     * @return Metadata.
+     * @throws MetadataException if the metadata could not be built.
+     */
+    protected String build(IDPMetadataConfig metadataConfig) throws MetadataException {
+
         if (log.isDebugEnabled()) {
             log.debug("Starting to build the SAML Federated Authenticator Config.");
         }
-        EntityDescriptor entityDescriptor = buildEntityDescriptor(samlFederatedAuthenticatorConfig);
+        EntityDescriptor entityDescriptor = buildEntityDescriptor(metadataConfig);
         IDPSSODescriptor idpSsoDesc = buildIDPSSODescriptor();
-        setValidityPeriod(idpSsoDesc, samlFederatedAuthenticatorConfig);
+        setValidityPeriod(idpSsoDesc, metadataConfig);
+        setCacheDuration(entityDescriptor, idpSsoDesc);
         buildSupportedProtocol(idpSsoDesc);
-        buildSingleSignOnService(idpSsoDesc, samlFederatedAuthenticatorConfig);
-        String samlSsoURL = getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                IdentityApplicationConstants.Authenticator.SAML2SSO.SSO_URL).getValue();
-        samlAuthRequestSigningEnabled = Boolean.parseBoolean(
-                getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                        IdentityApplicationConstants.Authenticator.SAML2SSO.SAML_METADATA_AUTHN_REQUESTS_SIGNING_ENABLED
-                ).getValue()
-        );
-        for (Property property : samlFederatedAuthenticatorConfig.getProperties()) {
-            if (StringUtils.equals(samlSsoURL, property.getValue())) {
-                continue; // Skip since default SSO URL has been already added.
-            }
-            if (StringUtils.startsWith(property.getName(), IdentityApplicationConstants.Authenticator.SAML2SSO.
-                    DESTINATION_URL_PREFIX)) {
-
-                SingleSignOnService ssoHTTPPost = BuilderUtil
-                        .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.SSOSERVICE_DESCRIPTOR, "");
-                ssoHTTPPost.setBinding(IDPMetadataConstant.HTTP_BINDING_POST_SAML2);
-                ssoHTTPPost.setLocation(property.getValue());
-                idpSsoDesc.getSingleSignOnServices().add(ssoHTTPPost);
-
-                SingleSignOnService ssoHTTPRedirect = BuilderUtil
-                        .createSAMLObject(ConfigElements.FED_METADATA_NS, ConfigElements.SSOSERVICE_DESCRIPTOR, "");
-                ssoHTTPRedirect.setBinding(IDPMetadataConstant.HTTP_BINDING_REDIRECT_SAML2);
-                ssoHTTPRedirect.setLocation(property.getValue());
-                idpSsoDesc.getSingleSignOnServices().add(ssoHTTPRedirect);
-            }
+        buildSingleSignOnService(idpSsoDesc, metadataConfig);
+        samlAuthRequestSigningEnabled = metadataConfig.isAuthnRequestsSigningEnabled();
+        for (String destinationUrl : metadataConfig.getDestinationUrls()) {
+            SingleSignOnService ssoHTTPPost = SSO_SERVICE_FACTORY.build();
+            ssoHTTPPost.setBinding(IDPMetadataConstant.HTTP_BINDING_POST_SAML2);
+            ssoHTTPPost.setLocation(destinationUrl);
+            idpSsoDesc.getSingleSignOnServices().add(ssoHTTPPost);
+
+            SingleSignOnService ssoHTTPRedirect = SSO_SERVICE_FACTORY.build();
+            ssoHTTPRedirect.setBinding(IDPMetadataConstant.HTTP_BINDING_REDIRECT_SAML2);
+            ssoHTTPRedirect.setLocation(destinationUrl);
+            idpSsoDesc.getSingleSignOnServices().add(ssoHTTPRedirect);
         }
-        buildSingleLogOutService(idpSsoDesc, samlFederatedAuthenticatorConfig);
-        buildArtifactResolutionService(idpSsoDesc, samlFederatedAuthenticatorConfig);
+        buildSingleLogOutService(idpSsoDesc, metadataConfig);
+        buildArtifactResolutionService(idpSsoDesc, metadataConfig);
         entityDescriptor.getRoleDescriptors().add(idpSsoDesc);
         buildKeyDescriptor(entityDescriptor);
         buildExtensions(idpSsoDesc);
         idpSsoDesc.setWantAuthnRequestsSigned(samlAuthRequestSigningEnabled);
-        setSamlMetadataSigningEnabled(samlFederatedAuthenticatorConfig);
+        setSamlMetadataSigningEnabled(metadataConfig);
         return marshallDescriptor(entityDescriptor);
     }
 
@@ -105,21 +105,6 @@ public abstract class IDPMetadataBuilder extends AbstractIdentityHandler {
         return null;
     }
 
-    private Property getFederatedAuthenticatorConfigProperty(
-            FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig, String name) {
-
-        Property[] properties = samlFederatedAuthenticatorConfig.getProperties();
-        if (properties != null) {
-            for (Property property : properties) {
-                if (name != null && property != null && name.equals(property.getName())) {
-                    return property;
-                }
-            }
-        }
-        return null;
-    }
-
-
     protected abstract EntityDescriptor buildEntityDescriptor(
             FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig
     ) throws MetadataException;
@@ -153,6 +138,37 @@ public abstract class IDPMetadataBuilder extends AbstractIdentityHandler {
 
     protected abstract String marshallDescriptor(EntityDescriptor entityDescriptor) throws MetadataException;
 
+    /**
+     * Build the entity descriptor of the compiled configuration. Builders which read the configuration should
+     * override this variant, which is given the configuration compiled for the build.
+     *
+     * @param metadataConfig Compiled SAML federated authenticator configuration.
+     * @return Entity descriptor.
+     * @throws MetadataException if the entity descriptor could not be built.
+     */
+    protected EntityDescriptor buildEntityDescriptor(IDPMetadataConfig metadataConfig) throws MetadataException {
+
+        return buildEntityDescriptor(metadataConfig.getSource());
+    }
+
+    protected void buildSingleSignOnService(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig)
+            throws MetadataException {
+
+        buildSingleSignOnService(idpSsoDesc, metadataConfig.getSource());
+    }
+
+    protected void buildSingleLogOutService(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig)
+            throws MetadataException {
+
+        buildSingleLogOutService(idpSsoDesc, metadataConfig.getSource());
+    }
+
+    protected void buildArtifactResolutionService(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig)
+            throws MetadataException {
+
+        buildArtifactResolutionService(idpSsoDesc, metadataConfig.getSource());
+    }
+
     /**
      * Set the validity period in IDPSSODescriptor loading the value from Federated Authenticator Configuration.
      *
@@ -163,19 +179,29 @@ public abstract class IDPMetadataBuilder extends AbstractIdentityHandler {
     protected void setValidityPeriod(IDPSSODescriptor idpSsoDesc, FederatedAuthenticatorConfig
             samlFederatedAuthenticatorConfig) throws MetadataException {
 
-        try {
-            DateTime currentTime = new DateTime();
-            String validityPeriodStr = getFederatedAuthenticatorConfigProperty(samlFederatedAuthenticatorConfig,
-                    IdentityApplicationConstants.Authenticator.SAML2SSO.SAML_METADATA_VALIDITY_PERIOD).getValue();
-            if (validityPeriodStr == null) {
-                throw new MetadataException("Setting validity period failed. Null value found.");
-            }
-            int validityPeriod = Integer.parseInt(validityPeriodStr);
-            DateTime validUntil = new DateTime(currentTime.getMillis() + validityPeriod * ONE_MINUTE_IN_MILLIS);
-            idpSsoDesc.setValidUntil(validUntil);
-        } catch (NumberFormatException e) {
-            throw new MetadataException("Setting validity period failed.", e);
-        }
+        setValidityPeriod(idpSsoDesc, IDPMetadataConfig.compile(samlFederatedAuthenticatorConfig));
+    }
+
+    protected void setValidityPeriod(IDPSSODescriptor idpSsoDesc, IDPMetadataConfig metadataConfig)
+            throws MetadataException {
+
+        DateTime currentTime = new DateTime();
+        int validityPeriod = metadataConfig.getValidityPeriod();
+        DateTime validUntil = new DateTime(currentTime.getMillis() + validityPeriod * ONE_MINUTE_IN_MILLIS);
+        idpSsoDesc.setValidUntil(validUntil);
+        idpSsoDesc.setCacheDuration(validityPeriod * ONE_MINUTE_IN_MILLIS);
+    }
+
+    /**
+     * Set the cacheDuration of the EntityDescriptor to match the IDPSSODescriptor, so that relying parties know how
+     * long they can reuse the metadata before fetching it again.
+     *
+     * @param entityDescriptor EntityDescriptor.
+     * @param idpSsoDesc       IDPSSODescriptor with the validity period set.
+     */
+    protected void setCacheDuration(EntityDescriptor entityDescriptor, IDPSSODescriptor idpSsoDesc) {
+
+        entityDescriptor.setCacheDuration(idpSsoDesc.getCacheDuration());
     }
 
     /**
@@ -185,9 +211,12 @@ public abstract class IDPMetadataBuilder extends AbstractIdentityHandler {
      */
     protected void setSamlMetadataSigningEnabled(FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig) {
 
-        samlMetadataSigningEnabled = Boolean.parseBoolean(getFederatedAuthenticatorConfigProperty(
-                samlFederatedAuthenticatorConfig, IdentityApplicationConstants.Authenticator.SAML2SSO.
-                        SAML_METADATA_SIGNING_ENABLED).getValue());
+        setSamlMetadataSigningEnabled(IDPMetadataConfig.compile(samlFederatedAuthenticatorConfig));
+    }
+
+    protected void setSamlMetadataSigningEnabled(IDPMetadataConfig metadataConfig) {
+
+        samlMetadataSigningEnabled = metadataConfig.isMetadataSigningEnabled();
     }
 
     /**
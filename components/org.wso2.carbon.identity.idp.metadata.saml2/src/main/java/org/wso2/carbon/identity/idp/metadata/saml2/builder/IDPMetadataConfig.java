@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.builder;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants.Authenticator.SAML2SSO;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, typed view of the SAML federated authenticator configuration of a resident IdP, compiled in a single
+ * pass over its properties so that the metadata build stages read plain fields instead of scanning the properties
+ * for each value they need.
+ */
+public final class IDPMetadataConfig {
+
+    private final FederatedAuthenticatorConfig source;
+    private final Map<String, String> properties;
+    private final List<String> destinationUrls;
+
+    private IDPMetadataConfig(FederatedAuthenticatorConfig source, Map<String, String> properties,
+                              List<String> destinationUrls) {
+
+        this.source = source;
+        this.properties = properties;
+        this.destinationUrls = destinationUrls;
+    }
+
+    /**
+     * Compile the given SAML federated authenticator configuration.
+     *
+     * @param samlFederatedAuthenticatorConfig SAML federated authenticator configuration.
+     * @return Compiled configuration.
+     */
+    public static IDPMetadataConfig compile(FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig) {
+
+        Map<String, String> properties = new HashMap<>();
+        List<String> destinationUrlCandidates = new ArrayList<>();
+        Property[] configProperties = samlFederatedAuthenticatorConfig.getProperties();
+        if (configProperties != null) {
+            for (Property property : configProperties) {
+                if (property == null || property.getName() == null) {
+                    continue;
+                }
+                // The first property of a name wins, as with a linear lookup.
+                if (!properties.containsKey(property.getName())) {
+                    properties.put(property.getName(), property.getValue());
+                }
+                if (property.getName().startsWith(SAML2SSO.DESTINATION_URL_PREFIX)) {
+                    destinationUrlCandidates.add(property.getValue());
+                }
+            }
+        }
+
+        // The default SSO URL is published separately, so it is not repeated as a destination URL.
+        String ssoUrl = properties.get(SAML2SSO.SSO_URL);
+        List<String> destinationUrls = new ArrayList<>();
+        for (String destinationUrl : destinationUrlCandidates) {
+            if (!StringUtils.equals(ssoUrl, destinationUrl)) {
+                destinationUrls.add(destinationUrl);
+            }
+        }
+        return new IDPMetadataConfig(samlFederatedAuthenticatorConfig, Collections.unmodifiableMap(properties),
+                Collections.unmodifiableList(destinationUrls));
+    }
+
+    /**
+     * Get the configuration this view was compiled from.
+     *
+     * @return SAML federated authenticator configuration.
+     */
+    public FederatedAuthenticatorConfig getSource() {
+
+        return source;
+    }
+
+    /**
+     * Get the value of a property of the configuration.
+     *
+     * @param name Property name.
+     * @return Property value, or null if the property is not defined.
+     */
+    public String getProperty(String name) {
+
+        return properties.get(name);
+    }
+
+    public String getEntityId() {
+
+        return properties.get(SAML2SSO.IDP_ENTITY_ID);
+    }
+
+    public String getSsoUrl() {
+
+        return properties.get(SAML2SSO.SSO_URL);
+    }
+
+    public String getEcpUrl() {
+
+        return properties.get(SAML2SSO.ECP_URL);
+    }
+
+    public String getLogoutRequestUrl() {
+
+        return properties.get(SAML2SSO.LOGOUT_REQ_URL);
+    }
+
+    public String getArtifactResolveUrl() {
+
+        return properties.get(SAML2SSO.ARTIFACT_RESOLVE_URL);
+    }
+
+    /**
+     * Get the additional SSO destination URLs, excluding the default SSO URL, in the order they are configured.
+     *
+     * @return Destination URLs.
+     */
+    public List<String> getDestinationUrls() {
+
+        return destinationUrls;
+    }
+
+    /**
+     * Get the validity period of the metadata.
+     *
+     * @return Validity period in minutes.
+     * @throws MetadataException if the validity period is not configured or is not a number.
+     */
+    public int getValidityPeriod() throws MetadataException {
+
+        String validityPeriod = properties.get(SAML2SSO.SAML_METADATA_VALIDITY_PERIOD);
+        if (validityPeriod == null) {
+            throw new MetadataException("Setting validity period failed. Null value found.");
+        }
+        try {
+            return Integer.parseInt(validityPeriod);
+        } catch (NumberFormatException e) {
+            throw new MetadataException("Setting validity period failed.", e);
+        }
+    }
+
+    public boolean isMetadataSigningEnabled() {
+
+        return Boolean.parseBoolean(properties.get(SAML2SSO.SAML_METADATA_SIGNING_ENABLED));
+    }
+
+    public boolean isAuthnRequestsSigningEnabled() {
+
+        return Boolean.parseBoolean(properties.get(SAML2SSO.SAML_METADATA_AUTHN_REQUESTS_SIGNING_ENABLED));
+    }
+}
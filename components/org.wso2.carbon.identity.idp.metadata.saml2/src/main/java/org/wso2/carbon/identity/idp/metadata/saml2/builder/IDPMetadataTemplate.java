@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.builder;
+
+import net.shibboleth.utilities.java.support.xml.DOMTypeSupport;
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants.Authenticator.SAML2SSO;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled form of the unsigned metadata rendered by {@link DefaultIDPMetadataBuilder}. The template is the
+ * builder output of a configuration whose endpoint values are replaced by sentinels, split into literal segments and
+ * typed slots for the entityID, the endpoint locations, the validity period and the signing certificate. Rendering
+ * only concatenates the segments with the slot values, without building the OpenSAML object tree or a DOM.
+ * <p>
+ * The document only keeps its shape for configurations that set the same values and the same number of destination
+ * URLs, so templates are compiled per shape. A template is only used once its rendering has been verified to be
+ * identical to the builder output of a real configuration.
+ * <p>
+ * The builder output is authoritative. If the verification fails, a warning is logged and the shape is marked
+ * {@link #UNSUPPORTED}, so its metadata is built by the builder until the server is restarted. The template is not
+ * compiled again, as the same builder would produce the same mismatch.
+ */
+final class IDPMetadataTemplate {
+
+    private static final int ENTITY_ID_SLOT = 0;
+    private static final int SSO_URL_SLOT = 1;
+    private static final int ECP_URL_SLOT = 2;
+    private static final int LOGOUT_REQUEST_URL_SLOT = 3;
+    private static final int ARTIFACT_RESOLVE_URL_SLOT = 4;
+    private static final int DESTINATION_URL_SLOT = 5;
+    private static final int VALID_UNTIL_SLOT = -1;
+    private static final int CACHE_DURATION_SLOT = -2;
+    private static final int CERTIFICATE_SLOT = -3;
+
+    private static final String SENTINEL_PREFIX = "{{metadata-template-slot-";
+    private static final String SENTINEL_SUFFIX = "}}";
+    private static final Pattern VALID_UNTIL = Pattern.compile(" validUntil=\"([^\"]*)\"");
+    private static final Pattern CACHE_DURATION = Pattern.compile(" cacheDuration=\"([^\"]*)\"");
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZoneUTC();
+    private static final Map<String, Integer> PROPERTY_SLOTS = new HashMap<>();
+    private static final int MAX_TEMPLATES = 64;
+    private static final ConcurrentMap<String, IDPMetadataTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Marker of the shapes whose rendering did not match the builder output.
+     */
+    static final IDPMetadataTemplate UNSUPPORTED = new IDPMetadataTemplate(new String[]{""}, new int[0]);
+
+    static {
+        PROPERTY_SLOTS.put(SAML2SSO.IDP_ENTITY_ID, ENTITY_ID_SLOT);
+        PROPERTY_SLOTS.put(SAML2SSO.SSO_URL, SSO_URL_SLOT);
+        PROPERTY_SLOTS.put(SAML2SSO.ECP_URL, ECP_URL_SLOT);
+        PROPERTY_SLOTS.put(SAML2SSO.LOGOUT_REQ_URL, LOGOUT_REQUEST_URL_SLOT);
+        PROPERTY_SLOTS.put(SAML2SSO.ARTIFACT_RESOLVE_URL, ARTIFACT_RESOLVE_URL_SLOT);
+    }
+
+    private final String[] segments;
+    private final int[] slots;
+    private final int literalLength;
+
+    private IDPMetadataTemplate(String[] segments, int[] slots) {
+
+        this.segments = segments;
+        this.slots = slots;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Get the template compiled for the given shape.
+     *
+     * @param shape Shape of the configuration.
+     * @return Template, {@link #UNSUPPORTED} if the shape cannot be rendered from a template, or null if no template
+     * has been compiled for the shape yet.
+     */
+    static IDPMetadataTemplate getTemplate(String shape) {
+
+        return templates.get(shape);
+    }
+
+    static void addTemplate(String shape, IDPMetadataTemplate template) {
+
+        // Shapes only differ by the set values, so there are few of them. The bound guards odd configurations.
+        if (templates.size() < MAX_TEMPLATES) {
+            templates.putIfAbsent(shape, template);
+        }
+    }
+
+    /**
+     * Get the shape of the given configuration, which identifies the template it can be rendered from.
+     *
+     * @param config Compiled configuration.
+     * @return Shape of the configuration.
+     */
+    static String getShape(IDPMetadataConfig config) {
+
+        List<String> values = getSlotValues(config);
+        StringBuilder shape = new StringBuilder(values.size() + 2);
+        for (String value : values) {
+            shape.append(value == null ? 'n' : value.isEmpty() ? 'e' : 'v');
+        }
+        return shape.append(':').append(config.isAuthnRequestsSigningEnabled() ? 't' : 'f').toString();
+    }
+
+    /**
+     * Check whether the values of the given configuration can be written to the template as they are. The builder
+     * output escapes markup characters, so values with such characters are left to the builder.
+     *
+     * @param config      Compiled configuration.
+     * @param certificate Base64 encoded signing certificate.
+     * @return true if the configuration can be rendered from a template.
+     */
+    static boolean isRenderable(IDPMetadataConfig config, String certificate) {
+
+        for (String value : getSlotValues(config)) {
+            if (value != null && !isPlainText(value, false)) {
+                return false;
+            }
+        }
+        return certificate == null || isPlainText(certificate, true);
+    }
+
+    /**
+     * Create a copy of the given configuration whose values of the template slots are replaced by sentinels, so that
+     * the slots can be located in the builder output of the copy.
+     *
+     * @param config Compiled configuration.
+     * @return Configuration with sentinel values.
+     */
+    static FederatedAuthenticatorConfig createSentinelConfig(IDPMetadataConfig config) {
+
+        FederatedAuthenticatorConfig source = config.getSource();
+        Property[] properties = source.getProperties() == null ? new Property[0] : source.getProperties();
+        Property[] sentinelProperties = new Property[properties.length];
+        int destinationUrlSlot = DESTINATION_URL_SLOT;
+        for (int i = 0; i < properties.length; i++) {
+            Property property = properties[i];
+            if (property == null || property.getName() == null) {
+                sentinelProperties[i] = property;
+                continue;
+            }
+            String value = property.getValue();
+            Integer slot = PROPERTY_SLOTS.get(property.getName());
+            if (slot != null) {
+                value = getSentinel(slot, value);
+            } else if (property.getName().startsWith(SAML2SSO.DESTINATION_URL_PREFIX)) {
+                // Destination URLs matching the SSO URL have to be left out of the copy as well.
+                value = StringUtils.equals(config.getSsoUrl(), value) ? getSentinel(SSO_URL_SLOT, value) :
+                        getSentinel(destinationUrlSlot++, value);
+            }
+            Property sentinelProperty = new Property();
+            sentinelProperty.setName(property.getName());
+            sentinelProperty.setValue(value);
+            sentinelProperties[i] = sentinelProperty;
+        }
+
+        FederatedAuthenticatorConfig sentinelConfig = new FederatedAuthenticatorConfig();
+        sentinelConfig.setName(source.getName());
+        sentinelConfig.setDisplayName(source.getDisplayName());
+        sentinelConfig.setEnabled(source.isEnabled());
+        sentinelConfig.setProperties(sentinelProperties);
+        return sentinelConfig;
+    }
+
+    /**
+     * Compile the builder output of a sentinel configuration into a template.
+     *
+     * @param sentinelMetadata Builder output of the configuration created by {@link #createSentinelConfig}.
+     * @param config           Compiled configuration the sentinel configuration was created from.
+     * @param certificate      Base64 encoded signing certificate the metadata was built with.
+     * @return Template, or null if the slots of the metadata could not be told apart.
+     */
+    static IDPMetadataTemplate compile(String sentinelMetadata, IDPMetadataConfig config, String certificate) {
+
+        TreeMap<Integer, int[]> positions = new TreeMap<>();
+        int slotCount = getSlotValues(config).size();
+        for (int slot = 0; slot < slotCount; slot++) {
+            addOccurrences(positions, sentinelMetadata, SENTINEL_PREFIX + slot + SENTINEL_SUFFIX, slot);
+        }
+        if (StringUtils.isNotEmpty(certificate)) {
+            addOccurrences(positions, sentinelMetadata, certificate, CERTIFICATE_SLOT);
+        }
+        addMatches(positions, VALID_UNTIL.matcher(sentinelMetadata), VALID_UNTIL_SLOT);
+        addMatches(positions, CACHE_DURATION.matcher(sentinelMetadata), CACHE_DURATION_SLOT);
+
+        List<String> segments = new ArrayList<>(positions.size() + 1);
+        int[] slots = new int[positions.size()];
+        int offset = 0;
+        for (Map.Entry<Integer, int[]> position : positions.entrySet()) {
+            if (position.getKey() < offset) {
+                return null;
+            }
+            slots[segments.size()] = position.getValue()[0];
+            segments.add(sentinelMetadata.substring(offset, position.getKey()));
+            offset = position.getKey() + position.getValue()[1];
+        }
+        segments.add(sentinelMetadata.substring(offset));
+        return new IDPMetadataTemplate(segments.toArray(new String[segments.size()]), slots);
+    }
+
+    /**
+     * Check whether this template renders exactly the given builder output of the given configuration.
+     *
+     * @param metadata    Builder output.
+     * @param config      Compiled configuration the metadata was built from.
+     * @param certificate Base64 encoded signing certificate the metadata was built with.
+     * @return true if the rendered metadata is identical to the builder output.
+     * @throws MetadataException if the validity period of the configuration is invalid.
+     */
+    boolean isEquivalent(String metadata, IDPMetadataConfig config, String certificate) throws MetadataException {
+
+        Matcher validUntil = VALID_UNTIL.matcher(metadata);
+        if (!validUntil.find()) {
+            return false;
+        }
+        long buildTime;
+        try {
+            buildTime = DATE_FORMATTER.parseMillis(validUntil.group(1)) -
+                    config.getValidityPeriod() * IDPMetadataBuilder.ONE_MINUTE_IN_MILLIS;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return metadata.equals(render(config, certificate, buildTime));
+    }
+
+    /**
+     * Render the metadata of the given configuration.
+     *
+     * @param config      Compiled configuration of the shape of this template.
+     * @param certificate Base64 encoded signing certificate.
+     * @param currentTime Time the validity period of the metadata starts at.
+     * @return Metadata.
+     * @throws MetadataException if the validity period of the configuration is invalid.
+     */
+    String render(IDPMetadataConfig config, String certificate, long currentTime) throws MetadataException {
+
+        List<String> values = getSlotValues(config);
+        long cacheDuration = config.getValidityPeriod() * IDPMetadataBuilder.ONE_MINUTE_IN_MILLIS;
+        String validUntil = DATE_FORMATTER.print(currentTime + cacheDuration);
+        String duration = DOMTypeSupport.longToDuration(cacheDuration);
+
+        StringBuilder metadata = new StringBuilder(literalLength + 2048);
+        for (int i = 0; i < slots.length; i++) {
+            metadata.append(segments[i]);
+            switch (slots[i]) {
+                case VALID_UNTIL_SLOT:
+                    metadata.append(validUntil);
+                    break;
+                case CACHE_DURATION_SLOT:
+                    metadata.append(duration);
+                    break;
+                case CERTIFICATE_SLOT:
+                    metadata.append(certificate);
+                    break;
+                default:
+                    metadata.append(values.get(slots[i]));
+                    break;
+            }
+        }
+        return metadata.append(segments[slots.length]).toString();
+    }
+
+    boolean isSupported() {
+
+        return this != UNSUPPORTED;
+    }
+
+    private static List<String> getSlotValues(IDPMetadataConfig config) {
+
+        List<String> values = new ArrayList<>(DESTINATION_URL_SLOT + config.getDestinationUrls().size());
+        values.add(config.getEntityId());
+        values.add(config.getSsoUrl());
+        values.add(config.getEcpUrl());
+        values.add(config.getLogoutRequestUrl());
+        values.add(config.getArtifactResolveUrl());
+        values.addAll(config.getDestinationUrls());
+        return values;
+    }
+
+    private static String getSentinel(int slot, String value) {
+
+        return StringUtils.isEmpty(value) ? value : SENTINEL_PREFIX + slot + SENTINEL_SUFFIX;
+    }
+
+    private static void addOccurrences(Map<Integer, int[]> positions, String metadata, String value, int slot) {
+
+        for (int index = metadata.indexOf(value); index >= 0; index = metadata.indexOf(value, index + 1)) {
+            positions.put(index, new int[]{slot, value.length()});
+        }
+    }
+
+    private static void addMatches(Map<Integer, int[]> positions, Matcher matcher, int slot) {
+
+        while (matcher.find()) {
+            positions.put(matcher.start(1), new int[]{slot, matcher.end(1) - matcher.start(1)});
+        }
+    }
+
+    private static boolean isPlainText(String value, boolean lineBreaksAllowed) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' && lineBreaksAllowed) {
+                continue;
+            }
+            if (c < 0x20 || c > 0x7e || c == '&' || c == '<' || c == '>' || c == '"' || c == '\'') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
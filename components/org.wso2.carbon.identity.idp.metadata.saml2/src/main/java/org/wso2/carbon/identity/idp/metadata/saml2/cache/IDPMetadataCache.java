@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.cache.BaseCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tenant keyed cache of the rendered resident IdP metadata. The metadata of each tenant is held in the Carbon cache of
+ * the tenant, so that an invalidation on one node of a cluster clears the metadata on every node. The tenants with
+ * cached metadata are tracked on this node, so that the scheduled refresh and the key rotation can visit them.
+ */
+public class IDPMetadataCache extends BaseCache<String, IDPMetadataCacheEntry> {
+
+    private static final Log log = LogFactory.getLog(IDPMetadataCache.class);
+    private static final String CACHE_NAME = "IDPMetadataCache";
+    private static final IDPMetadataCache instance = new IDPMetadataCache();
+    private static final String SHA1_IDENTIFIER_PREFIX = "{sha1}";
+
+    private final Set<String> tenantDomains = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private IDPMetadataCache() {
+
+        super(CACHE_NAME);
+    }
+
+    public static IDPMetadataCache getInstance() {
+
+        return instance;
+    }
+
+    @Override
+    public IDPMetadataCacheEntry getValueFromCache(String tenantDomain) {
+
+        return super.getValueFromCache(tenantDomain, tenantDomain);
+    }
+
+    @Override
+    public void addToCache(String tenantDomain, IDPMetadataCacheEntry entry) {
+
+        super.addToCache(tenantDomain, entry, tenantDomain);
+        tenantDomains.add(tenantDomain);
+    }
+
+    /**
+     * Check whether the given entity identifier of a metadata query identifies the given entityID.
+     *
+     * @param entityIdentifier Entity ID, or its SHA-1 transformed form <code>{sha1}hex</code>.
+     * @param entityId         Entity ID.
+     * @return true if the identifier matches the entityID.
+     */
+    public static boolean isEntityIdentifierMatched(String entityIdentifier, String entityId) {
+
+        if (entityIdentifier == null || entityId == null) {
+            return false;
+        }
+        return entityIdentifier.equals(entityId) || entityIdentifier.equalsIgnoreCase(getSHA1Identifier(entityId));
+    }
+
+    /**
+     * Get a snapshot of the cached metadata of all tenants. Tenants whose metadata has been evicted or invalidated are
+     * no longer tracked.
+     *
+     * @return Cached entries.
+     */
+    public List<IDPMetadataCacheEntry> getEntries() {
+
+        List<IDPMetadataCacheEntry> entries = new ArrayList<>();
+        for (String tenantDomain : tenantDomains) {
+            IDPMetadataCacheEntry entry = getValueFromCache(tenantDomain);
+            if (entry == null) {
+                tenantDomains.remove(tenantDomain);
+            } else {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Remove the given metadata, unless it has already been replaced by a newer one. The check is not atomic with the
+     * removal, so metadata replaced in between is removed as well and rebuilt on its next request.
+     *
+     * @param entry Cached metadata.
+     */
+    public void clearCacheEntry(IDPMetadataCacheEntry entry) {
+
+        if (getValueFromCache(entry.getTenantDomain()) == entry) {
+            clearCacheEntry(entry.getTenantDomain());
+        }
+    }
+
+    /**
+     * Remove the metadata of the given tenant. Should be invoked when the resident IdP SAML configuration or the
+     * signing key store of the tenant is changed.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    @Override
+    public void clearCacheEntry(String tenantDomain) {
+
+        tenantDomains.remove(tenantDomain);
+        super.clearCacheEntry(tenantDomain, tenantDomain);
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the cached resident IdP metadata of tenant: " + tenantDomain);
+        }
+    }
+
+    @Override
+    public void clear() {
+
+        for (String tenantDomain : tenantDomains) {
+            clearCacheEntry(tenantDomain);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the resident IdP metadata cache.");
+        }
+    }
+
+    /**
+     * Get the SHA-1 transformed entity identifier defined by the Metadata Query Protocol.
+     *
+     * @param entityId Entity ID.
+     * @return <code>{sha1}</code> followed by the lower case hex SHA-1 digest of the entityID.
+     */
+    private static String getSHA1Identifier(String entityId) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(entityId.getBytes(StandardCharsets.UTF_8));
+            StringBuilder identifier = new StringBuilder(SHA1_IDENTIFIER_PREFIX);
+            for (byte b : digest) {
+                identifier.append(String.format("%02x", b & 0xff));
+            }
+            return identifier.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1.
+            throw new IllegalStateException("SHA-1 digest is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Holder of the rendered resident IdP metadata of a tenant. Apart from the last accessed time and the validation time,
+ * the entry is immutable.
+ */
+public class IDPMetadataCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -3964263155823826541L;
+    private static final Log log = LogFactory.getLog(IDPMetadataCacheEntry.class);
+
+    private final String tenantDomain;
+    private final String entityId;
+    private final String metadata;
+    private final int contentLength;
+    private final String configFingerprint;
+    private final long signingGeneration;
+    private final long createdTime;
+    private final long expiryTime;
+    private final long lastModified;
+    private final String etag;
+    private volatile long lastAccessedTime;
+    private volatile long validationTime;
+
+    public IDPMetadataCacheEntry(String tenantDomain, String entityId, String metadata, String configFingerprint,
+                                 long signingGeneration, long createdTime, long expiryTime) {
+
+        this.tenantDomain = tenantDomain;
+        this.entityId = entityId;
+        this.metadata = metadata;
+        this.configFingerprint = configFingerprint;
+        this.signingGeneration = signingGeneration;
+        this.createdTime = createdTime;
+        this.expiryTime = expiryTime;
+        this.lastAccessedTime = createdTime;
+        this.validationTime = createdTime;
+        // HTTP dates only carry second precision.
+        this.lastModified = createdTime - createdTime % 1000;
+
+        // Encode once per metadata version, so that requests do not hash or measure the document again.
+        byte[] metadataBytes = metadata == null ? null : metadata.getBytes(StandardCharsets.UTF_8);
+        this.contentLength = metadataBytes == null ? -1 : metadataBytes.length;
+        this.etag = computeETag(metadataBytes);
+    }
+
+    private IDPMetadataCacheEntry(IDPMetadataCacheEntry entry, long expiryTime) {
+
+        this.tenantDomain = entry.tenantDomain;
+        this.entityId = entry.entityId;
+        this.metadata = entry.metadata;
+        this.contentLength = entry.contentLength;
+        this.configFingerprint = entry.configFingerprint;
+        this.signingGeneration = entry.signingGeneration;
+        this.createdTime = entry.createdTime;
+        this.expiryTime = expiryTime;
+        this.lastModified = entry.lastModified;
+        this.etag = entry.etag;
+        this.lastAccessedTime = entry.lastAccessedTime;
+        this.validationTime = entry.validationTime;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    /**
+     * Get the entityID of the resident IdP the metadata was rendered for.
+     *
+     * @return Entity ID, or null if it is not known.
+     */
+    public String getEntityId() {
+
+        return entityId;
+    }
+
+    public String getMetadata() {
+
+        return metadata;
+    }
+
+    /**
+     * Get the length in bytes of the UTF-8 encoded metadata.
+     *
+     * @return Content length, or -1 if there is no metadata.
+     */
+    public int getContentLength() {
+
+        return contentLength;
+    }
+
+    public String getConfigFingerprint() {
+
+        return configFingerprint;
+    }
+
+    /**
+     * Get the signing credential generation of the tenant under which the metadata was signed.
+     *
+     * @return Signing credential generation.
+     */
+    public long getSigningGeneration() {
+
+        return signingGeneration;
+    }
+
+    public long getCreatedTime() {
+
+        return createdTime;
+    }
+
+    public long getExpiryTime() {
+
+        return expiryTime;
+    }
+
+    public long getLastAccessedTime() {
+
+        return lastAccessedTime;
+    }
+
+    public void setLastAccessedTime(long lastAccessedTime) {
+
+        this.lastAccessedTime = lastAccessedTime;
+    }
+
+    /**
+     * Get the time until which the metadata may be served without checking the SAML2 SSO configuration of the
+     * resident IdP again.
+     *
+     * @return Validation time in milliseconds.
+     */
+    public long getValidationTime() {
+
+        return validationTime;
+    }
+
+    public void setValidationTime(long validationTime) {
+
+        this.validationTime = validationTime;
+    }
+
+    /**
+     * Get the time at which the metadata should be rebuilt in the background, given as a fraction of the validity
+     * period of the metadata.
+     *
+     * @param refreshAheadFactor Fraction of the validity period after which the metadata should be refreshed.
+     * @return Refresh time in milliseconds.
+     */
+    public long getRefreshTime(double refreshAheadFactor) {
+
+        return createdTime + (long) ((expiryTime - createdTime) * refreshAheadFactor);
+    }
+
+    public long getLastModified() {
+
+        return lastModified;
+    }
+
+    /**
+     * Get the strong entity tag of the metadata, which is a quoted content hash of the document.
+     *
+     * @return Entity tag of the metadata or null if it could not be computed.
+     */
+    public String getETag() {
+
+        return etag;
+    }
+
+    /**
+     * Check whether the metadata is still within the validity period stamped in the document.
+     *
+     * @param currentTime Current time in milliseconds.
+     * @return true if the entry has expired.
+     */
+    public boolean isExpired(long currentTime) {
+
+        return currentTime >= expiryTime;
+    }
+
+    /**
+     * Get a copy of the entry which expires at the given time, keeping the content, entity tag and last modified
+     * time of the metadata.
+     *
+     * @param expiryTime Expiry time of the copy in milliseconds.
+     * @return Copy of the entry.
+     */
+    public IDPMetadataCacheEntry withExpiryTime(long expiryTime) {
+
+        return new IDPMetadataCacheEntry(this, expiryTime);
+    }
+
+    private static String computeETag(byte[] content) {
+
+        if (content == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Error while computing the entity tag of the metadata.", e);
+            return null;
+        }
+    }
+}
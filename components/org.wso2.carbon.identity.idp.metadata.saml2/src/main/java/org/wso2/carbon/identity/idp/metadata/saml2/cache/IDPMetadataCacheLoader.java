@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.builder.IDPMetadataConfig;
+import org.wso2.carbon.identity.idp.metadata.saml2.exception.SigningCapacityExceededException;
+import org.wso2.carbon.identity.idp.metadata.saml2.internal.IDPMetadataSAMLServiceComponentHolder;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads the resident IdP metadata of a tenant through the {@link IDPMetadataCache}. A cached document is reused
+ * until the validity period stamped in it runs out, the SAML2 SSO configuration of the resident IdP changes or the
+ * signing credential of the tenant is invalidated. Metadata of an invalidated signing credential keeps being served
+ * while it is re-signed in the background. Concurrent requests which find no valid cached copy are coalesced, so
+ * that only one of them builds the metadata of a given configuration and signing credential generation while the
+ * others wait for and share its result. The last metadata cached for each tenant is kept aside, so that a request
+ * whose build is rejected for lack of signing capacity or time is served that metadata with a short max age instead
+ * of failing.
+ * The caller is expected to have started the tenant flow of the given tenant.
+ */
+public class IDPMetadataCacheLoader {
+
+    private static final Log log = LogFactory.getLog(IDPMetadataCacheLoader.class);
+    private static final IDPMetadataCacheLoader instance = new IDPMetadataCacheLoader();
+    private static final long ONE_MINUTE_IN_MILLIS = 60000;
+
+    private final ConcurrentMap<String, FutureTask<IDPMetadataCacheEntry>> inFlightLoads =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IDPMetadataCacheEntry> lastGoodEntries = new ConcurrentHashMap<>();
+
+    private IDPMetadataCacheLoader() {
+
+    }
+
+    public static IDPMetadataCacheLoader getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the rendered resident IdP metadata of the tenant, building it only if there is no valid cached copy.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Cache entry holding the metadata.
+     * @throws IdentityProviderManagementException if there is an error while building the metadata.
+     */
+    public IDPMetadataCacheEntry getMetadata(String tenantDomain) throws IdentityProviderManagementException {
+
+        return loadMetadata(tenantDomain, false);
+    }
+
+    /**
+     * Rebuild the resident IdP metadata of the tenant even if the cached copy is still valid. The cached copy keeps
+     * being served to requests until the rebuilt metadata replaces it.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Cache entry holding the rebuilt metadata.
+     * @throws IdentityProviderManagementException if there is an error while building the metadata.
+     */
+    public IDPMetadataCacheEntry refreshMetadata(String tenantDomain) throws IdentityProviderManagementException {
+
+        return loadMetadata(tenantDomain, true);
+    }
+
+    private IDPMetadataCacheEntry loadMetadata(String tenantDomain, boolean forceRefresh)
+            throws IdentityProviderManagementException {
+
+        final IdentityProviderManager identityProviderManager = (IdentityProviderManager)
+                IDPMetadataSAMLServiceComponentHolder.getInstance().getIdpManager();
+        if (!MetadataConfiguration.getInstance().isCacheEnabled()) {
+            return buildEntry(identityProviderManager, tenantDomain, null, null, 0, 0);
+        }
+
+        // Read before the build starts, so that a build overlapping an invalidation is never taken as current.
+        final long signingGeneration = SigningCredentialCache.getInstance().getGeneration(tenantDomain);
+        IDPMetadataCacheEntry currentEntry = IDPMetadataCache.getInstance().getValueFromCache(tenantDomain);
+        long currentTime = System.currentTimeMillis();
+        if (!forceRefresh && currentEntry != null && currentEntry.getSigningGeneration() == signingGeneration
+                && !currentEntry.isExpired(currentTime) && currentTime < currentEntry.getValidationTime()) {
+            // Updates of the resident IdP clear the cached metadata, so the configuration is only checked again
+            // once the validation interval has passed.
+            return serveCachedEntry(tenantDomain, currentEntry, currentTime);
+        }
+
+        FederatedAuthenticatorConfig samlConfig = getSAMLFederatedAuthenticatorConfig(
+                identityProviderManager.getResidentIdP(tenantDomain));
+        final String fingerprint = getConfigFingerprint(samlConfig, signingGeneration);
+        IDPMetadataCacheEntry entry = getValidEntry(tenantDomain, fingerprint);
+        if (entry != null && !forceRefresh) {
+            entry.setValidationTime(currentTime + MetadataConfiguration.getInstance().getCacheValidationInterval());
+            return serveCachedEntry(tenantDomain, entry, currentTime);
+        }
+        if (fingerprint == null) {
+            return buildEntry(identityProviderManager, tenantDomain, null, null, 0, 0);
+        }
+        if (!forceRefresh && IDPMetadataResigner.getInstance().isResignPending(tenantDomain)) {
+            // The metadata signed with the previous credential is served until the re-signed metadata replaces it.
+            IDPMetadataCacheEntry previousEntry = getEntryOfPreviousGeneration(tenantDomain, fingerprint);
+            if (previousEntry != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Serving the cached resident IdP metadata of tenant: " + tenantDomain + " while it " +
+                            "is being re-signed.");
+                }
+                previousEntry.setLastAccessedTime(System.currentTimeMillis());
+                return previousEntry;
+            }
+        }
+
+        final String tenant = tenantDomain;
+        final IDPMetadataCacheEntry replacedEntry = entry;
+        IDPMetadataConfig metadataConfig = IDPMetadataConfig.compile(samlConfig);
+        final long validityPeriod = getValidityPeriod(metadataConfig);
+        final String entityId = metadataConfig.getEntityId();
+        String loadKey = tenantDomain + ":" + fingerprint;
+        FutureTask<IDPMetadataCacheEntry> load = new FutureTask<>(new Callable<IDPMetadataCacheEntry>() {
+
+            @Override
+            public IDPMetadataCacheEntry call() throws IdentityProviderManagementException {
+
+                // A load which completed just before this one was registered may have already cached the metadata.
+                IDPMetadataCacheEntry cachedEntry = getValidEntry(tenant, fingerprint);
+                if (cachedEntry != null && cachedEntry != replacedEntry) {
+                    return cachedEntry;
+                }
+                IDPMetadataCacheEntry builtEntry = buildEntry(identityProviderManager, tenant, entityId, fingerprint,
+                        signingGeneration, validityPeriod);
+                if (replacedEntry != null) {
+                    builtEntry.setLastAccessedTime(replacedEntry.getLastAccessedTime());
+                }
+                if (signingGeneration != SigningCredentialCache.getInstance().getGeneration(tenant)) {
+                    // The metadata may be signed with the invalidated credential, so it must not replace the
+                    // metadata of the new generation.
+                    if (log.isDebugEnabled()) {
+                        log.debug("Signing credential of tenant: " + tenant + " was invalidated while building " +
+                                "its metadata. The built metadata is not cached.");
+                    }
+                    return builtEntry;
+                }
+                IDPMetadataCache.getInstance().addToCache(tenant, builtEntry);
+                lastGoodEntries.put(tenant, builtEntry);
+                return builtEntry;
+            }
+        });
+
+        try {
+            FutureTask<IDPMetadataCacheEntry> inFlightLoad = inFlightLoads.putIfAbsent(loadKey, load);
+            IDPMetadataCacheEntry loadedEntry;
+            if (inFlightLoad == null) {
+                try {
+                    load.run();
+                } finally {
+                    inFlightLoads.remove(loadKey, load);
+                }
+                loadedEntry = getLoadResult(load, tenantDomain);
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Waiting for the in-flight resident IdP metadata build of tenant: " + tenantDomain);
+                }
+                loadedEntry = getLoadResult(inFlightLoad, tenantDomain);
+            }
+            if (forceRefresh && signingGeneration != SigningCredentialCache.getInstance().getGeneration(tenantDomain)) {
+                // A re-sign must not report success with metadata which may carry the invalidated key.
+                throw new IdentityProviderManagementException("Signing credential of tenant: " + tenantDomain +
+                        " was invalidated while re-signing its metadata.");
+            }
+            return loadedEntry;
+        } catch (IdentityProviderManagementException e) {
+            // A refresh keeps the cached metadata in place anyway, so only a request falls back to cached metadata.
+            if (forceRefresh || !isCapacityFailure(e)) {
+                throw e;
+            }
+            IDPMetadataCacheEntry cachedEntry = getValidEntry(tenantDomain, fingerprint);
+            if (cachedEntry != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Could not build the resident IdP metadata of tenant: " + tenantDomain + ". Serving " +
+                            "the metadata cached by a concurrent build.", e);
+                }
+                return cachedEntry;
+            }
+            // The last good metadata may have expired or been signed with an invalidated credential, so requesters
+            // are only allowed to cache it for a short time.
+            IDPMetadataCacheEntry lastGoodEntry = lastGoodEntries.get(tenantDomain);
+            if (lastGoodEntry == null) {
+                throw e;
+            }
+            log.warn("Could not build the resident IdP metadata of tenant: " + tenantDomain + ". Serving the last " +
+                    "good metadata of the tenant. " + e.getMessage());
+            return lastGoodEntry.withExpiryTime(System.currentTimeMillis() +
+                    MetadataConfiguration.getInstance().getStaleMaxAge());
+        }
+    }
+
+    /**
+     * Drop the last good metadata of the given tenant. Should be invoked when the tenant is deleted.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void removeTenant(String tenantDomain) {
+
+        lastGoodEntries.remove(tenantDomain);
+    }
+
+    public void clear() {
+
+        lastGoodEntries.clear();
+    }
+
+    private IDPMetadataCacheEntry serveCachedEntry(String tenantDomain, IDPMetadataCacheEntry entry,
+                                                   long currentTime) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Serving the cached resident IdP metadata of tenant: " + tenantDomain);
+        }
+        entry.setLastAccessedTime(currentTime);
+        return entry;
+    }
+
+    /**
+     * Check whether a metadata build failed because the signing capacity was exhausted or the build did not complete
+     * within the load timeout, rather than because the metadata could not be built.
+     *
+     * @param e Build failure.
+     * @return true if the failure is caused by the lack of signing capacity or time.
+     */
+    private boolean isCapacityFailure(Throwable e) {
+
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SigningCapacityExceededException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private IDPMetadataCacheEntry getValidEntry(String tenantDomain, String fingerprint) {
+
+        IDPMetadataCacheEntry entry = IDPMetadataCache.getInstance().getValueFromCache(tenantDomain);
+        if (entry != null && fingerprint != null && !entry.isExpired(System.currentTimeMillis())
+                && StringUtils.equals(fingerprint, entry.getConfigFingerprint())) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Get the cached metadata of the same configuration signed under an earlier signing credential generation.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param fingerprint  Fingerprint of the current configuration and signing credential generation.
+     * @return Cached metadata of an earlier generation, or null if there is no such unexpired metadata.
+     */
+    private IDPMetadataCacheEntry getEntryOfPreviousGeneration(String tenantDomain, String fingerprint) {
+
+        IDPMetadataCacheEntry entry = IDPMetadataCache.getInstance().getValueFromCache(tenantDomain);
+        if (entry == null || entry.getConfigFingerprint() == null || entry.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        String configDigest = StringUtils.substringBeforeLast(fingerprint, ":");
+        return StringUtils.equals(configDigest, StringUtils.substringBeforeLast(entry.getConfigFingerprint(), ":"))
+                ? entry : null;
+    }
+
+    /**
+     * Wait for the result of a metadata build, propagating its failure to every waiting caller.
+     *
+     * @param load         Metadata build.
+     * @param tenantDomain Tenant domain.
+     * @return Built metadata.
+     * @throws IdentityProviderManagementException if the build failed or did not complete within the load timeout.
+     */
+    private IDPMetadataCacheEntry getLoadResult(FutureTask<IDPMetadataCacheEntry> load, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        try {
+            return load.get(MetadataConfiguration.getInstance().getLoadTimeout(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IdentityProviderManagementException) {
+                throw (IdentityProviderManagementException) e.getCause();
+            }
+            throw new IdentityProviderManagementException("Error while building the resident IdP metadata of " +
+                    "tenant: " + tenantDomain, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdentityProviderManagementException("Timed out while waiting for the resident IdP metadata " +
+                    "of tenant: " + tenantDomain, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityProviderManagementException("Interrupted while waiting for the resident IdP metadata " +
+                    "of tenant: " + tenantDomain, e);
+        }
+    }
+
+    private IDPMetadataCacheEntry buildEntry(IdentityProviderManager identityProviderManager, String tenantDomain,
+                                             String entityId, String fingerprint, long signingGeneration,
+                                             long validityPeriod) throws IdentityProviderManagementException {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Building the resident IdP metadata of tenant: " + tenantDomain);
+        }
+        // Take the time before building so that the entry never outlives the validUntil of the document.
+        long createdTime = System.currentTimeMillis();
+        String metadata = identityProviderManager.getResidentIDPMetadata(tenantDomain);
+        IDPMetadataCacheEntry entry = new IDPMetadataCacheEntry(tenantDomain, entityId, metadata, fingerprint,
+                signingGeneration, createdTime, createdTime + validityPeriod);
+        entry.setValidationTime(createdTime + MetadataConfiguration.getInstance().getCacheValidationInterval());
+        return entry;
+    }
+
+    private FederatedAuthenticatorConfig getSAMLFederatedAuthenticatorConfig(IdentityProvider residentIdP) {
+
+        if (residentIdP == null) {
+            return null;
+        }
+        return IdentityApplicationManagementUtil.getFederatedAuthenticator(residentIdP
+                .getFederatedAuthenticatorConfigs(), IdentityApplicationConstants.Authenticator.SAML2SSO.NAME);
+    }
+
+    /**
+     * Get the metadata validity period configured in the SAML2 SSO configuration.
+     *
+     * @param metadataConfig Compiled SAML2 SSO federated authenticator configuration.
+     * @return Validity period in milliseconds, or 0 if it is not a valid value.
+     */
+    private long getValidityPeriod(IDPMetadataConfig metadataConfig) {
+
+        try {
+            return metadataConfig.getValidityPeriod() * ONE_MINUTE_IN_MILLIS;
+        } catch (MetadataException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Compute a digest over the SAML2 SSO configuration and the signing credential generation of the tenant, which
+     * changes whenever any property used to render the metadata is changed or the signing credential is invalidated.
+     *
+     * @param samlConfig        SAML2 SSO federated authenticator configuration.
+     * @param signingGeneration Signing credential generation of the tenant.
+     * @return Fingerprint of the configuration, or null if there is no configuration to fingerprint.
+     */
+    private String getConfigFingerprint(FederatedAuthenticatorConfig samlConfig, long signingGeneration) {
+
+        if (samlConfig == null || samlConfig.getProperties() == null) {
+            return null;
+        }
+
+        List<String> pairs = new ArrayList<>();
+        for (Property property : samlConfig.getProperties()) {
+            if (property != null) {
+                pairs.add(property.getName() + "=" + property.getValue());
+            }
+        }
+        Collections.sort(pairs);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String pair : pairs) {
+                digest.update(pair.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest()) + ":" + signingGeneration;
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Error while computing the fingerprint of the SAML2 SSO configuration.", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regenerates the cached resident IdP metadata of active tenants in the background before it expires, so that
+ * requests keep being served from the cache while the metadata is rebuilt and re-signed. Tenants whose metadata has
+ * not been requested within its validity period are not refreshed and their metadata is left to expire.
+ */
+public class IDPMetadataRefreshScheduler {
+
+    private static final Log log = LogFactory.getLog(IDPMetadataRefreshScheduler.class);
+    private static final IDPMetadataRefreshScheduler instance = new IDPMetadataRefreshScheduler();
+
+    private ScheduledExecutorService scheduler;
+    private boolean started;
+
+    private IDPMetadataRefreshScheduler() {
+
+    }
+
+    public static IDPMetadataRefreshScheduler getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Start refreshing the cached metadata, unless refresh ahead is disabled in the configuration.
+     */
+    public synchronized void start() {
+
+        if (started) {
+            return;
+        }
+        started = true;
+        schedule();
+    }
+
+    /**
+     * Apply the current refresh configuration, if the refresh has been started.
+     */
+    public synchronized void reschedule() {
+
+        if (started) {
+            cancel();
+            schedule();
+        }
+    }
+
+    public synchronized void stop() {
+
+        started = false;
+        cancel();
+    }
+
+    void refreshMetadata() {
+
+        double refreshAheadFactor = MetadataConfiguration.getInstance().getRefreshAheadFactor();
+        long currentTime = System.currentTimeMillis();
+        for (IDPMetadataCacheEntry entry : IDPMetadataCache.getInstance().getEntries()) {
+            long validityPeriod = entry.getExpiryTime() - entry.getCreatedTime();
+            if (entry.isExpired(currentTime) || entry.getLastAccessedTime() < currentTime - validityPeriod) {
+                // Nobody has requested this metadata recently, so let it go instead of keeping it signed.
+                IDPMetadataCache.getInstance().clearCacheEntry(entry);
+                continue;
+            }
+            if (currentTime >= entry.getRefreshTime(refreshAheadFactor)) {
+                refreshMetadata(entry.getTenantDomain());
+            }
+        }
+    }
+
+    private void refreshMetadata(String tenantDomain) {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            if (log.isDebugEnabled()) {
+                log.debug("Refreshing the resident IdP metadata of tenant: " + tenantDomain);
+            }
+            IDPMetadataCacheLoader.getInstance().refreshMetadata(tenantDomain);
+        } catch (IdentityProviderManagementException | RuntimeException e) {
+            // The cached metadata is still valid, so requests are served from it and the refresh is retried.
+            log.error("Error while refreshing the resident IdP metadata of tenant: " + tenantDomain, e);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void schedule() {
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        if (!configuration.isRefreshAheadEnabled()) {
+            return;
+        }
+        long refreshInterval = configuration.getRefreshInterval();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "SAMLMetadataRefreshThread");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+
+                refreshMetadata();
+            }
+        }, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Started refreshing the resident IdP metadata every " + refreshInterval + " ms at " +
+                    configuration.getRefreshAheadFactor() + " of the validity period.");
+        }
+    }
+
+    private void cancel() {
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-signs the resident IdP metadata of tenants straight away once their signing keys are rotated, instead of
+ * leaving every tenant to be re-signed on its next metadata request. Tenants are re-signed in parallel on a bounded
+ * pool of background threads, which is kept smaller than the signing capacity so that metadata requests are still
+ * served while a large number of tenants is re-signed. Tenants which do not fit in the bounded queue of the pool are
+ * re-signed by the thread requesting the re-signing. Until the metadata of a tenant is re-signed, requests keep being
+ * served the metadata signed with the previous key.
+ */
+public class IDPMetadataResigner {
+
+    private static final Log log = LogFactory.getLog(IDPMetadataResigner.class);
+    private static final IDPMetadataResigner instance = new IDPMetadataResigner();
+    private static final int MAX_QUEUE_SIZE = 1000;
+
+    private final Map<String, Integer> pendingTenants = new HashMap<>();
+    private ThreadPoolExecutor executor;
+
+    private IDPMetadataResigner() {
+
+    }
+
+    public static IDPMetadataResigner getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Re-sign the metadata of the given tenants in the background. The caller is expected to have invalidated the
+     * signing credentials of the tenants beforehand.
+     *
+     * @param tenantDomains Tenant domains whose metadata was signed with the rotated keys.
+     * @return Job reporting the progress and the failures of the re-signing.
+     */
+    public synchronized ResigningJob resign(Collection<String> tenantDomains) {
+
+        ResigningJob job = new ResigningJob(tenantDomains);
+        if (job.getTotalCount() == 0) {
+            return job;
+        }
+        log.info("Re-signing the resident IdP metadata of " + job.getTotalCount() + " tenant(s) after key rotation.");
+        for (final String tenantDomain : job.getTenantDomains()) {
+            addPendingTenant(tenantDomain);
+            try {
+                getExecutor().execute(new ResigningTask(job, tenantDomain));
+            } catch (RejectedExecutionException e) {
+                // The pool is shutting down, the tenant is re-signed on its next metadata request instead.
+                removePendingTenant(tenantDomain);
+                job.onFailure(tenantDomain, e);
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Check whether the metadata of the given tenant is waiting to be re-signed or being re-signed.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return true if the metadata of the tenant is pending re-signing.
+     */
+    public boolean isResignPending(String tenantDomain) {
+
+        synchronized (pendingTenants) {
+            return pendingTenants.containsKey(tenantDomain);
+        }
+    }
+
+    private void addPendingTenant(String tenantDomain) {
+
+        synchronized (pendingTenants) {
+            Integer count = pendingTenants.get(tenantDomain);
+            pendingTenants.put(tenantDomain, count == null ? 1 : count + 1);
+        }
+    }
+
+    private void removePendingTenant(String tenantDomain) {
+
+        synchronized (pendingTenants) {
+            Integer count = pendingTenants.get(tenantDomain);
+            if (count == null || count <= 1) {
+                pendingTenants.remove(tenantDomain);
+            } else {
+                pendingTenants.put(tenantDomain, count - 1);
+            }
+        }
+    }
+
+    public synchronized void stop() {
+
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private ExecutorService getExecutor() {
+
+        int poolSize = MetadataConfiguration.getInstance().getResigningPoolSize();
+        if (executor != null && executor.getMaximumPoolSize() != poolSize) {
+            // The pool is resized in place, so that the tenants already queued are still re-signed.
+            if (poolSize > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(poolSize);
+                executor.setCorePoolSize(poolSize);
+            } else {
+                executor.setCorePoolSize(poolSize);
+                executor.setMaximumPoolSize(poolSize);
+            }
+        }
+        if (executor == null) {
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60L,
+                    TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_QUEUE_SIZE), new ThreadFactory() {
+
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+
+                    Thread thread = new Thread(runnable,
+                            "SAMLMetadataResigningThread-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new ThreadPoolExecutor.CallerRunsPolicy() {
+
+                @Override
+                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+
+                    // The caller runs policy silently drops the task once the pool is shut down, which would leave
+                    // the job waiting for the tenant forever.
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Metadata re-signing pool is shut down.");
+                    }
+                    super.rejectedExecution(runnable, executor);
+                }
+            });
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            executor = threadPoolExecutor;
+        }
+        return executor;
+    }
+
+    private class ResigningTask implements Runnable {
+
+        private final ResigningJob job;
+        private final String tenantDomain;
+
+        ResigningTask(ResigningJob job, String tenantDomain) {
+
+            this.job = job;
+            this.tenantDomain = tenantDomain;
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                PrivilegedCarbonContext.startTenantFlow();
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+                IDPMetadataCacheLoader.getInstance().refreshMetadata(tenantDomain);
+                job.onSuccess(tenantDomain);
+            } catch (IdentityProviderManagementException | RuntimeException e) {
+                job.onFailure(tenantDomain, e);
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+                removePendingTenant(tenantDomain);
+            }
+        }
+    }
+
+    /**
+     * Progress of re-signing the metadata of a set of tenants.
+     */
+    public static class ResigningJob {
+
+        private final Set<String> tenantDomains;
+        private final AtomicInteger completedCount = new AtomicInteger();
+        private final Map<String, String> failures = new ConcurrentHashMap<>();
+        private final CountDownLatch latch;
+        private final long startTime = System.currentTimeMillis();
+
+        ResigningJob(Collection<String> tenantDomains) {
+
+            this.tenantDomains = Collections.unmodifiableSet(new LinkedHashSet<>(tenantDomains));
+            this.latch = new CountDownLatch(this.tenantDomains.size());
+        }
+
+        public Set<String> getTenantDomains() {
+
+            return tenantDomains;
+        }
+
+        public int getTotalCount() {
+
+            return tenantDomains.size();
+        }
+
+        /**
+         * Get the number of tenants processed so far, whether or not they were re-signed successfully.
+         *
+         * @return Number of processed tenants.
+         */
+        public int getCompletedCount() {
+
+            return completedCount.get();
+        }
+
+        /**
+         * Get the tenants which could not be re-signed. These tenants are re-signed on their next metadata request.
+         *
+         * @return Error message of each failed tenant, keyed by the tenant domain.
+         */
+        public Map<String, String> getFailures() {
+
+            return Collections.unmodifiableMap(failures);
+        }
+
+        public boolean isDone() {
+
+            return latch.getCount() == 0;
+        }
+
+        /**
+         * Wait for all the tenants to be processed.
+         *
+         * @param timeout Maximum time to wait.
+         * @param unit    Unit of the timeout.
+         * @return true if all the tenants were processed within the timeout.
+         * @throws InterruptedException if the current thread is interrupted while waiting.
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+
+            return latch.await(timeout, unit);
+        }
+
+        void onSuccess(String tenantDomain) {
+
+            if (log.isDebugEnabled()) {
+                log.debug("Re-signed the resident IdP metadata of tenant: " + tenantDomain);
+            }
+            onCompleted();
+        }
+
+        void onFailure(String tenantDomain, Exception e) {
+
+            failures.put(tenantDomain, String.valueOf(e.getMessage()));
+            log.error("Error while re-signing the resident IdP metadata of tenant: " + tenantDomain, e);
+            onCompleted();
+        }
+
+        private void onCompleted() {
+
+            int completed = completedCount.incrementAndGet();
+            latch.countDown();
+            if (log.isDebugEnabled()) {
+                log.debug("Re-signed the resident IdP metadata of " + completed + " of " + getTotalCount() +
+                        " tenant(s).");
+            }
+            if (completed == getTotalCount()) {
+                log.info("Completed re-signing the resident IdP metadata of " + getTotalCount() + " tenant(s) in " +
+                        (System.currentTimeMillis() - startTime) + " ms with " + failures.size() + " failure(s).");
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of the tenant domain of the root organization of a tenant, which is the tenant whose resident IdP
+ * metadata is published for it. Tenants which are not organizations are cached against themselves. Entries expire
+ * after the configured time to live. Lookups do not lock, and once the cache is full a single thread evicts the
+ * expired entries, then the entries closest to expiry, while other threads carry on.
+ */
+public class RootTenantDomainCache {
+
+    private static final Log log = LogFactory.getLog(RootTenantDomainCache.class);
+    private static final RootTenantDomainCache instance = new RootTenantDomainCache();
+    // Eviction frees a tenth of the cache, so that a full cache is not scanned on every addition.
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final int maxSize;
+    private final long timeToLive;
+    private final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private RootTenantDomainCache() {
+
+        // The size and the time to live follow the current configuration.
+        this(0, 0);
+    }
+
+    RootTenantDomainCache(int maxSize, long timeToLive) {
+
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+    }
+
+    public static RootTenantDomainCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the root tenant domain of the given tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Root tenant domain, or null if it is not cached or has expired.
+     */
+    public String getValueFromCache(String tenantDomain) {
+
+        CacheEntry entry = entries.get(tenantDomain);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiryTime) {
+            entries.remove(tenantDomain, entry);
+            return null;
+        }
+        return entry.rootTenantDomain;
+    }
+
+    public void addToCache(String tenantDomain, String rootTenantDomain) {
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        long entryTimeToLive = timeToLive > 0 ? timeToLive : configuration.getRootTenantCacheTimeToLive();
+        int entryLimit = maxSize > 0 ? maxSize : configuration.getRootTenantCacheMaxSize();
+        entries.put(tenantDomain, new CacheEntry(rootTenantDomain, System.currentTimeMillis() + entryTimeToLive));
+        if (entries.size() > entryLimit && evicting.compareAndSet(false, true)) {
+            try {
+                evict(entryLimit);
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Remove the root tenant domain of the given tenant, along with the entries of the tenants resolved to it as their
+     * root. Should be invoked when the tenant is created, updated or deleted, or its organization is moved.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void clearCacheEntry(String tenantDomain) {
+
+        boolean removed = entries.remove(tenantDomain) != null;
+        for (Iterator<CacheEntry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            if (tenantDomain.equals(iterator.next().rootTenantDomain)) {
+                iterator.remove();
+                removed = true;
+            }
+        }
+        if (removed && log.isDebugEnabled()) {
+            log.debug("Cleared the cached root tenant domain of tenant: " + tenantDomain);
+        }
+    }
+
+    public void clear() {
+
+        entries.clear();
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the root tenant domain cache.");
+        }
+    }
+
+    int size() {
+
+        return entries.size();
+    }
+
+    private void evict(int limit) {
+
+        long currentTime = System.currentTimeMillis();
+        List<Map.Entry<String, CacheEntry>> liveEntries = new ArrayList<>(entries.size());
+        for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+            if (currentTime >= entry.getValue().expiryTime) {
+                entries.remove(entry.getKey(), entry.getValue());
+            } else {
+                liveEntries.add(entry);
+            }
+        }
+
+        int excess = entries.size() - (limit - limit / EVICTION_DIVISOR);
+        if (excess <= 0) {
+            return;
+        }
+        // Entries live for the same time, so those closest to expiry are the ones resolved the longest ago.
+        Collections.sort(liveEntries, new Comparator<Map.Entry<String, CacheEntry>>() {
+
+            @Override
+            public int compare(Map.Entry<String, CacheEntry> entry1, Map.Entry<String, CacheEntry> entry2) {
+
+                return Long.compare(entry1.getValue().expiryTime, entry2.getValue().expiryTime);
+            }
+        });
+        for (int i = 0; i < excess && i < liveEntries.size(); i++) {
+            entries.remove(liveEntries.get(i).getKey(), liveEntries.get(i).getValue());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted root tenant domains from the full cache. Cache size: " + entries.size());
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final String rootTenantDomain;
+        private final long expiryTime;
+
+        CacheEntry(String rootTenantDomain, long expiryTime) {
+
+            this.rootTenantDomain = rootTenantDomain;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.SignKeyDataHolder;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tenant keyed cache of the credentials used to sign the resident IdP metadata, so that the key store is read and
+ * the private key is decrypted only once per tenant. Unsigned metadata only needs the certificate of the tenant, which
+ * is cached on its own until the credential is loaded. Credentials are reloaded after the configured time to live, or
+ * straight away once invalidated when the signing key store of the tenant is updated. The modification time of the
+ * key store of a tenant is checked at the configured validation interval, and a credential reloaded with a different
+ * certificate invalidates the tenant, so that metadata signed with a replaced key is re-signed with the new one.
+ * Every invalidation moves the tenant to a new generation. Credentials and metadata loaded under an earlier
+ * generation are never cached again, even if their load completes after the invalidation.
+ * The caller is expected to have started the tenant flow of the given tenant.
+ */
+public class SigningCredentialCache {
+
+    private static final Log log = LogFactory.getLog(SigningCredentialCache.class);
+    private static final SigningCredentialCache instance = new SigningCredentialCache();
+
+    private final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> tenantGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong generationSequence = new AtomicLong();
+    private volatile long globalGeneration;
+
+    private SigningCredentialCache() {
+
+    }
+
+    public static SigningCredentialCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the signing credential of the given tenant, loading it from the key store if it is not cached.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Signing credential.
+     * @throws MetadataException if there is an error while loading the credential.
+     */
+    public SignKeyDataHolder getCredential(String tenantDomain) throws MetadataException {
+
+        CacheEntry entry = entries.get(tenantDomain);
+        if (isCurrent(tenantDomain, entry) && entry.credential != null) {
+            return entry.credential;
+        }
+        long generation = getGeneration(tenantDomain);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loading the metadata signing credential of tenant: " + tenantDomain);
+        }
+        SignKeyDataHolder credential = new SignKeyDataHolder();
+        cache(tenantDomain, entry, new CacheEntry(credential, credential.getEncodedEntityCertificate(),
+                credential.getCertificateThumbprint(), credential.getKeyStoreLastModified(), generation));
+        return credential;
+    }
+
+    /**
+     * Get the Base64 encoded signing certificate of the given tenant, as published in the key descriptors of its
+     * metadata. The certificate of a cached credential is returned. Otherwise only the certificate is read from the
+     * key store and cached, so that the private key is not decrypted for metadata which is not signed.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Encoded signing certificate.
+     * @throws MetadataException if there is an error while reading the certificate.
+     */
+    public String getEncodedCertificate(String tenantDomain) throws MetadataException {
+
+        CacheEntry entry = entries.get(tenantDomain);
+        if (isCurrent(tenantDomain, entry)) {
+            return entry.encodedCertificate;
+        }
+        long generation = getGeneration(tenantDomain);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loading the metadata signing certificate of tenant: " + tenantDomain);
+        }
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        // Read before the certificate, so that a key store updated while the certificate is read is detected later.
+        long keyStoreLastModified = SignKeyDataHolder.getKeyStoreLastModified(tenantId, tenantDomain);
+        X509Certificate certificate = SignKeyDataHolder.getEntityCertificate(tenantId, tenantDomain);
+        String encodedCertificate = SignKeyDataHolder.encodeCertificate(certificate);
+        cache(tenantDomain, entry, new CacheEntry(null, encodedCertificate,
+                SignKeyDataHolder.getThumbprint(certificate), keyStoreLastModified, generation));
+        return encodedCertificate;
+    }
+
+    /**
+     * Get the generation of the signing credential of the given tenant, which changes whenever the credential of
+     * the tenant is invalidated.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Credential generation of the tenant.
+     */
+    public long getGeneration(String tenantDomain) {
+
+        Long tenantGeneration = tenantGenerations.get(tenantDomain);
+        long generation = globalGeneration;
+        if (tenantGeneration != null && tenantGeneration > generation) {
+            return tenantGeneration;
+        }
+        return generation;
+    }
+
+    /**
+     * Remove the signing credential of the given tenant. Should be invoked when the signing key store of the tenant
+     * is updated. If the metadata of the tenant was cached, it is re-signed with the new key in the background and
+     * keeps being served until the re-signed metadata replaces it.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void clearCacheEntry(String tenantDomain) {
+
+        tenantGenerations.put(tenantDomain, generationSequence.incrementAndGet());
+        entries.remove(tenantDomain);
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the cached metadata signing credential of tenant: " + tenantDomain);
+        }
+        if (IDPMetadataCache.getInstance().getValueFromCache(tenantDomain) != null) {
+            IDPMetadataResigner.getInstance().resign(Collections.singleton(tenantDomain));
+        }
+    }
+
+    /**
+     * Remove the signing credential and the credential generation of the given tenant without re-signing its
+     * metadata. Should be invoked when the tenant is deleted. The tenant falls back to the global generation, which
+     * differs from the generation of any load still in progress for it, so such a load is not cached either.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void removeTenant(String tenantDomain) {
+
+        entries.remove(tenantDomain);
+        tenantGenerations.remove(tenantDomain);
+        if (log.isDebugEnabled()) {
+            log.debug("Removed the metadata signing credential of the deleted tenant: " + tenantDomain);
+        }
+    }
+
+    /**
+     * Remove the signing credentials of all tenants and re-sign the cached metadata of every tenant in the
+     * background. The cached metadata keeps being served until the re-signed metadata replaces it. Should be invoked
+     * when the signing keys of many tenants are rotated at once.
+     *
+     * @return Job reporting the progress and the failures of the re-signing.
+     */
+    public IDPMetadataResigner.ResigningJob rotate() {
+
+        newGlobalGeneration();
+        entries.clear();
+        Set<String> tenantDomains = new LinkedHashSet<>();
+        for (IDPMetadataCacheEntry entry : IDPMetadataCache.getInstance().getEntries()) {
+            tenantDomains.add(entry.getTenantDomain());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the metadata signing credentials of all tenants.");
+        }
+        return IDPMetadataResigner.getInstance().resign(tenantDomains);
+    }
+
+    public void clear() {
+
+        newGlobalGeneration();
+        entries.clear();
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the metadata signing credential cache.");
+        }
+    }
+
+    /**
+     * Check whether the given entry can be served. The tenant is invalidated if the key store of the entry has been
+     * modified since the entry was read from it.
+     */
+    private boolean isCurrent(String tenantDomain, CacheEntry entry) {
+
+        if (entry == null || entry.generation != getGeneration(tenantDomain)) {
+            return false;
+        }
+        long currentTime = System.currentTimeMillis();
+        if (currentTime >= entry.expiryTime) {
+            return false;
+        }
+        if (!isKeyStoreModified(tenantDomain, entry, currentTime)) {
+            return true;
+        }
+        log.info("Signing key store of tenant: " + tenantDomain + " has been modified. Re-signing its metadata.");
+        clearCacheEntry(tenantDomain);
+        return false;
+    }
+
+    /**
+     * Cache an entry loaded in place of the given previous entry of the tenant, unless the tenant has been
+     * invalidated while the entry was loaded.
+     */
+    private void cache(String tenantDomain, CacheEntry entry, CacheEntry loadedEntry) {
+
+        if (entry != null && entry.generation == loadedEntry.generation && !StringUtils.equals(
+                entry.certificateThumbprint, loadedEntry.certificateThumbprint)) {
+            // The key was replaced without invalidating the tenant, so the metadata signed with the old key is
+            // re-signed.
+            log.info("Signing certificate of tenant: " + tenantDomain + " has changed. Re-signing its metadata.");
+            clearCacheEntry(tenantDomain);
+            return;
+        }
+        // An entry loaded before an invalidation may hold the old key, so it is only cached if the tenant is still in
+        // the same generation. Concurrent loads within a generation are harmless, the first one is kept.
+        if (loadedEntry.generation == getGeneration(tenantDomain)) {
+            if (entry == null || !entries.replace(tenantDomain, entry, loadedEntry)) {
+                entries.putIfAbsent(tenantDomain, loadedEntry);
+            }
+        }
+    }
+
+    /**
+     * Check whether the key store of the cached entry has been modified since the entry was read from it. The key
+     * store is checked at most once per validation interval.
+     */
+    private boolean isKeyStoreModified(String tenantDomain, CacheEntry entry, long currentTime) {
+
+        if (currentTime < entry.validationTime) {
+            return false;
+        }
+        entry.validationTime = currentTime + MetadataConfiguration.getInstance().getCredentialValidationInterval();
+        try {
+            int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+            return SignKeyDataHolder.getKeyStoreLastModified(tenantId, tenantDomain) != entry.keyStoreLastModified;
+        } catch (MetadataException e) {
+            log.error("Error while checking the signing key store of tenant: " + tenantDomain + ". The cached " +
+                    "credential is used until the next check.", e);
+            return false;
+        }
+    }
+
+    private void newGlobalGeneration() {
+
+        long generation = generationSequence.incrementAndGet();
+        globalGeneration = generation;
+        // Tenant generations older than the global generation no longer have any effect.
+        for (Map.Entry<String, Long> tenantGeneration : tenantGenerations.entrySet()) {
+            if (tenantGeneration.getValue() < generation) {
+                tenantGenerations.remove(tenantGeneration.getKey(), tenantGeneration.getValue());
+            }
+        }
+    }
+
+    /**
+     * Signing credential of a tenant, or only its certificate if the credential has not been loaded.
+     */
+    private static class CacheEntry {
+
+        private final SignKeyDataHolder credential;
+        private final String encodedCertificate;
+        private final String certificateThumbprint;
+        private final long keyStoreLastModified;
+        private final long generation;
+        private final long expiryTime;
+        private volatile long validationTime;
+
+        CacheEntry(SignKeyDataHolder credential, String encodedCertificate, String certificateThumbprint,
+                   long keyStoreLastModified, long generation) {
+
+            MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+            long loadedTime = System.currentTimeMillis();
+            this.credential = credential;
+            this.encodedCertificate = encodedCertificate;
+            this.certificateThumbprint = certificateThumbprint;
+            this.keyStoreLastModified = keyStoreLastModified;
+            this.generation = generation;
+            this.expiryTime = loadedTime + configuration.getCredentialTimeToLive();
+            this.validationTime = loadedTime + configuration.getCredentialValidationInterval();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.exception;
+
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+/**
+ * This class is used to denote that the metadata could not be signed since all signing permits are in use and the
+ * signing queue is full or the wait for a permit timed out.
+ */
+public class SigningCapacityExceededException extends MetadataException {
+
+    public SigningCapacityExceededException(String message) {
+
+        super(message);
+    }
+}
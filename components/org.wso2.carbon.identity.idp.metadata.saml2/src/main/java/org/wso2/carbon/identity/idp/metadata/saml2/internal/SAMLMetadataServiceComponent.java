@@ -24,22 +24,43 @@ import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.http.HttpService;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityResponseFactory;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityProcessor;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.SuperTenantSignKeyStore;
 import org.wso2.carbon.identity.idp.metadata.saml2.bean.HttpSAMLMetadataResponseFactory;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheLoader;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataRefreshScheduler;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataResigner;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.RootTenantDomainCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.listener.SAMLMetadataIdentityProviderMgtListener;
+import org.wso2.carbon.identity.idp.metadata.saml2.listener.SAMLMetadataTenantMgtListener;
 import org.wso2.carbon.identity.idp.metadata.saml2.processor.IDPMetadataPublishProcessor;
+import org.wso2.carbon.identity.idp.metadata.saml2.processor.IDPMetadataQueryProcessor;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
 import org.wso2.carbon.identity.idp.metadata.saml2.util.SAMLMetadataConverter;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.XMLProcessorPool;
 import org.wso2.carbon.identity.organization.management.service.OrganizationManager;
 import org.wso2.carbon.idp.mgt.IdpManager;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 import org.wso2.carbon.idp.mgt.util.MetadataConverter;
 import org.wso2.carbon.registry.core.service.RegistryService;
+import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Identity provider SAML component class.
  */
@@ -53,20 +74,52 @@ public class SAMLMetadataServiceComponent {
     @Activate
     protected void activate(ComponentContext context) {
 
+        BuilderUtil.initXMLSecurity();
+        MetadataConfiguration.reload(getProperties(context));
         MetadataConverter converter = new SAMLMetadataConverter();
         context.getBundleContext().registerService(MetadataConverter.class.getName(), converter, null);
         context.getBundleContext().registerService(IdentityProcessor.class.getName(),
                 new IDPMetadataPublishProcessor(), null);
+        context.getBundleContext().registerService(IdentityProcessor.class.getName(),
+                new IDPMetadataQueryProcessor(), null);
         context.getBundleContext().registerService(HttpIdentityResponseFactory.class.getName(),
                 new HttpSAMLMetadataResponseFactory(), null);
+        context.getBundleContext().registerService(TenantMgtListener.class.getName(),
+                new SAMLMetadataTenantMgtListener(), null);
+        context.getBundleContext().registerService(IdentityProviderMgtListener.class.getName(),
+                new SAMLMetadataIdentityProviderMgtListener(), null);
+        IDPMetadataRefreshScheduler.getInstance().start();
+        SuperTenantSignKeyStore.getInstance().startWatching();
         if (log.isDebugEnabled()) {
             log.debug("SAML metadata converter is enabled");
         }
     }
 
+    /**
+     * Re-read the metadata configuration when the configuration of this component is updated.
+     *
+     * @param context Component context holding the updated properties.
+     */
+    @Modified
+    protected void modified(ComponentContext context) {
+
+        MetadataConfiguration.reload(getProperties(context));
+        if (log.isDebugEnabled()) {
+            log.debug("Reloaded the SAML metadata configuration.");
+        }
+    }
+
     @Deactivate
     protected void deactivate(ComponentContext context) {
 
+        IDPMetadataRefreshScheduler.getInstance().stop();
+        SuperTenantSignKeyStore.getInstance().stopWatching();
+        IDPMetadataResigner.getInstance().stop();
+        IDPMetadataCache.getInstance().clear();
+        IDPMetadataCacheLoader.getInstance().clear();
+        RootTenantDomainCache.getInstance().clear();
+        SigningCredentialCache.getInstance().clear();
+        XMLProcessorPool.getInstance().clear();
         if (log.isDebugEnabled()) {
             log.debug("Identity Management bundle is de-activated");
         }
@@ -187,5 +240,18 @@ public class SAMLMetadataServiceComponent {
 
         IDPMetadataSAMLServiceComponentHolder.getInstance().setOrganizationManager(null);
     }
-}
 
+    private static Map<String, Object> getProperties(ComponentContext context) {
+
+        Map<String, Object> properties = new HashMap<>();
+        Dictionary<String, Object> dictionary = context.getProperties();
+        if (dictionary != null) {
+            Enumeration<String> keys = dictionary.keys();
+            while (keys.hasMoreElements()) {
+                String key = keys.nextElement();
+                properties.put(key, dictionary.get(key));
+            }
+        }
+        return properties;
+    }
+}
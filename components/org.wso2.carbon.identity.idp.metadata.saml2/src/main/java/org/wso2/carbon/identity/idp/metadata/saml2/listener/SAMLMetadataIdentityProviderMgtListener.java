@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCache;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.listener.AbstractIdentityProviderMgtListener;
+
+/**
+ * Identity provider management listener clearing the cached metadata of a tenant when its resident IdP is updated,
+ * so that cached metadata is served without reading the resident IdP configuration on every request.
+ */
+public class SAMLMetadataIdentityProviderMgtListener extends AbstractIdentityProviderMgtListener {
+
+    private static final Log log = LogFactory.getLog(SAMLMetadataIdentityProviderMgtListener.class);
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return 220;
+    }
+
+    @Override
+    public boolean doPostUpdateResidentIdP(IdentityProvider identityProvider, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        if (!isEnable() || tenantDomain == null) {
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing the cached resident IdP metadata of the updated tenant: " + tenantDomain);
+        }
+        IDPMetadataCache.getInstance().clearCacheEntry(tenantDomain);
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.AbstractIdentityTenantMgtListener;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheLoader;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.RootTenantDomainCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.stratos.common.beans.TenantInfoBean;
+import org.wso2.carbon.stratos.common.exception.StratosException;
+
+/**
+ * Tenant management listener invalidating the cached root tenant domains when a tenant is created, updated, renamed
+ * or deleted, so that metadata requests do not keep resolving to the former root tenant until the entries expire.
+ * Every other structure held for a deleted tenant is dropped as well: its cached and last good metadata, its signing
+ * credential and its credential generation. The metadata of the deleted tenant is not re-signed.
+ */
+public class SAMLMetadataTenantMgtListener extends AbstractIdentityTenantMgtListener {
+
+    private static final Log log = LogFactory.getLog(SAMLMetadataTenantMgtListener.class);
+
+    @Override
+    public void onTenantCreate(TenantInfoBean tenantInfo) throws StratosException {
+
+        // A domain looked up before the tenant existed is cached against itself.
+        clearRootTenantDomain(tenantInfo.getTenantDomain());
+    }
+
+    @Override
+    public void onTenantUpdate(TenantInfoBean tenantInfo) throws StratosException {
+
+        clearRootTenantDomain(tenantInfo.getTenantDomain());
+    }
+
+    @Override
+    public void onTenantRename(int tenantId, String oldDomainName, String newDomainName) throws StratosException {
+
+        clearRootTenantDomain(oldDomainName);
+        clearRootTenantDomain(newDomainName);
+    }
+
+    @Override
+    public void onPreDelete(int tenantId) throws StratosException {
+
+        if (!isEnable()) {
+            return;
+        }
+        String tenantDomain = IdentityTenantUtil.getTenantDomain(tenantId);
+        clearRootTenantDomain(tenantDomain);
+        if (tenantDomain != null) {
+            IDPMetadataCache.getInstance().clearCacheEntry(tenantDomain);
+            IDPMetadataCacheLoader.getInstance().removeTenant(tenantDomain);
+            SigningCredentialCache.getInstance().removeTenant(tenantDomain);
+        }
+    }
+
+    private void clearRootTenantDomain(String tenantDomain) {
+
+        if (tenantDomain == null || !isEnable()) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing the cached root tenant domain of the changed tenant: " + tenantDomain);
+        }
+        RootTenantDomainCache.getInstance().clearCacheEntry(tenantDomain);
+    }
+}
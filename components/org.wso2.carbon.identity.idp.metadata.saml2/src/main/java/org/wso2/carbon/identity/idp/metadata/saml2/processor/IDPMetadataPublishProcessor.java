@@ -29,11 +29,17 @@ import org.wso2.carbon.identity.application.authentication.framework.inbound.Ide
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.idp.metadata.saml2.bean.SAMLMetadataErrorResponse;
 import org.wso2.carbon.identity.idp.metadata.saml2.bean.SAMLMetadataResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheEntry;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheLoader;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.RootTenantDomainCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.exception.SigningCapacityExceededException;
 import org.wso2.carbon.identity.idp.metadata.saml2.internal.IDPMetadataSAMLServiceComponentHolder;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataHttpUtil;
 import org.wso2.carbon.identity.organization.management.service.exception.OrganizationManagementException;
 import org.wso2.carbon.identity.organization.management.service.util.OrganizationManagementUtil;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
-import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * This class implements functionality to set metadata content to SAML2MetadataResponseBuilder.
@@ -76,61 +82,167 @@ public class IDPMetadataPublishProcessor extends IdentityProcessor {
     @Override
     public boolean canHandle(IdentityRequest identityRequest) {
 
-        return identityRequest.getRequestURI().contains("/metadata/saml2");
+        return identityRequest.getRequestURI().contains("/metadata/saml2")
+                && !IDPMetadataQueryProcessor.isEntityQuery(identityRequest);
     }
 
     public IdentityResponse.IdentityResponseBuilder process(IdentityRequest identityRequest) throws
             FrameworkException {
 
-        String tenantDomain = identityRequest.getTenantDomain();
+        String tenantDomain = getRootTenantDomain(identityRequest.getTenantDomain());
+        IDPMetadataCacheEntry metadataEntry;
         try {
-            if (OrganizationManagementUtil.isOrganization(tenantDomain)) {
-                tenantDomain = resolveRootTenantDomain(tenantDomain);
-            }
-        } catch (OrganizationManagementException e) {
-            log.error("Error while checking the tenant: " + tenantDomain + " is an organization.", e);
+            metadataEntry = loadMetadata(tenantDomain);
+        } catch (IdentityProviderManagementException e) {
+            return buildErrorResponse(identityRequest, e);
         }
-        IdentityProviderManager identityProviderManager = (IdentityProviderManager)
-                IDPMetadataSAMLServiceComponentHolder.getInstance().getIdpManager();
-        String metadata;
+        return buildMetadataResponse(identityRequest, metadataEntry);
+    }
+
+    /**
+     * Load the resident IdP metadata of the given tenant within its tenant flow.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Metadata of the tenant.
+     * @throws IdentityProviderManagementException if there is an error while building the metadata.
+     */
+    protected IDPMetadataCacheEntry loadMetadata(String tenantDomain) throws IdentityProviderManagementException {
+
         try {
             if (log.isDebugEnabled()) {
                 log.debug("Starting to retrieve resident IdP metadata for tenant: " + tenantDomain);
             }
             PrivilegedCarbonContext.startTenantFlow();
             PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
-            metadata = identityProviderManager.getResidentIDPMetadata(tenantDomain);
-        } catch (IdentityProviderManagementException e) {
-            log.error("Internal Server Error", e);
-            IdentityMessageContext context = new IdentityMessageContext(identityRequest);
-            SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder responseBuilder =
-                    new SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder(context);
-            responseBuilder.setMessage("Internal Server Error");
-            return responseBuilder;
-
+            return IDPMetadataCacheLoader.getInstance().getMetadata(tenantDomain);
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
         }
+    }
+
+    /**
+     * Build the response carrying the given metadata, evaluating the conditional headers of the request.
+     *
+     * @param identityRequest Metadata request.
+     * @param metadataEntry   Metadata to send.
+     * @return Metadata response builder.
+     */
+    protected SAMLMetadataResponse.SAMLMetadataResponseBuilder buildMetadataResponse(
+            IdentityRequest identityRequest, IDPMetadataCacheEntry metadataEntry) {
+
         IdentityMessageContext context = new IdentityMessageContext(identityRequest);
         SAMLMetadataResponse.SAMLMetadataResponseBuilder responseBuilder =
                 new SAMLMetadataResponse.SAMLMetadataResponseBuilder(context);
-        responseBuilder.setMetadata(metadata);
+        responseBuilder.setMetadata(metadataEntry.getMetadata());
+        responseBuilder.setContentLength(metadataEntry.getContentLength());
+        responseBuilder.setETag(metadataEntry.getETag());
+        responseBuilder.setLastModified(metadataEntry.getLastModified());
+        if (metadataEntry.getExpiryTime() > metadataEntry.getCreatedTime()) {
+            responseBuilder.setExpiryTime(metadataEntry.getExpiryTime());
+        }
+        responseBuilder.setNotModified(isNotModified(identityRequest, metadataEntry.getETag(),
+                metadataEntry.getLastModified()));
         return responseBuilder;
+    }
 
+    /**
+     * Build the error response of a failed metadata build. Builds rejected since the signing capacity is exhausted
+     * are reported as temporarily unavailable rather than as internal errors.
+     *
+     * @param identityRequest Metadata request.
+     * @param e               Error of the metadata build.
+     * @return Error response builder.
+     */
+    protected SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder buildErrorResponse(
+            IdentityRequest identityRequest, IdentityProviderManagementException e) {
+
+        if (isSigningCapacityExceeded(e)) {
+            log.warn("Metadata signing capacity is exhausted. " + e.getMessage());
+            return buildErrorResponse(identityRequest, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Service Unavailable");
+        }
+        log.error("Internal Server Error", e);
+        return buildErrorResponse(identityRequest, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                "Internal Server Error");
     }
 
-    private String resolveRootTenantDomain(String tenantDomain) {
+    private boolean isSigningCapacityExceeded(Throwable e) {
+
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SigningCapacityExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder buildErrorResponse(
+            IdentityRequest identityRequest, int statusCode, String message) {
+
+        IdentityMessageContext context = new IdentityMessageContext(identityRequest);
+        SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder responseBuilder =
+                new SAMLMetadataErrorResponse.SAMLMetadataErrorResponseBuilder(context);
+        responseBuilder.setStatusCode(statusCode);
+        responseBuilder.setMessage(message);
+        return responseBuilder;
+    }
+
+    /**
+     * Evaluate the conditional request headers against the current metadata. If-Modified-Since is only considered
+     * when the request does not carry If-None-Match.
+     *
+     * @param identityRequest Metadata request.
+     * @param etag            Entity tag of the representation being sent.
+     * @param lastModified    Last modified time of the metadata.
+     * @return true if the requester already holds the current metadata.
+     */
+    private boolean isNotModified(IdentityRequest identityRequest, String etag, long lastModified) {
+
+        String ifNoneMatch = identityRequest.getHeader(MetadataHttpUtil.HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return MetadataHttpUtil.isETagMatched(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = MetadataHttpUtil.parseHttpDate(
+                identityRequest.getHeader(MetadataHttpUtil.HEADER_IF_MODIFIED_SINCE));
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * Get the tenant whose resident IdP metadata is published for the given tenant. The metadata of an organization
+     * is the metadata of its root organization. Resolved tenants are cached, while failed resolutions fall back to
+     * the given tenant without being cached.
+     *
+     * @param tenantDomain Tenant domain of the request.
+     * @return Root tenant domain.
+     */
+    protected String getRootTenantDomain(String tenantDomain) {
+
+        String rootTenantDomain = RootTenantDomainCache.getInstance().getValueFromCache(tenantDomain);
+        if (rootTenantDomain != null) {
+            return rootTenantDomain;
+        }
 
         try {
-            String organizationId = IDPMetadataSAMLServiceComponentHolder.getInstance().getOrganizationManager()
-                    .resolveOrganizationId(tenantDomain);
-            String rootOrganizationId = IDPMetadataSAMLServiceComponentHolder.getInstance().getOrganizationManager()
-                    .getPrimaryOrganizationId(organizationId);
-            return IDPMetadataSAMLServiceComponentHolder.getInstance().getOrganizationManager()
-                    .resolveTenantDomain(rootOrganizationId);
+            if (OrganizationManagementUtil.isOrganization(tenantDomain)) {
+                rootTenantDomain = resolveRootTenantDomain(tenantDomain);
+            } else {
+                rootTenantDomain = tenantDomain;
+            }
         } catch (OrganizationManagementException e) {
             log.error("Error while resolving the root tenant domain of the tenant: " + tenantDomain, e);
             return tenantDomain;
         }
+        RootTenantDomainCache.getInstance().addToCache(tenantDomain, rootTenantDomain);
+        return rootTenantDomain;
+    }
+
+    private String resolveRootTenantDomain(String tenantDomain) throws OrganizationManagementException {
+
+        String organizationId = IDPMetadataSAMLServiceComponentHolder.getInstance().getOrganizationManager()
+                .resolveOrganizationId(tenantDomain);
+        String rootOrganizationId = IDPMetadataSAMLServiceComponentHolder.getInstance().getOrganizationManager()
+                .getPrimaryOrganizationId(organizationId);
+        return IDPMetadataSAMLServiceComponentHolder.getInstance().getOrganizationManager()
+                .resolveTenantDomain(rootOrganizationId);
     }
 }
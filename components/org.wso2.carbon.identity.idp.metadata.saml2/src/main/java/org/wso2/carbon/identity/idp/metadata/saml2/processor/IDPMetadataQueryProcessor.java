@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.processor;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.bean.SAMLMetadataResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheEntry;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This class implements the Metadata Query Protocol request of a single entity,
+ * <code>/metadata/saml2/entities/{ID}</code>, where the ID is either the URL encoded entityID of a resident IdP or
+ * its SHA-1 transformed form <code>{sha1}hex</code>. A query is answered with the metadata of the tenant of the
+ * request only, so an entityID configured by one tenant can never be served with the metadata of another tenant.
+ */
+public class IDPMetadataQueryProcessor extends IDPMetadataPublishProcessor {
+
+    public static final String ENTITIES_PATH = "/metadata/saml2/entities/";
+
+    private static final Log log = LogFactory.getLog(IDPMetadataQueryProcessor.class);
+    private static final String MDQ_CONTENT_TYPE = "application/samlmetadata+xml";
+
+    @Override
+    public String getName() {
+
+        return "IDPMetadataQueryProcessor";
+    }
+
+    @Override
+    public int getPriority() {
+
+        return 1;
+    }
+
+    @Override
+    public boolean canHandle(IdentityRequest identityRequest) {
+
+        return isEntityQuery(identityRequest);
+    }
+
+    /**
+     * Check whether the path of the given request is a query of a single entity.
+     *
+     * @param identityRequest Request.
+     * @return true if the path within the identity servlet starts with the entities path.
+     */
+    static boolean isEntityQuery(IdentityRequest identityRequest) {
+
+        return StringUtils.startsWith(identityRequest.getPathInfo(), ENTITIES_PATH);
+    }
+
+    @Override
+    public IdentityResponse.IdentityResponseBuilder process(IdentityRequest identityRequest) throws
+            FrameworkException {
+
+        // The path info is already decoded, so the identifier is read from the raw request URI.
+        String entityIdentifier = getEntityIdentifier(identityRequest.getRequestURI());
+        if (StringUtils.isBlank(entityIdentifier)) {
+            return buildErrorResponse(identityRequest, HttpServletResponse.SC_NOT_FOUND, "Not Found");
+        }
+
+        String tenantDomain = getRootTenantDomain(identityRequest.getTenantDomain());
+        IDPMetadataCacheEntry metadataEntry;
+        try {
+            metadataEntry = loadMetadata(tenantDomain);
+        } catch (IdentityProviderManagementException e) {
+            return buildErrorResponse(identityRequest, e);
+        }
+        if (!IDPMetadataCache.isEntityIdentifierMatched(entityIdentifier, metadataEntry.getEntityId())) {
+            if (log.isDebugEnabled()) {
+                log.debug("The resident IdP of tenant: " + tenantDomain + " does not match the metadata query of " +
+                        "entity: " + entityIdentifier);
+            }
+            return buildErrorResponse(identityRequest, HttpServletResponse.SC_NOT_FOUND, "Not Found");
+        }
+
+        SAMLMetadataResponse.SAMLMetadataResponseBuilder responseBuilder =
+                buildMetadataResponse(identityRequest, metadataEntry);
+        responseBuilder.setContentType(MDQ_CONTENT_TYPE);
+        return responseBuilder;
+    }
+
+    private String getEntityIdentifier(String requestURI) {
+
+        int index = requestURI.indexOf(ENTITIES_PATH);
+        if (index < 0) {
+            return null;
+        }
+        String entityIdentifier = requestURI.substring(index + ENTITIES_PATH.length());
+        try {
+            // Identifiers are percent encoded, so a plus sign is a literal character of the entityID.
+            return URLDecoder.decode(entityIdentifier.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Invalid entity identifier in the metadata query: " + entityIdentifier, e);
+            }
+            return null;
+        }
+    }
+}
@@ -20,12 +20,19 @@ package org.wso2.carbon.identity.idp.metadata.saml2.util;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.utils.ElementProxy;
 import org.opensaml.core.config.InitializationException;
-import org.opensaml.core.xml.XMLObjectBuilderFactory;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.XMLObjectBuilder;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.wso2.carbon.identity.idp.metadata.saml2.ConfigElements;
 import org.wso2.carbon.identity.saml.common.util.SAMLInitializer;
 import org.wso2.carbon.idp.mgt.MetadataException;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.xml.namespace.QName;
 
 /**
@@ -33,33 +40,81 @@ import javax.xml.namespace.QName;
  */
 public class BuilderUtil {
 
-    private static boolean isBootStrapped = false;
+    private static volatile boolean isBootStrapped = false;
+    private static final AtomicBoolean isXMLSecurityInitialized = new AtomicBoolean(false);
+    private static final ConcurrentMap<QName, XMLObjectBuilder<?>> builders = new ConcurrentHashMap<>();
     private static final Log log = LogFactory.getLog(BuilderUtil.class);
 
     public static void doBootstrap() {
 
-        if (!isBootStrapped) {
-            try {
-                SAMLInitializer.doBootstrap();
-                isBootStrapped = true;
-            } catch (InitializationException e) {
-                log.error("Error in bootstrapping the OpenSAML3 library", e);
+        // Once bootstrapped, callers only read the volatile flag.
+        if (isBootStrapped) {
+            return;
+        }
+        synchronized (BuilderUtil.class) {
+            if (!isBootStrapped) {
+                try {
+                    SAMLInitializer.doBootstrap();
+                    isBootStrapped = true;
+                } catch (InitializationException e) {
+                    log.error("Error in bootstrapping the OpenSAML3 library", e);
+                }
             }
         }
     }
 
+    /**
+     * Initialize the XML security library and set the default prefix of the signature namespace. This mutates
+     * global state of the library, so it is done only once when the component is activated rather than per build.
+     */
+    public static void initXMLSecurity() {
+
+        if (!isXMLSecurityInitialized.compareAndSet(false, true)) {
+            return;
+        }
+        org.apache.xml.security.Init.init();
+        // Init registers the default prefixes, so the signature prefix has to be set afterwards.
+        try {
+            ElementProxy.setDefaultPrefix(ConfigElements.XMLSIGNATURE_NS,
+                    ConfigElements.DEFAULT_XMLSIGNATURE_NS_PREFIX);
+        } catch (XMLSecurityException e) {
+            log.error("Unable to set default prefix for signature element", e);
+        }
+    }
+
     public static <T> T createSAMLObject(String namespaceURI, String localName, String namespacePrefix)
             throws MetadataException {
 
-        doBootstrap();
-        XMLObjectBuilderFactory builderFactory = XMLObjectProviderRegistrySupport.getBuilderFactory();
-
         if (log.isDebugEnabled()) {
             log.debug("Building the SAML Object with namespaceURI: " + namespaceURI + " prefix:" + namespacePrefix);
         }
 
         QName qName = new QName(namespaceURI, localName, namespacePrefix);
 
-        return (T) builderFactory.getBuilder(qName).buildObject(qName);
+        return (T) getBuilder(qName).buildObject(qName);
+    }
+
+    /**
+     * Get the builder of the given element, bootstrapping the OpenSAML library if needed. Builders are cached per
+     * element, as the builder registry does not change once the library is bootstrapped.
+     *
+     * @param elementName Element name.
+     * @param <T>         Type of the SAML object.
+     * @return Builder of the element.
+     * @throws MetadataException if no builder is registered for the element.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends XMLObject> XMLObjectBuilder<T> getBuilder(QName elementName) throws MetadataException {
+
+        XMLObjectBuilder<?> builder = builders.get(elementName);
+        if (builder == null) {
+            doBootstrap();
+            builder = XMLObjectProviderRegistrySupport.getBuilderFactory().getBuilder(elementName);
+            if (builder == null) {
+                throw new MetadataException("No SAML object builder found for the element: " + elementName);
+            }
+            builders.putIfAbsent(elementName, builder);
+        }
+        return (XMLObjectBuilder<T>) builder;
     }
 }
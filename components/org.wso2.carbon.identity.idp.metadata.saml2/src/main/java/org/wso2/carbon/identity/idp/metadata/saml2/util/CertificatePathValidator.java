@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertPathBuilder;
+import java.security.cert.CertStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.PKIXCertPathBuilderResult;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Validates the certification path of certificates found in imported metadata against the trust anchors of the
+ * {@link MetadataTrustStore}. Federation metadata is signed by a handful of CAs, so validated paths are cached
+ * against the fingerprints of the certificates and the version of the trust store, and identical chains are not
+ * validated again until the earliest expiry of a certificate in the path, or until their revocation status has to
+ * be refreshed when revocation checking is enabled.
+ */
+public class CertificatePathValidator {
+
+    private static final Log log = LogFactory.getLog(CertificatePathValidator.class);
+    private static final CertificatePathValidator instance = new CertificatePathValidator();
+
+    private final ValidationCache validatedPaths = new ValidationCache();
+
+    private CertificatePathValidator() {
+
+    }
+
+    public static CertificatePathValidator getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Check whether the certificates of imported metadata should be validated. Validation is disabled by default,
+     * since self signed metadata certificates are commonly imported.
+     *
+     * @return true if certificate validation is enabled.
+     */
+    public boolean isEnabled() {
+
+        return MetadataConfiguration.getInstance().isCertificateValidationEnabled();
+    }
+
+    /**
+     * Validate the certification path of the given certificate to one of the trust anchors.
+     *
+     * @param certificate   Certificate to validate.
+     * @param intermediates Other certificates which may be used to build the path, such as the rest of the
+     *                      certificates of the same key info.
+     * @throws MetadataException if no valid path to a trust anchor can be built.
+     */
+    public void validate(X509Certificate certificate, Collection<X509Certificate> intermediates)
+            throws MetadataException {
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        MetadataTrustStore.Snapshot trustStore = MetadataTrustStore.getInstance().getSnapshot();
+        boolean revocationEnabled = configuration.isRevocationEnabled();
+        String cacheKey;
+        try {
+            certificate.checkValidity();
+            cacheKey = getCacheKey(certificate, intermediates, trustStore.getVersion(), revocationEnabled);
+        } catch (GeneralSecurityException e) {
+            throw new MetadataException("Certificate " + certificate.getSubjectX500Principal() + " is not valid.", e);
+        }
+        if (validatedPaths.isValidated(cacheKey)) {
+            return;
+        }
+
+        long expiryTime = System.currentTimeMillis() + (revocationEnabled ? configuration.getCrlRefreshInterval()
+                : configuration.getCertificateValidationCacheTimeToLive());
+        expiryTime = Math.min(expiryTime, certificate.getNotAfter().getTime());
+        if (!isTrustAnchor(certificate, trustStore)) {
+            try {
+                X509CertSelector target = new X509CertSelector();
+                target.setCertificate(certificate);
+                PKIXBuilderParameters parameters = new PKIXBuilderParameters(trustStore.getTrustAnchors(), target);
+                parameters.setRevocationEnabled(revocationEnabled);
+                List<X509Certificate> certificates = new ArrayList<>(intermediates);
+                certificates.add(certificate);
+                parameters.addCertStore(CertStore.getInstance("Collection",
+                        new CollectionCertStoreParameters(certificates)));
+                PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult) CertPathBuilder.getInstance("PKIX")
+                        .build(parameters);
+                for (Certificate pathCertificate : result.getCertPath().getCertificates()) {
+                    expiryTime = Math.min(expiryTime, ((X509Certificate) pathCertificate).getNotAfter().getTime());
+                }
+                expiryTime = Math.min(expiryTime, result.getTrustAnchor().getTrustedCert().getNotAfter().getTime());
+            } catch (GeneralSecurityException e) {
+                throw new MetadataException("Certificate " + certificate.getSubjectX500Principal() +
+                        " is not trusted.", e);
+            }
+        }
+        validatedPaths.addValidated(cacheKey, expiryTime, configuration.getCertificateValidationCacheMaxSize());
+        if (log.isDebugEnabled()) {
+            log.debug("Validated the certification path of " + certificate.getSubjectX500Principal() +
+                    " against version " + trustStore.getVersion() + " of the trust store.");
+        }
+    }
+
+    /**
+     * Decode a certificate of a metadata key info, given either as base64 or in PEM format.
+     *
+     * @param value Certificate value.
+     * @return Certificate.
+     * @throws MetadataException if the value is not a valid X.509 certificate.
+     */
+    public static X509Certificate decodeCertificate(String value) throws MetadataException {
+
+        byte[] encoded;
+        if (value.contains("-----BEGIN CERTIFICATE-----")) {
+            encoded = value.trim().getBytes(StandardCharsets.US_ASCII);
+        } else {
+            try {
+                encoded = Base64.getMimeDecoder().decode(value.trim());
+            } catch (IllegalArgumentException e) {
+                throw new MetadataException("Invalid certificate encoding.", e);
+            }
+        }
+        try {
+            return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(
+                    new ByteArrayInputStream(encoded));
+        } catch (CertificateException e) {
+            throw new MetadataException("Invalid certificate.", e);
+        }
+    }
+
+    /**
+     * Discard all the cached validations. Validations are also discarded implicitly whenever the trust store is
+     * reloaded, as the version of the trust store is part of the cache key.
+     */
+    public void clear() {
+
+        validatedPaths.clear();
+    }
+
+    private boolean isTrustAnchor(X509Certificate certificate, MetadataTrustStore.Snapshot trustStore) {
+
+        for (TrustAnchor anchor : trustStore.getTrustAnchors()) {
+            if (certificate.equals(anchor.getTrustedCert())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getCacheKey(X509Certificate certificate, Collection<X509Certificate> intermediates,
+                                      long trustStoreVersion, boolean revocationEnabled)
+            throws CertificateException {
+
+        StringBuilder cacheKey = new StringBuilder(getFingerprint(certificate));
+        for (X509Certificate intermediate : intermediates) {
+            cacheKey.append(',').append(getFingerprint(intermediate));
+        }
+        return cacheKey.append(':').append(trustStoreVersion).append(':').append(revocationEnabled).toString();
+    }
+
+    private static String getFingerprint(X509Certificate certificate) throws CertificateException {
+
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(
+                    certificate.getEncoded()));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException("SHA-256 digest is not available.", e);
+        }
+    }
+}
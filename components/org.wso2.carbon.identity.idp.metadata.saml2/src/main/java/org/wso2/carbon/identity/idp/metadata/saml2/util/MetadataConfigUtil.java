@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Provides functionality to parse the SAML metadata configuration of identity.xml.
+ */
+public class MetadataConfigUtil {
+
+    private static final Log log = LogFactory.getLog(MetadataConfigUtil.class);
+
+    private MetadataConfigUtil() {
+
+    }
+
+    /**
+     * Parse the value of a positive numeric configuration.
+     *
+     * @param name         Configuration name.
+     * @param value        Configured value, may be null.
+     * @param defaultValue Value to use if the value is blank or is not a positive number.
+     * @return Parsed value.
+     */
+    public static long parsePositiveLong(String name, String value, long defaultValue) {
+
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                long parsedValue = Long.parseLong(value.trim());
+                if (parsedValue > 0) {
+                    return parsedValue;
+                }
+            } catch (NumberFormatException e) {
+                // Falls back to the default value below.
+            }
+            log.warn("Invalid value: " + value + " for " + name + ". Using the default value: " + defaultValue);
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Parse the value of a boolean configuration.
+     *
+     * @param value        Configured value, may be null.
+     * @param defaultValue Value to use if the value is blank.
+     * @return Parsed value.
+     */
+    public static boolean parseBoolean(String value, boolean defaultValue) {
+
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.util.Locale;
+
+/**
+ * Provides HTTP related helper functionality used when publishing metadata.
+ */
+public class MetadataHttpUtil {
+
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    public static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    public static final String HEADER_EXPIRES = "Expires";
+    public static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String ANY_ETAG = "*";
+
+    // Joda formatters are immutable and thread safe.
+    private static final DateTimeFormatter HTTP_DATE_FORMAT = DateTimeFormat
+            .forPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'").withZoneUTC().withLocale(Locale.US);
+
+    private MetadataHttpUtil() {
+
+    }
+
+    /**
+     * Format the given time as an RFC 1123 HTTP date.
+     *
+     * @param timeInMillis Time in milliseconds.
+     * @return Formatted HTTP date.
+     */
+    public static String formatHttpDate(long timeInMillis) {
+
+        return HTTP_DATE_FORMAT.print(timeInMillis);
+    }
+
+    /**
+     * Parse an RFC 1123 HTTP date.
+     *
+     * @param httpDate HTTP date header value.
+     * @return Time in milliseconds, or -1 if the value is not a valid HTTP date.
+     */
+    public static long parseHttpDate(String httpDate) {
+
+        if (StringUtils.isBlank(httpDate)) {
+            return -1;
+        }
+        try {
+            return HTTP_DATE_FORMAT.parseMillis(httpDate.trim());
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Check whether the If-None-Match header value matches the given entity tag, using the weak comparison
+     * mandated for If-None-Match.
+     *
+     * @param ifNoneMatch If-None-Match header value.
+     * @param etag        Current entity tag of the resource.
+     * @return true if any of the listed entity tags matches.
+     */
+    public static boolean isETagMatched(String ifNoneMatch, String etag) {
+
+        if (StringUtils.isBlank(ifNoneMatch) || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (ANY_ETAG.equals(candidate)) {
+                return true;
+            }
+            if (candidate.startsWith(WEAK_ETAG_PREFIX)) {
+                candidate = candidate.substring(WEAK_ETAG_PREFIX.length());
+            }
+            if (etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
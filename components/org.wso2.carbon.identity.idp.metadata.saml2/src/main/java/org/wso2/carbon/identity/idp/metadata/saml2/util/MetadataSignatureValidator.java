@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.keys.KeyInfo;
+import org.apache.xml.security.keys.content.X509Data;
+import org.apache.xml.security.signature.Reference;
+import org.apache.xml.security.signature.SignedInfo;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.transforms.Transforms;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.wso2.carbon.identity.idp.metadata.saml2.ConfigElements;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.idp.mgt.MetadataException;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilder;
+
+/**
+ * Validates the enveloped XML signature of imported SAML metadata and the certification path of its signer against
+ * the trust anchors of the {@link MetadataTrustStore}. Federation feeds are re-imported repeatedly with the same
+ * content, so successful validations are cached against the digest of the document and the fingerprint of the
+ * signer certificate, and repeated imports of an identical signed document skip the signature verification. The
+ * certification path of the signer is validated through the cache of the {@link CertificatePathValidator}.
+ */
+public class MetadataSignatureValidator {
+
+    private static final Log log = LogFactory.getLog(MetadataSignatureValidator.class);
+    private static final MetadataSignatureValidator instance = new MetadataSignatureValidator();
+    private static final String ID_ATTRIBUTE = "ID";
+    private static final Set<String> ALLOWED_TRANSFORMS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            Transforms.TRANSFORM_ENVELOPED_SIGNATURE, Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS,
+            Transforms.TRANSFORM_C14N_EXCL_WITH_COMMENTS)));
+
+    private final ValidationCache validatedDocuments = new ValidationCache();
+
+    private MetadataSignatureValidator() {
+
+    }
+
+    public static MetadataSignatureValidator getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Check whether the signatures of imported metadata should be validated. Validation is disabled by default,
+     * since unsigned metadata is commonly imported.
+     *
+     * @return true if signature validation is enabled.
+     */
+    public boolean isEnabled() {
+
+        return MetadataConfiguration.getInstance().isSignatureValidationEnabled();
+    }
+
+    /**
+     * Validate the enveloped signature of the given metadata and the certification path of its signer.
+     *
+     * @param metadata Metadata document.
+     * @throws MetadataException if the metadata is not signed, the signature is not valid or the signer is not
+     *                           trusted.
+     */
+    public void validate(String metadata) throws MetadataException {
+
+        BuilderUtil.initXMLSecurity();
+        byte[] metadataBytes = metadata.trim().getBytes(StandardCharsets.UTF_8);
+        Element documentElement = parse(metadataBytes).getDocumentElement();
+        Element signatureElement = getSignatureElement(documentElement);
+        if (signatureElement == null) {
+            throw new MetadataException("Metadata is not signed.");
+        }
+
+        try {
+            XMLSignature signature = new XMLSignature(signatureElement, "", true);
+            X509Certificate signerCertificate = getSignerCertificate(signature);
+            // Path validations are cached separately, so that the revocation status of the signer is refreshed.
+            CertificatePathValidator.getInstance().validate(signerCertificate,
+                    getIntermediateCertificates(signature, signerCertificate));
+
+            String cacheKey = digest(metadataBytes) + ":" + digest(signerCertificate.getEncoded());
+            if (validatedDocuments.isValidated(cacheKey)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Metadata signature of " + signerCertificate.getSubjectX500Principal() +
+                            " was already validated.");
+                }
+                return;
+            }
+
+            validateReference(signature, documentElement);
+            if (!signature.checkSignatureValue(signerCertificate)) {
+                throw new MetadataException("Metadata signature is not valid.");
+            }
+            MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+            validatedDocuments.addValidated(cacheKey, Math.min(System.currentTimeMillis() +
+                    configuration.getSignatureValidationCacheTimeToLive(), signerCertificate.getNotAfter().getTime()),
+                    configuration.getSignatureValidationCacheMaxSize());
+        } catch (XMLSecurityException e) {
+            throw new MetadataException("Error while validating the metadata signature.", e);
+        } catch (GeneralSecurityException e) {
+            throw new MetadataException("Metadata signer certificate is not valid.", e);
+        }
+    }
+
+    /**
+     * Discard all the cached validations.
+     */
+    public void clear() {
+
+        validatedDocuments.clear();
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the metadata signature validation cache.");
+        }
+    }
+
+    private Document parse(byte[] metadataBytes) throws MetadataException {
+
+        DocumentBuilder builder = XMLProcessorPool.getInstance().borrowDocumentBuilder();
+        try {
+            return builder.parse(new ByteArrayInputStream(metadataBytes));
+        } catch (SAXException | IOException e) {
+            throw new MetadataException("Error while parsing the metadata.", e);
+        } finally {
+            XMLProcessorPool.getInstance().returnDocumentBuilder(builder);
+        }
+    }
+
+    private Element getSignatureElement(Element documentElement) {
+
+        for (Node child = documentElement.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && ConfigElements.XMLSIGNATURE_NS.equals(
+                    child.getNamespaceURI()) && "Signature".equals(child.getLocalName())) {
+                return (Element) child;
+            }
+        }
+        return null;
+    }
+
+    private X509Certificate getSignerCertificate(XMLSignature signature) throws XMLSecurityException,
+            MetadataException {
+
+        KeyInfo keyInfo = signature.getKeyInfo();
+        X509Certificate certificate = keyInfo == null ? null : keyInfo.getX509Certificate();
+        if (certificate == null) {
+            throw new MetadataException("Metadata signature does not contain the signer certificate.");
+        }
+        return certificate;
+    }
+
+    /**
+     * Collect the other certificates of the key info, so that the path of a signer issued by an intermediate CA can
+     * be built to a trust anchor.
+     */
+    private List<X509Certificate> getIntermediateCertificates(XMLSignature signature,
+                                                              X509Certificate signerCertificate)
+            throws XMLSecurityException {
+
+        List<X509Certificate> intermediates = new ArrayList<>();
+        KeyInfo keyInfo = signature.getKeyInfo();
+        for (int i = 0; i < keyInfo.lengthX509Data(); i++) {
+            X509Data x509Data = keyInfo.itemX509Data(i);
+            for (int j = 0; j < x509Data.lengthCertificate(); j++) {
+                X509Certificate certificate = x509Data.itemCertificate(j).getX509Certificate();
+                if (certificate != null && !certificate.equals(signerCertificate)) {
+                    intermediates.add(certificate);
+                }
+            }
+        }
+        return intermediates;
+    }
+
+    /**
+     * Make sure that the signature covers the whole metadata document, so that a valid signature of some other
+     * element cannot be wrapped into unsigned metadata, and that the document is only transformed by removing the
+     * enveloped signature and canonicalizing, so that XPath or XSLT transforms cannot exclude content from the
+     * signature or be used to exhaust the server.
+     */
+    private void validateReference(XMLSignature signature, Element documentElement) throws XMLSecurityException,
+            MetadataException {
+
+        SignedInfo signedInfo = signature.getSignedInfo();
+        if (signedInfo.getLength() != 1) {
+            throw new MetadataException("Metadata signature must have exactly one reference.");
+        }
+        Reference reference = signedInfo.item(0);
+        validateTransforms(reference.getTransforms());
+        String uri = reference.getURI();
+        if (StringUtils.isEmpty(uri)) {
+            return;
+        }
+        String id = documentElement.getAttributeNS(null, ID_ATTRIBUTE);
+        if (StringUtils.isEmpty(id) || !uri.equals("#" + id)) {
+            throw new MetadataException("Metadata signature does not reference the metadata document.");
+        }
+        documentElement.setIdAttributeNS(null, ID_ATTRIBUTE, true);
+    }
+
+    private void validateTransforms(Transforms transforms) throws XMLSecurityException, MetadataException {
+
+        if (transforms == null) {
+            return;
+        }
+        for (int i = 0; i < transforms.getLength(); i++) {
+            String algorithm = transforms.item(i).getURI();
+            if (!ALLOWED_TRANSFORMS.contains(algorithm)) {
+                throw new MetadataException("Metadata signature uses an unsupported transform: " + algorithm);
+            }
+        }
+    }
+
+    private static String digest(byte[] content) {
+
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException("SHA-256 digest is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.exception.SigningCapacityExceededException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of metadata documents signed concurrently, so that a burst of metadata builds cannot occupy
+ * every request thread with signing. Threads wait for a signing permit in a bounded queue for a bounded time, and
+ * are rejected straight away once the queue is full.
+ */
+public class MetadataSigningLimiter {
+
+    private static volatile MetadataSigningLimiter instance;
+
+    private final Semaphore permits;
+    private final int maxQueueSize;
+    private final long queueTimeout;
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    MetadataSigningLimiter(int maxConcurrency, int maxQueueSize, long queueTimeout) {
+
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxQueueSize = maxQueueSize;
+        this.queueTimeout = queueTimeout;
+    }
+
+    /**
+     * Get the limiter of the current configuration. A permit has to be released on the limiter it was acquired from,
+     * so callers should hold on to the returned limiter until they release their permit.
+     *
+     * @return Signing limiter.
+     */
+    public static MetadataSigningLimiter getInstance() {
+
+        MetadataSigningLimiter limiter = instance;
+        if (limiter == null) {
+            synchronized (MetadataSigningLimiter.class) {
+                limiter = instance;
+                if (limiter == null) {
+                    MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+                    limiter = new MetadataSigningLimiter(configuration.getSigningMaxConcurrency(),
+                            configuration.getSigningMaxQueueSize(), configuration.getSigningQueueTimeout());
+                    instance = limiter;
+                }
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * Replace the limiter with one of the current configuration. Signing already holding a permit of the previous
+     * limiter completes and releases its permit on it.
+     */
+    public static void reset() {
+
+        synchronized (MetadataSigningLimiter.class) {
+            instance = null;
+        }
+    }
+
+    /**
+     * Acquire a signing permit. Every successful call has to be followed by a call to {@link #release()}.
+     *
+     * @throws SigningCapacityExceededException if the signing queue is full or no permit became available within
+     *                                          the queue timeout.
+     */
+    public void acquire() throws SigningCapacityExceededException {
+
+        try {
+            // The untimed tryAcquire barges ahead of queued threads even on a fair semaphore, the timed one does not.
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SigningCapacityExceededException("Interrupted while waiting for a metadata signing permit.");
+        }
+        if (queueSize.incrementAndGet() > maxQueueSize) {
+            queueSize.decrementAndGet();
+            throw new SigningCapacityExceededException("Metadata signing queue is full.");
+        }
+        try {
+            if (!permits.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SigningCapacityExceededException("Timed out while waiting for a metadata signing permit.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SigningCapacityExceededException("Interrupted while waiting for a metadata signing permit.");
+        } finally {
+            queueSize.decrementAndGet();
+        }
+    }
+
+    public void release() {
+
+        permits.release();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Holds the trust anchors used to validate imported metadata, loaded from the dedicated trust store configured under
+ * Security.SAMLMetadataTrustStore in carbon.xml. The trust store of the server holds the CAs trusted for TLS and is
+ * deliberately not used, so validation fails while the metadata trust store is not configured. Each load of the
+ * trust store gets a new version, so that validation results can be cached against the version of the trust anchors
+ * they were computed with. The trust store is reloaded when its file or its configuration is modified.
+ */
+public class MetadataTrustStore {
+
+    public static final String SECURITY_SAML_METADATA_TRUST_STORE_LOCATION =
+            "Security.SAMLMetadataTrustStore.Location";
+    public static final String SECURITY_SAML_METADATA_TRUST_STORE_TYPE = "Security.SAMLMetadataTrustStore.Type";
+    public static final String SECURITY_SAML_METADATA_TRUST_STORE_PASSWORD =
+            "Security.SAMLMetadataTrustStore.Password";
+
+    private static final Log log = LogFactory.getLog(MetadataTrustStore.class);
+    private static final MetadataTrustStore instance = new MetadataTrustStore();
+
+    private volatile Snapshot snapshot;
+    private long version;
+
+    private MetadataTrustStore() {
+
+    }
+
+    public static MetadataTrustStore getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the current trust anchors, loading the trust store if it has not been loaded yet or has been modified.
+     *
+     * @return Trust anchors along with their version.
+     * @throws MetadataException if the trust store cannot be loaded.
+     */
+    public Snapshot getSnapshot() throws MetadataException {
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        if (!configuration.isTrustStoreConfigured()) {
+            throw new MetadataException("Metadata trust store is not configured.");
+        }
+        File trustStoreFile = new File(configuration.getTrustStoreLocation());
+        Snapshot currentSnapshot = snapshot;
+        if (isCurrent(currentSnapshot, trustStoreFile)) {
+            return currentSnapshot;
+        }
+        synchronized (this) {
+            currentSnapshot = snapshot;
+            if (!isCurrent(currentSnapshot, trustStoreFile)) {
+                currentSnapshot = load(configuration, trustStoreFile);
+                snapshot = currentSnapshot;
+            }
+            return currentSnapshot;
+        }
+    }
+
+    /**
+     * Discard the loaded trust anchors, so that the trust store is loaded again on the next validation.
+     */
+    public synchronized void reload() {
+
+        snapshot = null;
+    }
+
+    private static boolean isCurrent(Snapshot currentSnapshot, File trustStoreFile) {
+
+        return currentSnapshot != null && currentSnapshot.file.equals(trustStoreFile)
+                && currentSnapshot.lastModified == trustStoreFile.lastModified();
+    }
+
+    private Snapshot load(MetadataConfiguration configuration, File trustStoreFile) throws MetadataException {
+
+        long lastModified = trustStoreFile.lastModified();
+        try (FileInputStream is = new FileInputStream(trustStoreFile)) {
+            KeyStore trustStore = KeyStore.getInstance(configuration.getTrustStoreType());
+            trustStore.load(is, configuration.getTrustStorePassword().toCharArray());
+            Set<TrustAnchor> anchors = new HashSet<>();
+            for (Enumeration<String> aliases = trustStore.aliases(); aliases.hasMoreElements(); ) {
+                Certificate certificate = trustStore.getCertificate(aliases.nextElement());
+                if (certificate instanceof X509Certificate) {
+                    anchors.add(new TrustAnchor((X509Certificate) certificate, null));
+                }
+            }
+            if (anchors.isEmpty()) {
+                throw new MetadataException("Metadata trust store does not contain any trusted certificates.");
+            }
+            version++;
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded " + anchors.size() + " trust anchors as version " + version + " of the " +
+                        "metadata trust store: " + trustStoreFile);
+            }
+            return new Snapshot(Collections.unmodifiableSet(anchors), version, trustStoreFile, lastModified);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new MetadataException("Unable to load the metadata trust store.", e);
+        }
+    }
+
+    /**
+     * Immutable set of trust anchors loaded from one version of the trust store.
+     */
+    public static class Snapshot {
+
+        private final Set<TrustAnchor> trustAnchors;
+        private final long version;
+        private final File file;
+        private final long lastModified;
+
+        Snapshot(Set<TrustAnchor> trustAnchors, long version, File file, long lastModified) {
+
+            this.trustAnchors = trustAnchors;
+            this.version = version;
+            this.file = file;
+            this.lastModified = lastModified;
+        }
+
+        public Set<TrustAnchor> getTrustAnchors() {
+
+            return trustAnchors;
+        }
+
+        public long getVersion() {
+
+            return version;
+        }
+    }
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Non repairing {@link XMLStreamWriter} writing UTF-8 in the form of the JDK identity {@link
+ * javax.xml.transform.Transformer}, so that the serialized metadata does not change with the stream writer
+ * implementation of the platform: the XML declaration is written as standalone, empty elements are collapsed and
+ * characters are escaped the way the Transformer escapes them.
+ */
+final class MetadataXMLStreamWriter implements XMLStreamWriter {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final Deque<String> elements = new ArrayDeque<>();
+    private final Deque<Map<String, String>> prefixes = new ArrayDeque<>();
+    private NamespaceContext namespaceContext;
+    private boolean startTagOpen;
+
+    MetadataXMLStreamWriter(OutputStream out) {
+
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        prefixes.push(new HashMap<String, String>());
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+
+        writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+    }
+
+    @Override
+    public void writeStartDocument(String version) throws XMLStreamException {
+
+        writeStartDocument(StandardCharsets.UTF_8.name(), version);
+    }
+
+    @Override
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+
+        if (encoding != null && !StandardCharsets.UTF_8.name().equalsIgnoreCase(encoding)) {
+            throw new XMLStreamException("Unsupported encoding: " + encoding);
+        }
+        write("<?xml version=\"" + version + "\" encoding=\"" + StandardCharsets.UTF_8.name() +
+                "\" standalone=\"no\"?>");
+    }
+
+    @Override
+    public void writeStartElement(String localName) throws XMLStreamException {
+
+        writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, localName, XMLConstants.NULL_NS_URI);
+    }
+
+    @Override
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+
+        String prefix = getPrefix(namespaceURI);
+        if (prefix == null) {
+            throw new XMLStreamException("No prefix is bound to the namespace: " + namespaceURI);
+        }
+        writeStartElement(prefix, localName, namespaceURI);
+    }
+
+    @Override
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+
+        closeStartTag();
+        String name = getQualifiedName(prefix, localName);
+        write('<');
+        write(name);
+        elements.push(name);
+        prefixes.push(new HashMap<String, String>());
+        startTagOpen = true;
+    }
+
+    @Override
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+
+        writeStartElement(localName);
+        writeEndElement();
+    }
+
+    @Override
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+
+        writeStartElement(namespaceURI, localName);
+        writeEndElement();
+    }
+
+    @Override
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+
+        writeStartElement(prefix, localName, namespaceURI);
+        writeEndElement();
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+
+        if (elements.isEmpty()) {
+            throw new XMLStreamException("No element is open.");
+        }
+        String name = elements.pop();
+        prefixes.pop();
+        if (startTagOpen) {
+            write("/>");
+            startTagOpen = false;
+        } else {
+            write("</");
+            write(name);
+            write('>');
+        }
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+
+        while (!elements.isEmpty()) {
+            writeEndElement();
+        }
+    }
+
+    @Override
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+
+        writeAttribute(XMLConstants.DEFAULT_NS_PREFIX, XMLConstants.NULL_NS_URI, localName, value);
+    }
+
+    @Override
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+
+        String prefix = getPrefix(namespaceURI);
+        if (prefix == null) {
+            throw new XMLStreamException("No prefix is bound to the namespace: " + namespaceURI);
+        }
+        writeAttribute(prefix, namespaceURI, localName, value);
+    }
+
+    @Override
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+            throws XMLStreamException {
+
+        if (!startTagOpen) {
+            throw new XMLStreamException("Attribute: " + localName + " is not written within a start tag.");
+        }
+        write(' ');
+        write(getQualifiedName(prefix, localName));
+        write("=\"");
+        writeEscaped(value, true);
+        write('"');
+    }
+
+    @Override
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+
+        if (prefix == null || prefix.isEmpty() || XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+            writeDefaultNamespace(namespaceURI);
+            return;
+        }
+        writeAttribute(XMLConstants.XMLNS_ATTRIBUTE, XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix, namespaceURI);
+        setPrefix(prefix, namespaceURI);
+    }
+
+    @Override
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+
+        writeAttribute(XMLConstants.XMLNS_ATTRIBUTE, namespaceURI);
+        setDefaultNamespace(namespaceURI);
+    }
+
+    @Override
+    public void writeComment(String data) throws XMLStreamException {
+
+        closeStartTag();
+        write("<!--");
+        write(data);
+        write("-->");
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target) throws XMLStreamException {
+
+        closeStartTag();
+        write("<?");
+        write(target);
+        write("?>");
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+
+        closeStartTag();
+        write("<?");
+        write(target);
+        if (data != null && !data.isEmpty()) {
+            write(' ');
+            write(data);
+        }
+        write("?>");
+    }
+
+    @Override
+    public void writeCData(String data) throws XMLStreamException {
+
+        closeStartTag();
+        write("<![CDATA[");
+        write(data);
+        write("]]>");
+    }
+
+    @Override
+    public void writeDTD(String dtd) throws XMLStreamException {
+
+        write(dtd);
+    }
+
+    @Override
+    public void writeEntityRef(String name) throws XMLStreamException {
+
+        closeStartTag();
+        write('&');
+        write(name);
+        write(';');
+    }
+
+    @Override
+    public void writeCharacters(String text) throws XMLStreamException {
+
+        // Empty text does not end the start tag, so that the element is still written as an empty element.
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        closeStartTag();
+        writeEscaped(text, false);
+    }
+
+    @Override
+    public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+
+        writeCharacters(new String(text, start, len));
+    }
+
+    @Override
+    public String getPrefix(String uri) {
+
+        if (uri == null) {
+            uri = XMLConstants.NULL_NS_URI;
+        }
+        for (Map<String, String> scope : prefixes) {
+            for (Map.Entry<String, String> prefix : scope.entrySet()) {
+                if (prefix.getValue().equals(uri) && uri.equals(getNamespaceURI(prefix.getKey()))) {
+                    return prefix.getKey();
+                }
+            }
+        }
+        if (namespaceContext != null) {
+            return namespaceContext.getPrefix(uri);
+        }
+        return XMLConstants.NULL_NS_URI.equals(uri) ? XMLConstants.DEFAULT_NS_PREFIX : null;
+    }
+
+    @Override
+    public void setPrefix(String prefix, String uri) {
+
+        prefixes.peek().put(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(String uri) {
+
+        prefixes.peek().put(XMLConstants.DEFAULT_NS_PREFIX, uri);
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext context) {
+
+        this.namespaceContext = context;
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+
+        return new NamespaceContext() {
+
+            @Override
+            public String getNamespaceURI(String prefix) {
+
+                return MetadataXMLStreamWriter.this.getNamespaceURI(prefix);
+            }
+
+            @Override
+            public String getPrefix(String namespaceURI) {
+
+                return MetadataXMLStreamWriter.this.getPrefix(namespaceURI);
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(String namespaceURI) {
+
+                String prefix = getPrefix(namespaceURI);
+                return prefix == null ? Collections.<String>emptyIterator() :
+                        Collections.singleton(prefix).iterator();
+            }
+        };
+    }
+
+    @Override
+    public Object getProperty(String name) {
+
+        throw new IllegalArgumentException("Unsupported property: " + name);
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new XMLStreamException("Error while flushing the XML stream.", e);
+        }
+    }
+
+    /**
+     * Flush the written content. The underlying output stream is not closed.
+     *
+     * @throws XMLStreamException if there is an error while flushing.
+     */
+    @Override
+    public void close() throws XMLStreamException {
+
+        flush();
+    }
+
+    private String getNamespaceURI(String prefix) {
+
+        for (Map<String, String> scope : prefixes) {
+            String uri = scope.get(prefix);
+            if (uri != null) {
+                return uri;
+            }
+        }
+        if (namespaceContext != null) {
+            return namespaceContext.getNamespaceURI(prefix);
+        }
+        return XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) ? XMLConstants.NULL_NS_URI : null;
+    }
+
+    private void closeStartTag() throws XMLStreamException {
+
+        if (startTagOpen) {
+            write('>');
+            startTagOpen = false;
+        }
+    }
+
+    /**
+     * Write the given text, escaping the characters the Transformer escapes. Markup characters are written as
+     * entities. Control characters, and all characters outside the basic multilingual plane, are written as numeric
+     * character references, except for tabs and line breaks in text and the C1 controls in attribute values.
+     */
+    private void writeEscaped(String text, boolean attribute) throws XMLStreamException {
+
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    write("&amp;");
+                    break;
+                case '<':
+                    write("&lt;");
+                    break;
+                case '>':
+                    write("&gt;");
+                    break;
+                case '"':
+                    write(attribute ? "&quot;" : "\"");
+                    break;
+                case '\t':
+                    write(attribute ? "&#9;" : "\t");
+                    break;
+                case '\n':
+                    write(attribute ? "&#10;" : LINE_SEPARATOR);
+                    break;
+                default:
+                    if (Character.isHighSurrogate(c) && i + 1 < text.length() &&
+                            Character.isLowSurrogate(text.charAt(i + 1))) {
+                        writeCharacterReference(Character.toCodePoint(c, text.charAt(++i)));
+                    } else if (c < 0x20 || (!attribute && c >= 0x7F && c <= 0x9F)) {
+                        writeCharacterReference(c);
+                    } else {
+                        write(c);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void writeCharacterReference(int codePoint) throws XMLStreamException {
+
+        write("&#");
+        write(Integer.toString(codePoint));
+        write(';');
+    }
+
+    private static String getQualifiedName(String prefix, String localName) {
+
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private void write(String value) throws XMLStreamException {
+
+        try {
+            out.write(value);
+        } catch (IOException e) {
+            throw new XMLStreamException("Error while writing the XML stream.", e);
+        }
+    }
+
+    private void write(char value) throws XMLStreamException {
+
+        try {
+            out.write(value);
+        } catch (IOException e) {
+            throw new XMLStreamException("Error while writing the XML stream.", e);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.idp.metadata.saml2.util;
 import net.shibboleth.utilities.java.support.xml.XMLParserException;
 import org.apache.axiom.om.OMElement;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
@@ -33,14 +34,19 @@ import org.opensaml.saml.saml2.metadata.KeyDescriptor;
 import org.opensaml.saml.saml2.metadata.RoleDescriptor;
 import org.opensaml.saml.saml2.metadata.SingleLogoutService;
 import org.opensaml.saml.saml2.metadata.SingleSignOnService;
+import org.opensaml.security.credential.UsageType;
+import org.opensaml.xmlsec.signature.X509Data;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.idp.mgt.MetadataException;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 
@@ -317,6 +323,10 @@ public class SAML2SSOFederatedAuthenticatorConfigBuilder {
 
                     federatedAuthenticatorConfig.setProperties(properties);
 
+                    if (CertificatePathValidator.getInstance().isEnabled()) {
+                        validateSigningCertificates(descriptors);
+                    }
+
                     //set certificates
                     StringBuilder certs = new StringBuilder();
                     if (CollectionUtils.isNotEmpty(descriptors)) {
@@ -380,6 +390,43 @@ public class SAML2SSOFederatedAuthenticatorConfigBuilder {
         return federatedAuthenticatorConfig;
     }
 
+    /**
+     * Validate the certification paths of the signing certificates of the given key descriptors.
+     *
+     * @param descriptors Key descriptors of the IDPSSODescriptor.
+     * @throws IdentityApplicationManagementException if a signing certificate is not valid or not trusted.
+     */
+    private static void validateSigningCertificates(List<KeyDescriptor> descriptors)
+            throws IdentityApplicationManagementException {
+
+        if (CollectionUtils.isEmpty(descriptors)) {
+            return;
+        }
+        for (KeyDescriptor descriptor : descriptors) {
+            if (descriptor == null || descriptor.getUse() != UsageType.SIGNING || descriptor.getKeyInfo() == null) {
+                continue;
+            }
+            List<X509Certificate> certificates = new ArrayList<>();
+            try {
+                for (X509Data x509Data : descriptor.getKeyInfo().getX509Datas()) {
+                    for (org.opensaml.xmlsec.signature.X509Certificate certificate :
+                            x509Data.getX509Certificates()) {
+                        if (StringUtils.isNotBlank(certificate.getValue())) {
+                            certificates.add(CertificatePathValidator.decodeCertificate(certificate.getValue()));
+                        }
+                    }
+                }
+                // The first certificate is the signing certificate, the rest may complete its path.
+                if (!certificates.isEmpty()) {
+                    CertificatePathValidator.getInstance().validate(certificates.get(0),
+                            certificates.subList(1, certificates.size()));
+                }
+            } catch (MetadataException e) {
+                throw new IdentityApplicationManagementException("Invalid signing certificate in the metadata.", e);
+            }
+        }
+    }
+
     /**
      * Convert metadata OMElement to FederatedAuthenticatorConfigObject.
      *
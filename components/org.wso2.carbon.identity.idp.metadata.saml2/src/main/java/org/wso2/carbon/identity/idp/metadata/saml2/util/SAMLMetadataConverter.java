@@ -31,7 +31,6 @@ import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorC
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
 import org.wso2.carbon.identity.core.IdentityRegistryResources;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.idp.metadata.saml2.IDPMetadataConstant;
 import org.wso2.carbon.identity.idp.metadata.saml2.builder.DefaultIDPMetadataBuilder;
 import org.wso2.carbon.identity.idp.metadata.saml2.internal.IDPMetadataSAMLServiceComponentHolder;
@@ -49,9 +48,7 @@ import java.io.ByteArrayInputStream;
 import java.io.StringWriter;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -125,6 +122,14 @@ public class SAMLMetadataConverter implements MetadataConverter {
         if (metadata.equals("")) {
             throw new IdentityProviderManagementException("No metadata found");
         } else {
+            // The signature has to be validated before the certificates of the document are rewritten.
+            if (MetadataSignatureValidator.getInstance().isEnabled()) {
+                try {
+                    MetadataSignatureValidator.getInstance().validate(metadata);
+                } catch (MetadataException e) {
+                    throw new IdentityProviderManagementException("Invalid metadata signature", e);
+                }
+            }
             metadata = configureCertificate(metadata);
         }
 
@@ -206,12 +211,13 @@ public class SAMLMetadataConverter implements MetadataConverter {
     private String configureCertificate(String metadataOriginal) throws IdentityProviderManagementException {
 
         String metadata;
-        DocumentBuilderFactory factory = IdentityUtil.getSecuredDocumentBuilderFactory();
-        DocumentBuilder builder;
+        XMLProcessorPool xmlProcessorPool = XMLProcessorPool.getInstance();
+        DocumentBuilder builder = null;
+        Transformer transformer = null;
         Document document;
 
         try {
-            builder = factory.newDocumentBuilder();
+            builder = xmlProcessorPool.borrowDocumentBuilder();
             document = builder.parse(new ByteArrayInputStream(metadataOriginal.getBytes()));
             document.getDocumentElement().normalize();
 
@@ -263,10 +269,9 @@ public class SAMLMetadataConverter implements MetadataConverter {
                 }
             }
 
-            Transformer transformer;
             StreamResult streamResult;
             StringWriter stringWriter = new StringWriter();
-            transformer = TransformerFactory.newInstance().newTransformer();
+            transformer = xmlProcessorPool.borrowTransformer();
             streamResult = new StreamResult(stringWriter);
             DOMSource source = new DOMSource(document);
             transformer.transform(source, streamResult);
@@ -275,6 +280,9 @@ public class SAMLMetadataConverter implements MetadataConverter {
 
         } catch (Exception ex) {
             throw new IdentityProviderManagementException("Error Configuring certificate", ex);
+        } finally {
+            xmlProcessorPool.returnDocumentBuilder(builder);
+            xmlProcessorPool.returnTransformer(transformer);
         }
         return metadata;
     }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.XMLObjectBuilder;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Typed factory of the SAML objects of a single element. The element name is created once and the builder of the
+ * element is resolved from the OpenSAML builder registry on first use, so building an object is a direct call to
+ * its builder. Instances are meant to be held in static fields and shared by all metadata builds.
+ *
+ * @param <T> Type of the SAML object.
+ */
+public final class SAMLObjectFactory<T extends XMLObject> {
+
+    private final QName elementName;
+    private volatile XMLObjectBuilder<T> builder;
+
+    public SAMLObjectFactory(String namespaceURI, String localName, String namespacePrefix) {
+
+        this.elementName = new QName(namespaceURI, localName, namespacePrefix);
+    }
+
+    public SAMLObjectFactory(QName elementName) {
+
+        this.elementName = elementName;
+    }
+
+    /**
+     * Build a new SAML object of the element.
+     *
+     * @return SAML object.
+     * @throws MetadataException if no builder is registered for the element.
+     */
+    public T build() throws MetadataException {
+
+        XMLObjectBuilder<T> objectBuilder = builder;
+        if (objectBuilder == null) {
+            // Racing threads resolve the same builder, so there is no need to lock.
+            objectBuilder = BuilderUtil.getBuilder(elementName);
+            builder = objectBuilder;
+        }
+        return objectBuilder.buildObject(elementName);
+    }
+}
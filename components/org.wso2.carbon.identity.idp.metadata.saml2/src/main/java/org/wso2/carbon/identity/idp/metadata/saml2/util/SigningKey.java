@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+
+/**
+ * Immutable snapshot of a metadata signing key and its certificate chain, as read from the key store of a tenant or
+ * from the SAML sign key store of the super tenant.
+ */
+public class SigningKey {
+
+    private final PrivateKey privateKey;
+    private final X509Certificate[] certificateChain;
+
+    public SigningKey(PrivateKey privateKey, X509Certificate[] certificateChain) {
+
+        this.privateKey = privateKey;
+        this.certificateChain = certificateChain.clone();
+    }
+
+    public PrivateKey getPrivateKey() {
+
+        return privateKey;
+    }
+
+    public X509Certificate[] getCertificateChain() {
+
+        return certificateChain.clone();
+    }
+}
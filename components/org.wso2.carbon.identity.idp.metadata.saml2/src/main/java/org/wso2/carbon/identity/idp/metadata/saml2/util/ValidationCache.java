@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of successful validations, holding the time until which each validation may be reused. Lookups do
+ * not lock, and once the cache grows beyond its limit, expired validations and then those closest to expiry are
+ * evicted by a single thread.
+ */
+class ValidationCache {
+
+    // Eviction frees a tenth of the cache, so that a full cache is not scanned on every addition.
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final ConcurrentMap<String, Long> validations = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Check whether a validation of the given key is cached and has not expired.
+     *
+     * @param key Validation key.
+     * @return true if the validation may be reused.
+     */
+    boolean isValidated(String key) {
+
+        Long expiryTime = validations.get(key);
+        if (expiryTime == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() >= expiryTime) {
+            validations.remove(key, expiryTime);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cache a successful validation.
+     *
+     * @param key        Validation key.
+     * @param expiryTime Time until which the validation may be reused.
+     * @param maxSize    Maximum number of cached validations.
+     */
+    void addValidated(String key, long expiryTime, int maxSize) {
+
+        validations.put(key, expiryTime);
+        if (validations.size() > maxSize && evicting.compareAndSet(false, true)) {
+            try {
+                evict(maxSize);
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    void clear() {
+
+        validations.clear();
+    }
+
+    int size() {
+
+        return validations.size();
+    }
+
+    private void evict(int limit) {
+
+        long currentTime = System.currentTimeMillis();
+        List<Map.Entry<String, Long>> liveValidations = new ArrayList<>(validations.size());
+        for (Map.Entry<String, Long> validation : validations.entrySet()) {
+            if (currentTime >= validation.getValue()) {
+                validations.remove(validation.getKey(), validation.getValue());
+            } else {
+                liveValidations.add(validation);
+            }
+        }
+
+        int excess = validations.size() - (limit - limit / EVICTION_DIVISOR);
+        if (excess <= 0) {
+            return;
+        }
+        Collections.sort(liveValidations, new Comparator<Map.Entry<String, Long>>() {
+
+            @Override
+            public int compare(Map.Entry<String, Long> validation1, Map.Entry<String, Long> validation2) {
+
+                return Long.compare(validation1.getValue(), validation2.getValue());
+            }
+        });
+        for (int i = 0; i < excess && i < liveValidations.size(); i++) {
+            validations.remove(liveValidations.get(i).getKey(), liveValidations.get(i).getValue());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * Bounded pool of secured {@link DocumentBuilder} and {@link Transformer} instances used to parse and serialize
+ * metadata in the IdP and SP metadata components. The factories are looked up and configured only once, and the
+ * instances are reset when they are returned, so a borrower always gets an instance in its initial configuration.
+ * Borrowing never blocks: a new instance is created when the pool is empty and returned instances are dropped when
+ * the pool is full. Instances are not thread safe, so they have to be used only by the borrowing thread.
+ */
+public class XMLProcessorPool {
+
+    private static final Log log = LogFactory.getLog(XMLProcessorPool.class);
+    private static final XMLProcessorPool instance = new XMLProcessorPool();
+
+    private final DocumentBuilderFactory documentBuilderFactory;
+    private final TransformerFactory transformerFactory;
+    private final BlockingQueue<DocumentBuilder> documentBuilders;
+    private final BlockingQueue<Transformer> transformers;
+
+    private XMLProcessorPool() {
+
+        // Sized once, as pooled instances are only dropped as they are returned.
+        int maxSize = MetadataConfiguration.getInstance().getXMLPoolMaxSize();
+        documentBuilders = new LinkedBlockingQueue<>(maxSize);
+        transformers = new LinkedBlockingQueue<>(maxSize);
+
+        documentBuilderFactory = IdentityUtil.getSecuredDocumentBuilderFactory();
+        documentBuilderFactory.setNamespaceAware(true);
+        transformerFactory = createSecuredTransformerFactory();
+    }
+
+    public static XMLProcessorPool getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Borrow a secured, namespace aware document builder. Every borrowed builder should be given back with
+     * {@link #returnDocumentBuilder(DocumentBuilder)}.
+     *
+     * @return Document builder.
+     * @throws MetadataException if a document builder could not be created.
+     */
+    public DocumentBuilder borrowDocumentBuilder() throws MetadataException {
+
+        DocumentBuilder documentBuilder = documentBuilders.poll();
+        if (documentBuilder != null) {
+            return documentBuilder;
+        }
+        try {
+            // The factory is shared, so creating builders is serialized on it.
+            synchronized (documentBuilderFactory) {
+                return documentBuilderFactory.newDocumentBuilder();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new MetadataException("Error while creating the document builder.", e);
+        }
+    }
+
+    public void returnDocumentBuilder(DocumentBuilder documentBuilder) {
+
+        if (documentBuilder == null) {
+            return;
+        }
+        try {
+            // Restores the features, the security manager and the handlers the builder was created with.
+            documentBuilder.reset();
+        } catch (UnsupportedOperationException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("The document builder cannot be reset, so it is not pooled.", e);
+            }
+            return;
+        }
+        documentBuilders.offer(documentBuilder);
+    }
+
+    /**
+     * Borrow a transformer of the secured transformer factory. Every borrowed transformer should be given back with
+     * {@link #returnTransformer(Transformer)}.
+     *
+     * @return Transformer.
+     * @throws MetadataException if a transformer could not be created.
+     */
+    public Transformer borrowTransformer() throws MetadataException {
+
+        Transformer transformer = transformers.poll();
+        if (transformer != null) {
+            return transformer;
+        }
+        try {
+            synchronized (transformerFactory) {
+                return transformerFactory.newTransformer();
+            }
+        } catch (TransformerConfigurationException e) {
+            throw new MetadataException("Error while creating the transformer.", e);
+        }
+    }
+
+    public void returnTransformer(Transformer transformer) {
+
+        if (transformer == null) {
+            return;
+        }
+        try {
+            // Clears the parameters, output properties and handlers set by the borrower.
+            transformer.reset();
+        } catch (UnsupportedOperationException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("The transformer cannot be reset, so it is not pooled.", e);
+            }
+            return;
+        }
+        transformers.offer(transformer);
+    }
+
+    /**
+     * Discard all the pooled instances.
+     */
+    public void clear() {
+
+        documentBuilders.clear();
+        transformers.clear();
+    }
+
+    private static TransformerFactory createSecuredTransformerFactory() {
+
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (TransformerConfigurationException e) {
+            log.error("Failed to enable secure processing of the transformer factory.", e);
+        }
+        try {
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        } catch (IllegalArgumentException e) {
+            // Older transformer implementations do not support restricting external access.
+            if (log.isDebugEnabled()) {
+                log.debug("The transformer factory does not support restricting external access.", e);
+            }
+        }
+        return factory;
+    }
+}
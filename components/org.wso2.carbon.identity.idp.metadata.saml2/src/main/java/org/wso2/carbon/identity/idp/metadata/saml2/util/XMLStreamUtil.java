@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Provides functionality to write a DOM tree to an {@link XMLStreamWriter}, so that a marshalled SAML object can be
+ * serialized to an output stream or fed into a streaming consumer such as a streaming signer in a single traversal.
+ * The output is that of the JDK identity {@link javax.xml.transform.Transformer} the metadata used to be serialized
+ * with: namespaces are declared where the Transformer declares them, and {@link #createXMLStreamWriter} escapes
+ * characters the same way.
+ */
+public class XMLStreamUtil {
+
+    private static final String ENCODING = "UTF-8";
+
+    private XMLStreamUtil() {
+
+    }
+
+    /**
+     * Create a stream writer that writes UTF-8 to the given output stream in the form of the Transformer. Closing the
+     * writer does not close the output stream.
+     *
+     * @param out Output stream.
+     * @return Stream writer.
+     */
+    public static XMLStreamWriter createXMLStreamWriter(OutputStream out) {
+
+        return new MetadataXMLStreamWriter(out);
+    }
+
+    /**
+     * Serialize the given document as UTF-8 to the output stream. The output stream is not closed.
+     *
+     * @param document Document to write.
+     * @param out      Output stream.
+     * @throws XMLStreamException if there is an error while writing.
+     */
+    public static void writeDocument(Document document, OutputStream out) throws XMLStreamException {
+
+        XMLStreamWriter writer = createXMLStreamWriter(out);
+        try {
+            writeDocument(document, writer);
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Write the given document, including the XML declaration, to the stream writer.
+     *
+     * @param document Document to write.
+     * @param writer   Stream writer.
+     * @throws XMLStreamException if there is an error while writing.
+     */
+    public static void writeDocument(Document document, XMLStreamWriter writer) throws XMLStreamException {
+
+        writer.writeStartDocument(ENCODING, "1.0");
+        for (Node child = document.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeNode(child, writer);
+        }
+        writer.writeEndDocument();
+    }
+
+    /**
+     * Write the given node and its descendants to the stream writer. Namespaces are written as declared by the xmlns
+     * attributes of the DOM, which is how OpenSAML marshallers declare them. A namespace used by an element or an
+     * attribute without being declared in scope is declared on the element.
+     *
+     * @param node   Node to write.
+     * @param writer Stream writer.
+     * @throws XMLStreamException if there is an error while writing.
+     */
+    public static void writeNode(Node node, XMLStreamWriter writer) throws XMLStreamException {
+
+        writeNode(node, writer, new ArrayDeque<Map<String, String>>());
+    }
+
+    private static void writeNode(Node node, XMLStreamWriter writer, Deque<Map<String, String>> namespaces)
+            throws XMLStreamException {
+
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                writeElement((Element) node, writer, namespaces);
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(node.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                writer.writeCData(node.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                writer.writeComment(node.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                writer.writeProcessingInstruction(node.getNodeName(), node.getNodeValue());
+                break;
+            default:
+                // Document type and entity nodes are not produced by SAML object marshallers.
+                break;
+        }
+    }
+
+    private static void writeElement(Element element, XMLStreamWriter writer, Deque<Map<String, String>> namespaces)
+            throws XMLStreamException {
+
+        String prefix = StringUtils.defaultString(element.getPrefix());
+        String namespaceURI = StringUtils.defaultString(element.getNamespaceURI());
+        writer.writeStartElement(prefix, getLocalName(element), namespaceURI);
+
+        Map<String, String> declaredNamespaces = new HashMap<>();
+        namespaces.push(declaredNamespaces);
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                if (XMLConstants.XMLNS_ATTRIBUTE.equals(attribute.getName())) {
+                    writeNamespace(XMLConstants.DEFAULT_NS_PREFIX, attribute.getValue(), writer, namespaces);
+                } else {
+                    writeNamespace(attribute.getLocalName(), attribute.getValue(), writer, namespaces);
+                }
+            }
+        }
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                continue;
+            }
+            if (attribute.getNamespaceURI() == null) {
+                writer.writeAttribute(getLocalName(attribute), attribute.getValue());
+            } else {
+                String attributePrefix = StringUtils.defaultString(attribute.getPrefix());
+                if (!attribute.getNamespaceURI().equals(getNamespaceURI(attributePrefix, namespaces))) {
+                    writeNamespace(attributePrefix, attribute.getNamespaceURI(), writer, namespaces);
+                }
+                writer.writeAttribute(attributePrefix, attribute.getNamespaceURI(), getLocalName(attribute),
+                        attribute.getValue());
+            }
+        }
+        // As the Transformer does, the namespace of the element is declared after the attributes if not in scope.
+        if (!namespaceURI.equals(getNamespaceURI(prefix, namespaces))) {
+            writeNamespace(prefix, namespaceURI, writer, namespaces);
+        }
+
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeNode(child, writer, namespaces);
+        }
+        writer.writeEndElement();
+        namespaces.pop();
+    }
+
+    private static void writeNamespace(String prefix, String namespaceURI, XMLStreamWriter writer,
+                                       Deque<Map<String, String>> namespaces) throws XMLStreamException {
+
+        if (prefix.isEmpty()) {
+            writer.writeDefaultNamespace(namespaceURI);
+        } else {
+            writer.writeNamespace(prefix, namespaceURI);
+        }
+        namespaces.peek().put(prefix, namespaceURI);
+    }
+
+    private static String getNamespaceURI(String prefix, Deque<Map<String, String>> namespaces) {
+
+        for (Map<String, String> declaredNamespaces : namespaces) {
+            String namespaceURI = declaredNamespaces.get(prefix);
+            if (namespaceURI != null) {
+                return namespaceURI;
+            }
+        }
+        // The default namespace is initially empty and the xml prefix is always bound. Other prefixes are unbound.
+        if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+            return XMLConstants.XML_NS_URI;
+        }
+        return prefix.isEmpty() ? XMLConstants.NULL_NS_URI : null;
+    }
+
+    private static String getLocalName(Node node) {
+
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2;
+
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.base.IdentityConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link MetadataConfiguration}.
+ */
+public class MetadataConfigurationTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+
+    private MockedStatic<IdentityUtil> identityUtil;
+
+    @BeforeMethod
+    public void setUp() {
+
+        identityUtil = mockStatic(IdentityUtil.class);
+        MetadataConfiguration.reload(null);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        MetadataConfiguration.reload(null);
+        identityUtil.close();
+    }
+
+    @Test
+    public void testDefaultConfiguration() {
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+
+        assertTrue(configuration.isCacheEnabled());
+        assertTrue(configuration.isTemplateEnabled());
+        assertFalse(configuration.isStreamingSigningEnabled());
+        assertEquals(configuration.getLoadTimeout(), 30000);
+        assertEquals(configuration.getCredentialTimeToLive(), 900000);
+    }
+
+    @Test
+    public void testReloadReadsUpdatedConfiguration() {
+
+        setProperty(IDPMetadataConstant.SAML_METADATA_CACHE_ENABLED, "false");
+        setProperty(IDPMetadataConstant.SAML_METADATA_TEMPLATE_ENABLED, "false");
+        setProperty(IDPMetadataConstant.SAML_METADATA_CACHE_LOAD_TIMEOUT, "10");
+        assertTrue(MetadataConfiguration.getInstance().isCacheEnabled());
+
+        MetadataConfiguration.reload(null);
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        assertFalse(configuration.isCacheEnabled());
+        assertFalse(configuration.isTemplateEnabled());
+        assertEquals(configuration.getLoadTimeout(), 10000);
+    }
+
+    @Test
+    public void testComponentPropertiesOverrideConfiguration() {
+
+        setProperty(IDPMetadataConstant.SAML_METADATA_CACHE_LOAD_TIMEOUT, "10");
+        setProperty(IDPMetadataConstant.SAML_METADATA_SIGNING_CREDENTIAL_CACHE_TTL, "60");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(IDPMetadataConstant.SAML_METADATA_CACHE_LOAD_TIMEOUT, 5);
+        properties.put(IDPMetadataConstant.SAML_METADATA_SIGNING_CREDENTIAL_CACHE_TTL, "-1");
+        properties.put("component.name", "identity.provider.saml.service.component");
+
+        MetadataConfiguration.reload(properties);
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        assertEquals(configuration.getLoadTimeout(), 5000);
+        assertEquals(configuration.getCredentialTimeToLive(), 900000);
+    }
+
+    @Test
+    public void testComponentPropertiesDoNotOverrideKeyStores() {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_LOCATION, "/tmp/other.p12");
+        properties.put(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_PASSWORD, "other");
+
+        MetadataConfiguration.reload(properties);
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        assertNull(configuration.getSignKeyStoreLocation());
+        assertNull(configuration.getSignKeyStorePassword());
+        assertFalse(configuration.isSignKeyStoreConfigured());
+    }
+
+    @Test
+    public void testRefreshAndValidationConfiguration() {
+
+        setProperty(IDPMetadataConstant.SAML_METADATA_REFRESH_AHEAD_INTERVAL, "30");
+        setProperty(IDPMetadataConstant.SAML_METADATA_REFRESH_AHEAD_FACTOR, "1.5");
+        setProperty(IDPMetadataConstant.SAML_METADATA_SIGNATURE_VALIDATION_ENABLED, "true");
+        setProperty(IDPMetadataConstant.SAML_METADATA_SIGNING_MAX_CONCURRENCY, "2");
+
+        MetadataConfiguration.reload(null);
+
+        MetadataConfiguration configuration = MetadataConfiguration.getInstance();
+        assertEquals(configuration.getRefreshInterval(), 30000);
+        assertEquals(configuration.getRefreshAheadFactor(), 0.75);
+        assertTrue(configuration.isSignatureValidationEnabled());
+        assertFalse(configuration.isCertificateValidationEnabled());
+        assertEquals(configuration.getSigningMaxConcurrency(), 2);
+        assertEquals(configuration.getSigningMaxQueueSize(), 8);
+        assertEquals(configuration.getRootTenantCacheTimeToLive(), 900000);
+    }
+
+    @Test
+    public void testMetadataConfigurationChangeRotatesCredentials() {
+
+        long generation = SigningCredentialCache.getInstance().getGeneration(TENANT_DOMAIN);
+
+        MetadataConfiguration.reload(Collections.singletonMap(IDPMetadataConstant.SAML_METADATA_TEMPLATE_ENABLED,
+                "false"));
+        assertEquals(SigningCredentialCache.getInstance().getGeneration(TENANT_DOMAIN), generation);
+
+        MetadataConfiguration.reload(Collections.singletonMap(
+                IdentityConstants.ServerConfig.SAML_METADATA_IDP_ENABLE_SHA256_ALGO, "true"));
+        assertTrue(MetadataConfiguration.getInstance().isSha256Enabled());
+        assertTrue(SigningCredentialCache.getInstance().getGeneration(TENANT_DOMAIN) > generation);
+    }
+
+    private void setProperty(final String name, String value) {
+
+        identityUtil.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() {
+
+                IdentityUtil.getProperty(name);
+            }
+        }).thenReturn(value);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2;
+
+import org.apache.xml.security.signature.XMLSignature;
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.base.IdentityConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link SignKeyDataHolder}, using a sign key store of the super tenant.
+ */
+public class SignKeyDataHolderTest {
+
+    private static final String KEY_ALIAS = "wso2carbon";
+    private static final String PASSWORD = "wso2carbon";
+    private static final String EC_P256_CERTIFICATE =
+            "MIIBejCCASCgAwIBAgIJAPhDy29oVQBpMAoGCCqGSM49BAMCMDAxCzAJBgNVBAYTAlVTMQ0wCwYDVQQKEwRXU08yMRIwEAYD" +
+            "VQQDEwlsb2NhbGhvc3QwIBcNMjYxMDE3MDUwOTE1WhgPMjEyNjA5MjMwNTA5MTVaMDAxCzAJBgNVBAYTAlVTMQ0wCwYDVQQK" +
+            "EwRXU08yMRIwEAYDVQQDEwlsb2NhbGhvc3QwWTATBgcqhkjOPQIBBggqhkjOPQMBBwNCAAREcv0WnqpE9i5rAUf54GzNDsYv" +
+            "BPuFeZ/6gDiQc7bSVqLMGeU6kuXG7Dzrns3v22oTW4XTxts+qrBGLBUm3i2loyEwHzAdBgNVHQ4EFgQUxSYVd9NBvUPoStiT" +
+            "C7R/OFNl1rQwCgYIKoZIzj0EAwIDSAAwRQIgZ07wHtOYpqx6ticqGILTiujPo3sf0ZLerOikzbFuyTcCIQC1tqoFPxjuODRS" +
+            "601vVs/2VVtkK/75v+OYKIDmQ9yz4A==";
+    private static final String EC_P256_PRIVATE_KEY =
+            "MEECAQAwEwYHKoZIzj0CAQYIKoZIzj0DAQcEJzAlAgEBBCCLqesfMR7nYvpLgQQ1NspUqBJ8VE5Vs3IvwBLtWGnUZA==";
+    private static final String EC_P384_CERTIFICATE =
+            "MIIBtjCCAT2gAwIBAgIJAJ/Y1Dd41xb+MAoGCCqGSM49BAMCMDAxCzAJBgNVBAYTAlVTMQ0wCwYDVQQKEwRXU08yMRIwEAYD" +
+            "VQQDEwlsb2NhbGhvc3QwIBcNMjYxMDE3MDUwOTE2WhgPMjEyNjA5MjMwNTA5MTZaMDAxCzAJBgNVBAYTAlVTMQ0wCwYDVQQK" +
+            "EwRXU08yMRIwEAYDVQQDEwlsb2NhbGhvc3QwdjAQBgcqhkjOPQIBBgUrgQQAIgNiAARbUEnQSG7iNciArKM87YNTIr203nQW" +
+            "XC5qn/plXe1eaI+ef8TzMLy0QmQ8ZlR5LS90eTWzRFfCNvqe8+FogrZpACPj5VZsr5QV/RJTAb33vm4p1y6zW/F+4v0j2oYf" +
+            "bGOjITAfMB0GA1UdDgQWBBT0fIMO/GhvyNoVjzIODdGqA7eRbDAKBggqhkjOPQQDAgNnADBkAjBsGXUpU11opZiGbQvCFmRv" +
+            "akk2612UaiiEd/dBncVJC0ugqL2Dg3da3Rw15czt0iwCMHt9rcbSVa3Aw8N/gH/wksZAhfbpbBidoZuv+mLTItFr1lyqaf0X" +
+            "E88MySZRQ8Uwcg==";
+    private static final String EC_P384_PRIVATE_KEY =
+            "ME4CAQAwEAYHKoZIzj0CAQYFK4EEACIENzA1AgEBBDB0In8tTGLdw4xK7jBPP0jFAhKTz4Pqw7vcRbM/21M5Nvj5VkqzxA1h" +
+            "rrfosQRG4ws=";
+
+    private MockedStatic<IdentityUtil> identityUtil;
+    private MockedStatic<ServerConfiguration> serverConfigurationStatic;
+    private ServerConfiguration serverConfiguration;
+    private File keyStoreFile;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        identityUtil = mockStatic(IdentityUtil.class);
+        serverConfiguration = mock(ServerConfiguration.class);
+        serverConfigurationStatic = mockStatic(ServerConfiguration.class);
+        serverConfigurationStatic.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() {
+
+                ServerConfiguration.getInstance();
+            }
+        }).thenReturn(serverConfiguration);
+        keyStoreFile = File.createTempFile("saml-sign", ".p12");
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        PrivilegedCarbonContext.endTenantFlow();
+        MetadataConfiguration.reload(null);
+        SuperTenantSignKeyStore.getInstance().stopWatching();
+        SuperTenantSignKeyStore.getInstance().invalidate();
+        serverConfigurationStatic.close();
+        identityUtil.close();
+        Files.deleteIfExists(keyStoreFile.toPath());
+    }
+
+    @DataProvider(name = "signingKeys")
+    public Object[][] getSigningKeys() {
+
+        return new Object[][]{
+                {"RSA", SuperTenantSignKeyStoreTest.PRIVATE_KEY, SuperTenantSignKeyStoreTest.CERTIFICATE, false,
+                        XMLSignature.ALGO_ID_SIGNATURE_RSA},
+                {"RSA", SuperTenantSignKeyStoreTest.PRIVATE_KEY, SuperTenantSignKeyStoreTest.CERTIFICATE, true,
+                        XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256},
+                {"EC", EC_P256_PRIVATE_KEY, EC_P256_CERTIFICATE, false, XMLSignature.ALGO_ID_SIGNATURE_ECDSA_SHA256},
+                {"EC", EC_P384_PRIVATE_KEY, EC_P384_CERTIFICATE, true, XMLSignature.ALGO_ID_SIGNATURE_ECDSA_SHA384}
+        };
+    }
+
+    @Test(dataProvider = "signingKeys")
+    public void testSignatureAlgorithmMatchesKey(String keyAlgorithm, String privateKey, String certificate,
+                                                 boolean sha256Enabled, String signatureAlgorithm) throws Exception {
+
+        configure(keyAlgorithm, privateKey, certificate, sha256Enabled);
+
+        assertEquals(new SignKeyDataHolder().getSignatureAlgorithm(), signatureAlgorithm);
+    }
+
+    @Test(dataProvider = "signingKeys")
+    public void testEntityCertificateIsEncoded(String keyAlgorithm, String privateKey, String certificate,
+                                               boolean sha256Enabled, String signatureAlgorithm) throws Exception {
+
+        configure(keyAlgorithm, privateKey, certificate, sha256Enabled);
+
+        SignKeyDataHolder credential = new SignKeyDataHolder();
+        assertEquals(credential.getEntityCertificate(), getCertificate(certificate));
+        // Line breaks of the encoder are insignificant in the base64 content of the X509Certificate element.
+        assertEquals(credential.getEncodedEntityCertificate().replaceAll("\\s", ""), certificate);
+    }
+
+    private void configure(String keyAlgorithm, String privateKey, String certificate, boolean sha256Enabled)
+            throws Exception {
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry(KEY_ALIAS, KeyFactory.getInstance(keyAlgorithm).generatePrivate(
+                new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey))), PASSWORD.toCharArray(),
+                new Certificate[]{getCertificate(certificate)});
+        try (OutputStream out = new FileOutputStream(keyStoreFile)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_LOCATION))
+                .thenReturn(keyStoreFile.getAbsolutePath());
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_TYPE))
+                .thenReturn("PKCS12");
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_PASSWORD))
+                .thenReturn(PASSWORD);
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_KEY_ALIAS))
+                .thenReturn(KEY_ALIAS);
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_KEY_PASSWORD))
+                .thenReturn(PASSWORD);
+        MetadataConfiguration.reload(Collections.singletonMap(
+                IdentityConstants.ServerConfig.SAML_METADATA_IDP_ENABLE_SHA256_ALGO, String.valueOf(sha256Enabled)));
+        SuperTenantSignKeyStore.getInstance().stopWatching();
+        SuperTenantSignKeyStore.getInstance().invalidate();
+    }
+
+    private static Certificate getCertificate(String certificate) throws Exception {
+
+        return CertificateFactory.getInstance("X.509").generateCertificate(
+                new ByteArrayInputStream(Base64.getDecoder().decode(certificate)));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2;
+
+import org.apache.xml.security.signature.XMLSignature;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link StreamingMetadataSigner}, verifying the streamed signatures with the DOM signature API.
+ */
+public class StreamingMetadataSignerTest {
+
+    private static final String MD_NS = "urn:oasis:names:tc:SAML:2.0:metadata";
+    private static final String ENTITY_ID = "https://localhost:9443/samlsso";
+
+    private X509Certificate certificate;
+    private SignKeyDataHolder credential;
+
+    @BeforeClass
+    public void setUpClass() {
+
+        BuilderUtil.initXMLSecurity();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        certificate = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(
+                new ByteArrayInputStream(Base64.getDecoder().decode(SuperTenantSignKeyStoreTest.CERTIFICATE)));
+        credential = mock(SignKeyDataHolder.class);
+        when(credential.getPrivateKey()).thenReturn(KeyFactory.getInstance("RSA").generatePrivate(
+                new PKCS8EncodedKeySpec(Base64.getDecoder().decode(SuperTenantSignKeyStoreTest.PRIVATE_KEY))));
+        when(credential.getEntityCertificateChain()).thenReturn(Collections.singletonList(certificate));
+        when(credential.getSignatureAlgorithm()).thenReturn(XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256);
+    }
+
+    @Test
+    public void testSignatureIsFirstChildOfDescriptor() throws Exception {
+
+        Element descriptor = parse(new StreamingMetadataSigner(credential).sign(createDocument()));
+
+        Element signature = getFirstChildElement(descriptor);
+        assertEquals(signature.getNamespaceURI(), ConfigElements.XMLSIGNATURE_NS);
+        assertEquals(signature.getLocalName(), "Signature");
+    }
+
+    @Test
+    public void testSignedMetadataIsValid() throws Exception {
+
+        String metadata = new StreamingMetadataSigner(credential).sign(createDocument());
+
+        assertTrue(isSignatureValid(metadata));
+    }
+
+    @Test
+    public void testModifiedSignedMetadataIsNotValid() throws Exception {
+
+        String metadata = new StreamingMetadataSigner(credential).sign(createDocument());
+
+        assertFalse(isSignatureValid(metadata.replace(ENTITY_ID, "https://wso2.com/samlsso")));
+    }
+
+    @Test
+    public void testOutputStreamIsNotClosed() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+
+            @Override
+            public void close() {
+
+                throw new IllegalStateException("The output stream is closed.");
+            }
+        };
+        new StreamingMetadataSigner(credential).sign(createDocument(), out);
+        out.write('\n');
+    }
+
+    private boolean isSignatureValid(String metadata) throws Exception {
+
+        Element descriptor = parse(metadata);
+        // The reference may point to the descriptor by its ID.
+        for (String idAttribute : new String[]{"ID", "Id"}) {
+            if (descriptor.hasAttributeNS(null, idAttribute)) {
+                descriptor.setIdAttributeNS(null, idAttribute, true);
+            }
+        }
+        return new XMLSignature(getFirstChildElement(descriptor), "").checkSignatureValue(certificate);
+    }
+
+    private static Document createDocument() throws Exception {
+
+        Document document = newDocumentBuilderFactory().newDocumentBuilder().newDocument();
+        Element descriptor = document.createElementNS(MD_NS, "md:EntityDescriptor");
+        descriptor.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:md", MD_NS);
+        descriptor.setAttributeNS(null, "entityID", ENTITY_ID);
+        document.appendChild(descriptor);
+        Element idpDescriptor = document.createElementNS(MD_NS, "md:IDPSSODescriptor");
+        idpDescriptor.setAttributeNS(null, "protocolSupportEnumeration", "urn:oasis:names:tc:SAML:2.0:protocol");
+        descriptor.appendChild(idpDescriptor);
+        return document;
+    }
+
+    private static Element parse(String metadata) throws Exception {
+
+        return newDocumentBuilderFactory().newDocumentBuilder().parse(new ByteArrayInputStream(
+                metadata.getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+    }
+
+    private static Element getFirstChildElement(Element element) {
+
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                return (Element) child;
+            }
+        }
+        throw new AssertionError("Element " + element.getLocalName() + " has no child elements.");
+    }
+
+    private static DocumentBuilderFactory newDocumentBuilderFactory() {
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory;
+    }
+}
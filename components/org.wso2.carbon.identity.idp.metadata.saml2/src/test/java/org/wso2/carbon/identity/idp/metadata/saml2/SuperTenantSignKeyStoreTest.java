@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2;
+
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.SigningKey;
+import org.wso2.carbon.idp.mgt.MetadataException;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for {@link SuperTenantSignKeyStore}.
+ */
+public class SuperTenantSignKeyStoreTest {
+
+    private static final String KEY_ALIAS = "wso2carbon";
+    private static final String PASSWORD = "wso2carbon";
+    static final String CERTIFICATE =
+            "MIIDLjCCAhagAwIBAgIJAP/KxDfh8LmTMA0GCSqGSIb3DQEBCwUAMDcxCzAJBgNVBAYTAlVTMQ0wCwYDVQQKEwRXU08yMRkw" +
+            "FwYDVQQDExBNZXRhZGF0YSBUZXN0IENBMCAXDTI2MTAxNzA1MDUxMloYDzIxMjYwOTIzMDUwNTEyWjAwMQswCQYDVQQGEwJV" +
+            "UzENMAsGA1UEChMEV1NPMjESMBAGA1UEAxMJbG9jYWxob3N0MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEAxicC" +
+            "6ay5Pn+z2nO5mz8GQvniyEuCOFK1vT9W5zQua31OX56OnfKVf6RDnL0xPo65Ed3eKtypwl/sFHEH5qj7fOf1UvNw7/Ex0vCF" +
+            "KnP8e8k6VUn1VOlm6q2RzNmyiefh+ScsYC1s8v1TRhl7qbfJP+7gasjZYpS+q9o8r28D29tE5+UxetdFIMPELWAJzFzHu+Ty" +
+            "d0ru6LlJLtwPFBY8cyo9CGcUQkXVqUjmLUL1Ecl4AgwMeEW2FN+twleTxDJK5f0Jlq5KLNDbX9UCOGWwk/eoQjFddo/3gce9" +
+            "Zyrgq97uuKcrX4EkQ94YlmgJnF3KaFu6cCQGSCjmkPAz4WTzuwIDAQABo0IwQDAdBgNVHQ4EFgQUJJfXbVKVGkNNrSGQJb47" +
+            "F4MK3HIwHwYDVR0jBBgwFoAU3DTW+SiQ+aw4NL5oheSeVkLGLYMwDQYJKoZIhvcNAQELBQADggEBAKFHdpFpNdFwVyRNBGLV" +
+            "xlN1w+9Clqe1eoSQlBsrPsaERQXOiTPMGLXUdaBbBatgVW0gj/y9cruey0HOz5M+/r62zxaPYFRV+PuJyeL3bBMgh4b53lBJ" +
+            "yLJTghDrwI2Gp79wlvq+fHSYjkyGkvWRTEFSYzqnMrq4/EyYJjD0qHHJ1hW7MRj6mtk6q5CG+vd0ONE/jMo3F+3PRW2XV5b/" +
+            "Tcx6t+nfxGQ9sodiFEHVELq0dOXLNCp52e/3jCiUaiTbY1myzvmDlmZsb76twmThfi0T7mjPzeNVjXTrhC5C+EcYBitBx5t1" +
+            "wnuBrccS+cc5CizH1OzmLenpLUOEkwJplaI=";
+
+    static final String PRIVATE_KEY =
+            "MIIEvAIBADANBgkqhkiG9w0BAQEFAASCBKYwggSiAgEAAoIBAQDGJwLprLk+f7Pac7mbPwZC+eLIS4I4UrW9P1bnNC5rfU5f" +
+            "no6d8pV/pEOcvTE+jrkR3d4q3KnCX+wUcQfmqPt85/VS83Dv8THS8IUqc/x7yTpVSfVU6WbqrZHM2bKJ5+H5JyxgLWzy/VNG" +
+            "GXupt8k/7uBqyNlilL6r2jyvbwPb20Tn5TF610Ugw8QtYAnMXMe75PJ3Su7ouUku3A8UFjxzKj0IZxRCRdWpSOYtQvURyXgC" +
+            "DAx4RbYU363CV5PEMkrl/QmWrkos0Ntf1QI4ZbCT96hCMV12j/eBx71nKuCr3u64pytfgSRD3hiWaAmcXcpoW7pwJAZIKOaQ" +
+            "8DPhZPO7AgMBAAECggEAAuMwpK0Sqfl8anODQeLiOXmgt2B6Tk3OPiq9HnNhNcnGqZgK5fxR92EyZwdOv2WfBsaf5SoAA0gY" +
+            "jZe0EMVnnMNYjNPlUmnGWxeMKTk1daxSAEoqnAkmqcbLuBt4AZByd4n9mI0w6D2OyBe4+JkoApl9hbDVkh0uxhxRBBFvEfYS" +
+            "cOo/et7jG//WBvCCRJYzJbVMNt4d7u06Zi1YxZp5utNYj/Xdy7md35nZd1FtzLy6LBWegGnmGhHjGDbT2gtXa1VbS6VR0NlJ" +
+            "07g89ZO2zPUrNPPIk3bAC4BfdFofF5dfaP4onbA3VLjqOE+Aql0Mpkj/T83qjtBFI7PZZVxRQQKBgQDuRHFV7x8aNtjcjB0q" +
+            "ClcDVko27VspoRXDNl+weUZkIFcTpG+clNsYYiGscFsBri9q45SCanKhoVEwNd5lc1ixj7cHFbsQ+giFcTWhgoajSRXOqW/z" +
+            "wiPR7+lY8qj1r3xLtvtLcz0e2n17Bu5qyd7XTA5YzQmmxJYKfV0UZBoPYQKBgQDU5kiX9k9cRImXRXCoPkc+7R/7Bn880vz4" +
+            "Doj7b1HEI1uAbcUjFD4Um6rTj6Gvyu7Ii5/cEorVMmuZIc4joK5RDBSEg3dBMfNQCFbRnUwNYWhfmH1zjonD7W8oe5c+bi/4" +
+            "9OuCrZWBzyzlEqHWFD9qTw+RIy0KV6hROi3E0/QkmwKBgCQzJ9j7hIkyDg6sBv5NJd0u7gWcWD5h5/GJwE4KjuRFeZVVZVOv" +
+            "1f3FYwJU6668rR2bSAPsclAWN0SQ2qIlPTN090TPS2WP512GzrQkJZqHTxXf7k9ljpWl0pkd/Qeeys6iFVnoP0AByBC6A90b" +
+            "oIyrVH6vYCkDMxyS4WJotwDhAoGAYYs9GXr9821niQqEymD2batharcYVvrocpLeSi0/zljQ1K/2kdL1eqW0CAiX8R5Od04Z" +
+            "qVBJkdLvH5MwinxVQccCI5DEc/d53mJjvNiP/tVxZ9NLL0XQcxd3RZoSusTrb+pveUkk5fvROwdlZNuUDpY4sKvoOAPfl4/L" +
+            "ZpIiGx8CgYA8CX22Q+cu25GJ2QYgVvXZnQtX3+l8vLZ4d6V3R9EbSn8DL4MLsPIuZl0bvFcplrmw/VJDxRP2UMjfaL92XTeG" +
+            "3ZqVggernHPA0YLZAIlbvrW337bUrZkwavSm9+Uq9mG38DlbDAMnrzvPHpl7SSC2yZHs+zqNc3i5Md2xAl+jdw==";
+
+    private MockedStatic<IdentityUtil> identityUtil;
+    private MockedStatic<ServerConfiguration> serverConfigurationStatic;
+    private ServerConfiguration serverConfiguration;
+    private File keyStoreFile;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        identityUtil = mockStatic(IdentityUtil.class);
+        serverConfiguration = mock(ServerConfiguration.class);
+        serverConfigurationStatic = mockStatic(ServerConfiguration.class);
+        serverConfigurationStatic.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() {
+
+                ServerConfiguration.getInstance();
+            }
+        }).thenReturn(serverConfiguration);
+        keyStoreFile = File.createTempFile("saml-sign", ".p12");
+        writeKeyStore(KEY_ALIAS);
+        configure();
+        SuperTenantSignKeyStore.getInstance().invalidate();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        MetadataConfiguration.reload(null);
+        SuperTenantSignKeyStore.getInstance().stopWatching();
+        SuperTenantSignKeyStore.getInstance().invalidate();
+        serverConfigurationStatic.close();
+        identityUtil.close();
+        Files.deleteIfExists(keyStoreFile.toPath());
+    }
+
+    @Test
+    public void testSigningKeyIsLoadedOnce() throws Exception {
+
+        SigningKey signingKey = SuperTenantSignKeyStore.getInstance().getSigningKey();
+
+        assertEquals(signingKey.getPrivateKey(), getPrivateKey());
+        assertEquals(signingKey.getCertificateChain(), new Certificate[]{getCertificate()});
+        assertSame(SuperTenantSignKeyStore.getInstance().getSigningKey(), signingKey);
+    }
+
+    @Test
+    public void testReloadReplacesSigningKey() throws Exception {
+
+        SigningKey signingKey = SuperTenantSignKeyStore.getInstance().getSigningKey();
+        long generation = getSuperTenantGeneration();
+
+        SuperTenantSignKeyStore.getInstance().reload();
+
+        assertNotSame(SuperTenantSignKeyStore.getInstance().getSigningKey(), signingKey);
+        assertEquals(SuperTenantSignKeyStore.getInstance().getSigningKey().getPrivateKey(), getPrivateKey());
+        assertEquals(getSuperTenantGeneration(), generation + 1);
+    }
+
+    @Test
+    public void testInvalidKeyStoreKeepsSigningKey() throws Exception {
+
+        SigningKey signingKey = SuperTenantSignKeyStore.getInstance().getSigningKey();
+        long generation = getSuperTenantGeneration();
+        Files.write(keyStoreFile.toPath(), "partially written".getBytes(StandardCharsets.UTF_8));
+
+        SuperTenantSignKeyStore.getInstance().reload();
+
+        assertSame(SuperTenantSignKeyStore.getInstance().getSigningKey(), signingKey);
+        assertEquals(getSuperTenantGeneration(), generation);
+    }
+
+    @Test
+    public void testInvalidatedSigningKeyIsLoadedAgain() throws Exception {
+
+        SigningKey signingKey = SuperTenantSignKeyStore.getInstance().getSigningKey();
+
+        SuperTenantSignKeyStore.getInstance().invalidate();
+
+        assertNotSame(SuperTenantSignKeyStore.getInstance().getSigningKey(), signingKey);
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testKeyStoreWithoutKeyAliasIsRejected() throws Exception {
+
+        writeKeyStore("other");
+
+        SuperTenantSignKeyStore.getInstance().getSigningKey();
+    }
+
+    private void configure() {
+
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_LOCATION))
+                .thenReturn(keyStoreFile.getAbsolutePath());
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_TYPE))
+                .thenReturn("PKCS12");
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_PASSWORD))
+                .thenReturn(PASSWORD);
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_KEY_ALIAS))
+                .thenReturn(KEY_ALIAS);
+        when(serverConfiguration.getFirstProperty(SignKeyDataHolder.SECURITY_SAML_SIGN_KEY_STORE_KEY_PASSWORD))
+                .thenReturn(PASSWORD);
+        MetadataConfiguration.reload(null);
+        // Reloads are triggered explicitly by the tests.
+        SuperTenantSignKeyStore.getInstance().stopWatching();
+    }
+
+    private void writeKeyStore(String keyAlias) throws Exception {
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry(keyAlias, getPrivateKey(), PASSWORD.toCharArray(), new Certificate[]{getCertificate()});
+        try (OutputStream out = new FileOutputStream(keyStoreFile)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+    }
+
+    private static long getSuperTenantGeneration() {
+
+        return SigningCredentialCache.getInstance().getGeneration(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    private static Certificate getCertificate() throws Exception {
+
+        return CertificateFactory.getInstance("X.509").generateCertificate(
+                new ByteArrayInputStream(Base64.getDecoder().decode(CERTIFICATE)));
+    }
+
+    private static PrivateKey getPrivateKey() throws Exception {
+
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(
+                Base64.getDecoder().decode(PRIVATE_KEY)));
+    }
+}
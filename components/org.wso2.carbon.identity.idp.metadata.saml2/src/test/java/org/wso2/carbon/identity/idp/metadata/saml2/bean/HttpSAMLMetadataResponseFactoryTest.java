@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.bean;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityResponse;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityMessageContext;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataHttpUtil;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link HttpSAMLMetadataResponseFactory}.
+ */
+public class HttpSAMLMetadataResponseFactoryTest {
+
+    private static final String METADATA = "<md:EntityDescriptor entityID=\"\u00e9\"/>";
+    private static final String ETAG = "\"b5d1f1e2\"";
+    private static final long LAST_MODIFIED = 1700000000000L;
+
+    private final HttpSAMLMetadataResponseFactory factory = new HttpSAMLMetadataResponseFactory();
+
+    @Test
+    public void testMetadataResponseCarriesValidators() {
+
+        HttpIdentityResponse response = factory.create(createResponse(false, 0)).build();
+
+        assertEquals(response.getStatusCode(), HttpServletResponse.SC_OK);
+        assertEquals(response.getBody(), METADATA);
+        assertEquals(response.getContentType(), "application/xml; charset=UTF-8");
+        assertEquals(response.getHeaders().get(MetadataHttpUtil.HEADER_ETAG), ETAG);
+        assertEquals(response.getHeaders().get(MetadataHttpUtil.HEADER_LAST_MODIFIED),
+                "Tue, 14 Nov 2023 22:13:20 GMT");
+        assertEquals(response.getHeaders().get(MetadataHttpUtil.HEADER_CONTENT_LENGTH), "36");
+    }
+
+    @Test
+    public void testMetadataIsNotCompressed() {
+
+        HttpIdentityResponse response = factory.create(createResponse(false, 0)).build();
+
+        // Compression is left to the servlet container, which compresses the UTF-8 encoded body.
+        assertFalse(response.getHeaders().containsKey("Content-Encoding"));
+        assertFalse(response.getHeaders().containsKey("Vary"));
+        assertEquals(response.getContentType(), "application/xml; charset=UTF-8");
+    }
+
+    @Test
+    public void testNotModifiedResponseHasNoBody() {
+
+        HttpIdentityResponse response = factory.create(createResponse(true, 0)).build();
+
+        assertEquals(response.getStatusCode(), HttpServletResponse.SC_NOT_MODIFIED);
+        assertNull(response.getBody());
+        assertNull(response.getHeaders().get(MetadataHttpUtil.HEADER_CONTENT_LENGTH));
+        // The validators are repeated, so that caches can update the stored response.
+        assertEquals(response.getHeaders().get(MetadataHttpUtil.HEADER_ETAG), ETAG);
+        assertEquals(response.getHeaders().get(MetadataHttpUtil.HEADER_LAST_MODIFIED),
+                "Tue, 14 Nov 2023 22:13:20 GMT");
+    }
+
+    @Test
+    public void testCacheLifetimeIsRemainingValidity() {
+
+        long expiryTime = System.currentTimeMillis() + 600000;
+        HttpIdentityResponse response = factory.create(createResponse(false, expiryTime)).build();
+
+        String cacheControl = response.getHeaders().get(MetadataHttpUtil.HEADER_CACHE_CONTROL);
+        assertTrue(cacheControl.startsWith("public, max-age="), cacheControl);
+        long maxAge = Long.parseLong(cacheControl.substring("public, max-age=".length()));
+        assertTrue(maxAge > 590 && maxAge <= 600, cacheControl);
+        assertEquals(response.getHeaders().get(MetadataHttpUtil.HEADER_EXPIRES),
+                MetadataHttpUtil.formatHttpDate(expiryTime));
+    }
+
+    @Test
+    public void testExpiredMetadataIsNotCacheable() {
+
+        HttpIdentityResponse response = factory.create(createResponse(false, LAST_MODIFIED + 1000)).build();
+
+        assertEquals(response.getHeaders().get(MetadataHttpUtil.HEADER_CACHE_CONTROL), "public, max-age=0");
+    }
+
+    @Test
+    public void testNotModifiedResponseCarriesCacheLifetime() {
+
+        HttpIdentityResponse response = factory.create(createResponse(true,
+                System.currentTimeMillis() + 600000)).build();
+
+        assertNotNull(response.getHeaders().get(MetadataHttpUtil.HEADER_CACHE_CONTROL));
+        assertNotNull(response.getHeaders().get(MetadataHttpUtil.HEADER_EXPIRES));
+    }
+
+    @Test
+    public void testNoCacheLifetimeWithoutValidity() {
+
+        HttpIdentityResponse response = factory.create(createResponse(false, 0)).build();
+
+        assertNull(response.getHeaders().get(MetadataHttpUtil.HEADER_CACHE_CONTROL));
+        assertNull(response.getHeaders().get(MetadataHttpUtil.HEADER_EXPIRES));
+    }
+
+    SAMLMetadataResponse createResponse(boolean notModified, long expiryTime) {
+
+        SAMLMetadataResponse.SAMLMetadataResponseBuilder builder = new SAMLMetadataResponse
+                .SAMLMetadataResponseBuilder(new IdentityMessageContext(mock(IdentityRequest.class)));
+        builder.setMetadata(METADATA);
+        builder.setContentLength(36);
+        builder.setETag(ETAG);
+        builder.setLastModified(LAST_MODIFIED);
+        builder.setExpiryTime(expiryTime);
+        builder.setNotModified(notModified);
+        return (SAMLMetadataResponse) builder.build();
+    }
+}
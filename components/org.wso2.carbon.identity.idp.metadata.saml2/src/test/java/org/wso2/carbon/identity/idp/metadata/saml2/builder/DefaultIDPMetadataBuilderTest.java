@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.builder;
+
+import org.mockito.MockedConstruction;
+import org.mockito.MockedStatic;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants.Authenticator.SAML2SSO;
+import org.wso2.carbon.identity.idp.metadata.saml2.IDPMetadataConstant;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.SignKeyDataHolder;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.BuilderUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.XMLProcessorPool;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilder;
+
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link DefaultIDPMetadataBuilder}, checking that the metadata rendered from templates is the
+ * metadata built through OpenSAML, across tenants, signing certificates and bindings.
+ */
+public class DefaultIDPMetadataBuilderTest {
+
+    private static final String CERTIFICATE = "MIIDSTCCAjGgAwIBAgIEAoLQ/TANBgkqhkiG9w0BAQsFADBVMQswCQYDVQQG";
+    private static final String OTHER_CERTIFICATE = "MIIDqTCCApGgAwIBAgIEXbABozANBgkqhkiG9w0BAQsFADBkMQswCQYDVQQG" +
+            "\nEwJVUzELMAkGA1UECAwCQ0ExFjAUBgNVBAcMDU1vdW50YWluIFZpZXcxDTAL";
+
+    private volatile String certificate;
+    private MockedConstruction<SignKeyDataHolder> credentials;
+    private MockedStatic<SignKeyDataHolder> signKeyDataHolder;
+
+    @BeforeClass
+    public void setUpClass() {
+
+        System.setProperty("carbon.home", Paths.get(System.getProperty("user.dir"), "src", "test",
+                "resources").toString());
+        BuilderUtil.doBootstrap();
+        BuilderUtil.initXMLSecurity();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        SigningCredentialCache.getInstance().clear();
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        credentials = mockConstruction(SignKeyDataHolder.class,
+                new MockedConstruction.MockInitializer<SignKeyDataHolder>() {
+
+                    @Override
+                    public void prepare(SignKeyDataHolder credential, MockedConstruction.Context context) {
+
+                        when(credential.getEncodedEntityCertificate()).thenReturn(certificate);
+                    }
+                });
+        signKeyDataHolder = mockStatic(SignKeyDataHolder.class);
+        signKeyDataHolder.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() throws Throwable {
+
+                // The certificate is not read from a key store, so the mocked certificate reader returns null.
+                SignKeyDataHolder.encodeCertificate(nullable(X509Certificate.class));
+            }
+        }).thenAnswer(new Answer<String>() {
+
+            @Override
+            public String answer(InvocationOnMock invocation) {
+
+                return certificate;
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        signKeyDataHolder.close();
+        credentials.close();
+        PrivilegedCarbonContext.endTenantFlow();
+        SigningCredentialCache.getInstance().clear();
+        MetadataConfiguration.reload(null);
+    }
+
+    @DataProvider(name = "configurations")
+    public Object[][] getConfigurations() {
+
+        return new Object[][]{
+                // Tenants of the same shape render from the template compiled for the first of them.
+                {"wso2.com", "https://localhost:9443/samlsso", "https://localhost:9443/samlecp",
+                        "https://localhost:9443/samlsso", "https://localhost:9443/samlartresolve",
+                        new String[0], false, CERTIFICATE},
+                {"abc.com", "https://abc.com:9443/t/abc.com/samlsso", "https://abc.com:9443/samlecp",
+                        "https://abc.com:9443/samlsso/logout", "https://abc.com:9443/samlartresolve",
+                        new String[0], false, OTHER_CERTIFICATE},
+                {"xyz.com", "https://xyz.com/samlsso", "", null, "", new String[0], true, CERTIFICATE},
+                {"xyz.org", "https://xyz.org/samlsso", "", null, "", new String[0], true, OTHER_CERTIFICATE},
+                {"dest.com", "https://dest.com/samlsso", null, "https://dest.com/logout", null,
+                        new String[]{"https://dest.com/samlsso", "https://dest1.com/samlsso",
+                                "https://dest2.com/samlsso"}, false, CERTIFICATE},
+                {"dest.org", "https://dest.org/samlsso", null, "https://dest.org/logout", null,
+                        new String[]{"https://dest3.org/samlsso", "https://dest.org/samlsso",
+                                "https://dest4.org/samlsso"}, false, OTHER_CERTIFICATE}
+        };
+    }
+
+    @Test(dataProvider = "configurations")
+    public void testTemplateRendersBuilderOutput(String entityId, String ssoUrl, String ecpUrl, String logoutUrl,
+                                                 String artifactResolveUrl, String[] destinationUrls,
+                                                 boolean authnRequestsSigned, String certificate)
+            throws Exception {
+
+        this.certificate = certificate;
+        FederatedAuthenticatorConfig config = createConfig(entityId, ssoUrl, ecpUrl, logoutUrl,
+                artifactResolveUrl, destinationUrls, authnRequestsSigned);
+
+        String builtMetadata = build(config, false);
+        // The first build of a shape goes through the builder and compiles the template of the shape.
+        build(config, true);
+        String renderedMetadata = build(config, true);
+
+        IDPMetadataTemplate template = IDPMetadataTemplate.getTemplate(
+                IDPMetadataTemplate.getShape(IDPMetadataConfig.compile(config)));
+        assertTrue(template != null && template.isSupported(), "Metadata was not rendered from a template.");
+        assertEquivalent(renderedMetadata, builtMetadata);
+        // Unsigned metadata only reads the signing certificate.
+        assertTrue(credentials.constructed().isEmpty(), "Signing credential was loaded for unsigned metadata.");
+    }
+
+    private String build(FederatedAuthenticatorConfig config, boolean templateEnabled) throws Exception {
+
+        MetadataConfiguration.reload(Collections.singletonMap(IDPMetadataConstant.SAML_METADATA_TEMPLATE_ENABLED,
+                String.valueOf(templateEnabled)));
+        return new DefaultIDPMetadataBuilder().build(config);
+    }
+
+    /**
+     * Compare the documents as parsed DOM trees, apart from the validUntil stamped at build time.
+     */
+    private void assertEquivalent(String metadata, String expectedMetadata) throws Exception {
+
+        Document document = parse(metadata);
+        Document expectedDocument = parse(expectedMetadata);
+        assertTrue(document.isEqualNode(expectedDocument), "Rendered metadata: " + metadata +
+                " differs from the built metadata: " + expectedMetadata);
+    }
+
+    private Document parse(String metadata) throws Exception {
+
+        String content = metadata.replaceAll(" validUntil=\"[^\"]*\"", " validUntil=\"\"");
+        DocumentBuilder builder = XMLProcessorPool.getInstance().borrowDocumentBuilder();
+        try {
+            Document document = builder.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+            document.normalizeDocument();
+            return document;
+        } finally {
+            XMLProcessorPool.getInstance().returnDocumentBuilder(builder);
+        }
+    }
+
+    private FederatedAuthenticatorConfig createConfig(String entityId, String ssoUrl, String ecpUrl, String logoutUrl,
+                                                      String artifactResolveUrl, String[] destinationUrls,
+                                                      boolean authnRequestsSigned) {
+
+        List<Property> properties = new ArrayList<>();
+        properties.add(createProperty(SAML2SSO.IDP_ENTITY_ID, entityId));
+        properties.add(createProperty(SAML2SSO.SSO_URL, ssoUrl));
+        properties.add(createProperty(SAML2SSO.ECP_URL, ecpUrl));
+        properties.add(createProperty(SAML2SSO.LOGOUT_REQ_URL, logoutUrl));
+        properties.add(createProperty(SAML2SSO.ARTIFACT_RESOLVE_URL, artifactResolveUrl));
+        properties.add(createProperty(SAML2SSO.SAML_METADATA_VALIDITY_PERIOD, "60"));
+        properties.add(createProperty(SAML2SSO.SAML_METADATA_SIGNING_ENABLED, "false"));
+        properties.add(createProperty(SAML2SSO.SAML_METADATA_AUTHN_REQUESTS_SIGNING_ENABLED,
+                String.valueOf(authnRequestsSigned)));
+        for (int i = 0; i < destinationUrls.length; i++) {
+            properties.add(createProperty(SAML2SSO.DESTINATION_URL_PREFIX + "." + (i + 1), destinationUrls[i]));
+        }
+
+        FederatedAuthenticatorConfig config = new FederatedAuthenticatorConfig();
+        config.setName(SAML2SSO.NAME);
+        config.setProperties(properties.toArray(new Property[properties.size()]));
+        return config;
+    }
+
+    private Property createProperty(String name, String value) {
+
+        Property property = new Property();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.builder;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants.Authenticator.SAML2SSO;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IDPMetadataConfig}.
+ */
+public class IDPMetadataConfigTest {
+
+    private static final String SSO_URL = "https://localhost:9443/samlsso";
+
+    @Test
+    public void testPropertiesAreCompiled() throws Exception {
+
+        FederatedAuthenticatorConfig samlConfig = createConfig(
+                createProperty(SAML2SSO.IDP_ENTITY_ID, "localhost"),
+                createProperty(SAML2SSO.SSO_URL, SSO_URL),
+                createProperty(SAML2SSO.LOGOUT_REQ_URL, "https://localhost:9443/samlsso/logout"),
+                createProperty(SAML2SSO.SAML_METADATA_VALIDITY_PERIOD, "60"),
+                createProperty(SAML2SSO.SAML_METADATA_SIGNING_ENABLED, "true"),
+                createProperty("CustomProperty", "value"));
+
+        IDPMetadataConfig config = IDPMetadataConfig.compile(samlConfig);
+
+        assertSame(config.getSource(), samlConfig);
+        assertEquals(config.getEntityId(), "localhost");
+        assertEquals(config.getSsoUrl(), SSO_URL);
+        assertEquals(config.getLogoutRequestUrl(), "https://localhost:9443/samlsso/logout");
+        assertNull(config.getArtifactResolveUrl());
+        assertEquals(config.getValidityPeriod(), 60);
+        assertTrue(config.isMetadataSigningEnabled());
+        assertFalse(config.isAuthnRequestsSigningEnabled());
+        assertEquals(config.getProperty("CustomProperty"), "value");
+    }
+
+    @Test
+    public void testFirstPropertyOfNameWins() {
+
+        IDPMetadataConfig config = IDPMetadataConfig.compile(createConfig(
+                createProperty(SAML2SSO.IDP_ENTITY_ID, "localhost"),
+                null,
+                createProperty(null, "unnamed"),
+                createProperty(SAML2SSO.IDP_ENTITY_ID, "wso2.com")));
+
+        assertEquals(config.getEntityId(), "localhost");
+    }
+
+    @Test
+    public void testDestinationUrlsExcludeSsoUrl() {
+
+        IDPMetadataConfig config = IDPMetadataConfig.compile(createConfig(
+                createProperty(SAML2SSO.DESTINATION_URL_PREFIX + ".1", "https://localhost:9443/samlsso/1"),
+                createProperty(SAML2SSO.SSO_URL, SSO_URL),
+                createProperty(SAML2SSO.DESTINATION_URL_PREFIX + ".2", SSO_URL),
+                createProperty(SAML2SSO.DESTINATION_URL_PREFIX + ".3", "https://localhost:9443/samlsso/3")));
+
+        assertEquals(config.getDestinationUrls(), Arrays.asList("https://localhost:9443/samlsso/1",
+                "https://localhost:9443/samlsso/3"));
+    }
+
+    @Test
+    public void testConfigWithoutProperties() {
+
+        IDPMetadataConfig config = IDPMetadataConfig.compile(new FederatedAuthenticatorConfig());
+
+        assertNull(config.getEntityId());
+        assertEquals(config.getDestinationUrls(), Collections.emptyList());
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testMissingValidityPeriod() throws Exception {
+
+        IDPMetadataConfig.compile(createConfig(createProperty(SAML2SSO.SSO_URL, SSO_URL))).getValidityPeriod();
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testInvalidValidityPeriod() throws Exception {
+
+        IDPMetadataConfig.compile(createConfig(createProperty(SAML2SSO.SAML_METADATA_VALIDITY_PERIOD, "one")))
+                .getValidityPeriod();
+    }
+
+    private static FederatedAuthenticatorConfig createConfig(Property... properties) {
+
+        FederatedAuthenticatorConfig samlConfig = new FederatedAuthenticatorConfig();
+        samlConfig.setName(SAML2SSO.NAME);
+        samlConfig.setProperties(properties);
+        return samlConfig;
+    }
+
+    private static Property createProperty(String name, String value) {
+
+        Property property = new Property();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.builder;
+
+import net.shibboleth.utilities.java.support.xml.DOMTypeSupport;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants.Authenticator.SAML2SSO;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IDPMetadataTemplate}, using metadata laid out like the output of
+ * {@link DefaultIDPMetadataBuilder}.
+ */
+public class IDPMetadataTemplateTest {
+
+    private static final String CERTIFICATE = "MIIDSTCCAjGgAwIBAgIEAoLQ/TANBgkqhkiG9w0BAQsFADBVMQswCQYDVQQG";
+    private static final String OTHER_CERTIFICATE = "MIIDqTCCApGgAwIBAgIEXbABozANBgkqhkiG9w0BAQsFADBkMQswCQYDVQQG";
+    private static final long BUILD_TIME = 1792220400000L;
+    private static final int VALIDITY_PERIOD = 60;
+
+    @Test
+    public void testRenderReplacesSlots() throws Exception {
+
+        IDPMetadataTemplate template = compile(createConfig("https://localhost:9443/samlsso", "wso2.com"));
+        IDPMetadataConfig config = createConfig("https://abc.com/samlsso", "abc.com");
+
+        assertEquals(template.render(config, OTHER_CERTIFICATE, BUILD_TIME),
+                getMetadata("abc.com", "https://abc.com/samlsso", OTHER_CERTIFICATE, BUILD_TIME));
+    }
+
+    @Test
+    public void testTemplateIsEquivalentToBuilderOutputOfItsShape() throws Exception {
+
+        IDPMetadataTemplate template = compile(createConfig("https://localhost:9443/samlsso", "wso2.com"));
+        IDPMetadataConfig config = createConfig("https://abc.com/samlsso", "abc.com");
+
+        assertTrue(template.isEquivalent(getMetadata("abc.com", "https://abc.com/samlsso", OTHER_CERTIFICATE,
+                BUILD_TIME + 12345), config, OTHER_CERTIFICATE));
+    }
+
+    @Test
+    public void testTemplateIsNotEquivalentToDifferentBuilderOutput() throws Exception {
+
+        IDPMetadataTemplate template = compile(createConfig("https://localhost:9443/samlsso", "wso2.com"));
+        IDPMetadataConfig config = createConfig("https://abc.com/samlsso", "abc.com");
+        String metadata = getMetadata("abc.com", "https://abc.com/samlsso", OTHER_CERTIFICATE, BUILD_TIME);
+
+        // Builder output differing only in attribute order or certificate, or without a validity period.
+        assertFalse(template.isEquivalent(metadata.replace("use=\"signing\"", "use=\"signing\" xml:lang=\"en\""),
+                config, OTHER_CERTIFICATE));
+        assertFalse(template.isEquivalent(metadata, config, CERTIFICATE));
+        assertFalse(template.isEquivalent(metadata.replaceFirst(" validUntil=\"[^\"]*\"", ""), config,
+                OTHER_CERTIFICATE));
+    }
+
+    @Test
+    public void testOverlappingSlotsAreNotCompiled() throws Exception {
+
+        IDPMetadataConfig config = createConfig("https://localhost:9443/samlsso", "wso2.com");
+        String sentinelMetadata = getMetadata(getSentinel(0), getSentinel(1), CERTIFICATE, BUILD_TIME);
+
+        // A certificate which cannot be told apart from the other slots.
+        assertNull(IDPMetadataTemplate.compile(sentinelMetadata, config, "metadata-template-slot-"));
+    }
+
+    @Test
+    public void testShapeDependsOnSetValuesOnly() {
+
+        IDPMetadataConfig config = createConfig("https://localhost:9443/samlsso", "wso2.com");
+
+        assertEquals(IDPMetadataTemplate.getShape(createConfig("https://abc.com/samlsso", "abc.com")),
+                IDPMetadataTemplate.getShape(config));
+        List<Property> properties = getProperties("https://localhost:9443/samlsso", "wso2.com");
+        properties.add(createProperty(SAML2SSO.ECP_URL, "https://localhost:9443/samlecp"));
+        assertNotEquals(IDPMetadataTemplate.getShape(createConfig(properties)), IDPMetadataTemplate.getShape(config));
+        properties = getProperties("https://localhost:9443/samlsso", "wso2.com");
+        properties.add(createProperty(SAML2SSO.SAML_METADATA_AUTHN_REQUESTS_SIGNING_ENABLED, "true"));
+        assertNotEquals(IDPMetadataTemplate.getShape(createConfig(properties)), IDPMetadataTemplate.getShape(config));
+    }
+
+    @Test
+    public void testValuesWithMarkupAreNotRenderable() {
+
+        assertTrue(IDPMetadataTemplate.isRenderable(createConfig("https://localhost:9443/samlsso", "wso2.com"),
+                CERTIFICATE + "\n" + CERTIFICATE));
+        assertFalse(IDPMetadataTemplate.isRenderable(createConfig("https://localhost:9443/samlsso?a=1&b=2",
+                "wso2.com"), CERTIFICATE));
+        assertFalse(IDPMetadataTemplate.isRenderable(createConfig("https://localhost:9443/samlsso", "wso\"2"),
+                CERTIFICATE));
+    }
+
+    private static IDPMetadataTemplate compile(IDPMetadataConfig config) throws Exception {
+
+        FederatedAuthenticatorConfig sentinelConfig = IDPMetadataTemplate.createSentinelConfig(config);
+        IDPMetadataConfig compiledSentinelConfig = IDPMetadataConfig.compile(sentinelConfig);
+        String sentinelMetadata = getMetadata(compiledSentinelConfig.getEntityId(),
+                compiledSentinelConfig.getSsoUrl(), CERTIFICATE, BUILD_TIME);
+        IDPMetadataTemplate template = IDPMetadataTemplate.compile(sentinelMetadata, config, CERTIFICATE);
+        assertTrue(template != null && template.isSupported());
+        return template;
+    }
+
+    private static String getSentinel(int slot) {
+
+        return "{{metadata-template-slot-" + slot + "}}";
+    }
+
+    private static String getMetadata(String entityId, String ssoUrl, String certificate, long buildTime) {
+
+        long cacheDuration = VALIDITY_PERIOD * 60000L;
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" +
+                "<md:EntityDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" entityID=\"" + entityId +
+                "\"><md:IDPSSODescriptor WantAuthnRequestsSigned=\"false\" cacheDuration=\"" +
+                DOMTypeSupport.longToDuration(cacheDuration) + "\" protocolSupportEnumeration=" +
+                "\"urn:oasis:names:tc:SAML:2.0:protocol\" validUntil=\"" +
+                dateFormat.format(new Date(buildTime + cacheDuration)) + "\"><md:KeyDescriptor use=\"signing\">" +
+                "<ds:KeyInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\"><ds:X509Data><ds:X509Certificate>" +
+                certificate + "</ds:X509Certificate></ds:X509Data></ds:KeyInfo></md:KeyDescriptor>" +
+                "<md:SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-POST\" Location=\"" +
+                ssoUrl + "\"/></md:IDPSSODescriptor></md:EntityDescriptor>";
+    }
+
+    private static IDPMetadataConfig createConfig(String ssoUrl, String entityId) {
+
+        return createConfig(getProperties(ssoUrl, entityId));
+    }
+
+    private static IDPMetadataConfig createConfig(List<Property> properties) {
+
+        FederatedAuthenticatorConfig samlConfig = new FederatedAuthenticatorConfig();
+        samlConfig.setName(SAML2SSO.NAME);
+        samlConfig.setProperties(properties.toArray(new Property[properties.size()]));
+        return IDPMetadataConfig.compile(samlConfig);
+    }
+
+    private static List<Property> getProperties(String ssoUrl, String entityId) {
+
+        List<Property> properties = new ArrayList<>();
+        properties.add(createProperty(SAML2SSO.IDP_ENTITY_ID, entityId));
+        properties.add(createProperty(SAML2SSO.SSO_URL, ssoUrl));
+        properties.add(createProperty(SAML2SSO.SAML_METADATA_VALIDITY_PERIOD, String.valueOf(VALIDITY_PERIOD)));
+        return properties;
+    }
+
+    private static Property createProperty(String name, String value) {
+
+        Property property = new Property();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IDPMetadataCacheEntry}.
+ */
+public class IDPMetadataCacheEntryTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String ENTITY_ID = "https://localhost:9443/samlsso";
+    private static final long CREATED_TIME = 1700000000123L;
+
+    @Test
+    public void testContentLengthIsTheEncodedLength() {
+
+        IDPMetadataCacheEntry entry = createEntry("<md:EntityDescriptor name=\"\u00e9\u20ac\"/>");
+
+        assertEquals(entry.getContentLength(), 35);
+    }
+
+    @Test
+    public void testETagIsQuotedContentHash() {
+
+        IDPMetadataCacheEntry entry = createEntry("<md:EntityDescriptor/>");
+
+        assertTrue(entry.getETag().startsWith("\"") && entry.getETag().endsWith("\""));
+        assertEquals(createEntry("<md:EntityDescriptor/>").getETag(), entry.getETag());
+        assertNotEquals(createEntry("<md:EntityDescriptor ID=\"a\"/>").getETag(), entry.getETag());
+    }
+
+    @Test
+    public void testLastModifiedHasSecondPrecision() {
+
+        assertEquals(createEntry("<md:EntityDescriptor/>").getLastModified(), 1700000000000L);
+    }
+
+    @Test
+    public void testEntryWithoutMetadata() {
+
+        IDPMetadataCacheEntry entry = createEntry(null);
+
+        assertEquals(entry.getContentLength(), -1);
+        assertNull(entry.getETag());
+    }
+
+    private static IDPMetadataCacheEntry createEntry(String metadata) {
+
+        return new IDPMetadataCacheEntry(TENANT_DOMAIN, ENTITY_ID, metadata, "fingerprint:1", 1, CREATED_TIME,
+                CREATED_TIME + 60000);
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.exception.SigningCapacityExceededException;
+import org.wso2.carbon.identity.idp.metadata.saml2.internal.IDPMetadataSAMLServiceComponentHolder;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IDPMetadataCacheLoader}.
+ */
+public class IDPMetadataCacheLoaderTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String ENTITY_ID = "https://localhost:9443/oauth2/token";
+    private static final long WAIT_TIMEOUT_IN_SECONDS = 10;
+
+    private IdentityProviderManager identityProviderManager;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        identityProviderManager = mock(IdentityProviderManager.class);
+        when(identityProviderManager.getResidentIdP(TENANT_DOMAIN)).thenReturn(createResidentIdP("60"));
+        IDPMetadataSAMLServiceComponentHolder.getInstance().setIdpManager(identityProviderManager);
+        IDPMetadataCache.getInstance().clear();
+        SigningCredentialCache.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        IDPMetadataCache.getInstance().clear();
+        IDPMetadataCacheLoader.getInstance().clear();
+        IDPMetadataSAMLServiceComponentHolder.getInstance().setIdpManager(null);
+    }
+
+    @Test
+    public void testCachedMetadataIsReused() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+
+        assertEquals(entry.getMetadata(), "<metadata/>");
+        assertSame(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+        verify(identityProviderManager, times(1)).getResidentIDPMetadata(TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testConfigurationChangeRebuildsMetadata() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+
+        when(identityProviderManager.getResidentIdP(TENANT_DOMAIN)).thenReturn(createResidentIdP("120"));
+        // The configuration is only checked again once the validation interval has passed.
+        assertSame(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+        entry.setValidationTime(0);
+
+        assertNotSame(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+        verify(identityProviderManager, times(2)).getResidentIDPMetadata(TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testCachedMetadataIsServedWithoutReadingResidentIdP() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+
+        assertSame(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+        verify(identityProviderManager, times(1)).getResidentIdP(TENANT_DOMAIN);
+        assertEquals(entry.getSigningGeneration(), SigningCredentialCache.getInstance().getGeneration(TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testInvalidatedCredentialRebuildsMetadata() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+
+        SigningCredentialCache.getInstance().rotate().await(WAIT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+
+        assertNotSame(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+    }
+
+    @Test
+    public void testMetadataIsServedWhileBeingResigned() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+        BlockingBuild build = new BlockingBuild(1);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(build);
+
+        IDPMetadataResigner.ResigningJob job = SigningCredentialCache.getInstance().rotate();
+        assertTrue(build.awaitStarted());
+        assertSame(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+        build.release();
+        assertTrue(job.await(WAIT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+
+        IDPMetadataCacheEntry resignedEntry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+        assertNotSame(resignedEntry, entry);
+        assertSame(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN), resignedEntry);
+        assertEquals(build.getBuildCount(), 1);
+    }
+
+    @Test
+    public void testConcurrentLoadsAreCoalesced() throws Exception {
+
+        BlockingBuild build = new BlockingBuild(1);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(build);
+
+        LoadThread firstLoad = new LoadThread(false);
+        firstLoad.start();
+        assertTrue(build.awaitStarted());
+        LoadThread secondLoad = new LoadThread(false);
+        secondLoad.start();
+        awaitWaiting(secondLoad);
+        build.release();
+
+        assertSame(secondLoad.awaitEntry(), firstLoad.awaitEntry());
+        assertEquals(build.getBuildCount(), 1);
+    }
+
+    @Test
+    public void testResignAfterInvalidationDoesNotJoinInFlightBuild() throws Exception {
+
+        BlockingBuild build = new BlockingBuild(1);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(build);
+
+        LoadThread request = new LoadThread(false);
+        request.start();
+        assertTrue(build.awaitStarted());
+
+        // The signing key store is updated while the request is still building with the old credential.
+        SigningCredentialCache.getInstance().clearCacheEntry(TENANT_DOMAIN);
+        LoadThread resign = new LoadThread(true);
+        resign.start();
+        IDPMetadataCacheEntry resignedEntry = resign.awaitEntry();
+        build.release();
+        IDPMetadataCacheEntry requestEntry = request.awaitEntry();
+
+        assertEquals(build.getBuildCount(), 2);
+        assertNotSame(resignedEntry, requestEntry);
+        assertSame(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN), resignedEntry);
+    }
+
+    @Test
+    public void testBuildOverlappingInvalidationIsNotCached() throws Exception {
+
+        BlockingBuild build = new BlockingBuild(1);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(build);
+
+        LoadThread request = new LoadThread(false);
+        request.start();
+        assertTrue(build.awaitStarted());
+        SigningCredentialCache.getInstance().clearCacheEntry(TENANT_DOMAIN);
+        build.release();
+        request.awaitEntry();
+
+        assertNull(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testCapacityFailureServesMetadataOfSameFingerprint() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+        IDPMetadataCache.getInstance().clearCacheEntry(entry);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(new FailingBuild(entry,
+                new SigningCapacityExceededException("Metadata signing queue is full.")));
+
+        assertSame(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+    }
+
+    @Test(expectedExceptions = IdentityProviderManagementException.class)
+    public void testBuildFailureDoesNotFallBack() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+        IDPMetadataCache.getInstance().clearCacheEntry(entry);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(new FailingBuild(entry,
+                new IllegalStateException("Invalid signing key.")));
+
+        IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testCapacityFailureServesLastGoodMetadataOfOtherConfiguration() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+        entry.setValidationTime(0);
+        when(identityProviderManager.getResidentIdP(TENANT_DOMAIN)).thenReturn(createResidentIdP("120"));
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(new FailingBuild(null,
+                new SigningCapacityExceededException("Metadata signing queue is full.")));
+
+        assertStaleEntry(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+    }
+
+    @Test
+    public void testCapacityFailureServesLastGoodMetadataOfInvalidatedCredential() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+        // Evicted first, so that the invalidation does not re-sign it in the background.
+        IDPMetadataCache.getInstance().clearCacheEntry(entry);
+        SigningCredentialCache.getInstance().clearCacheEntry(TENANT_DOMAIN);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(new FailingBuild(null,
+                new SigningCapacityExceededException("Metadata signing queue is full.")));
+
+        assertStaleEntry(IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN), entry);
+    }
+
+    @Test(expectedExceptions = IdentityProviderManagementException.class)
+    public void testCapacityFailureWithoutLastGoodMetadataFails() throws Exception {
+
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataCacheEntry entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+        IDPMetadataCache.getInstance().clearCacheEntry(entry);
+        IDPMetadataCacheLoader.getInstance().removeTenant(TENANT_DOMAIN);
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenAnswer(new FailingBuild(null,
+                new SigningCapacityExceededException("Metadata signing queue is full.")));
+
+        IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+    }
+
+    private void assertStaleEntry(IDPMetadataCacheEntry staleEntry, IDPMetadataCacheEntry lastGoodEntry) {
+
+        assertEquals(staleEntry.getMetadata(), lastGoodEntry.getMetadata());
+        assertEquals(staleEntry.getETag(), lastGoodEntry.getETag());
+        assertEquals(staleEntry.getLastModified(), lastGoodEntry.getLastModified());
+        assertTrue(staleEntry.getExpiryTime() <= System.currentTimeMillis() +
+                MetadataConfiguration.getInstance().getStaleMaxAge());
+        assertTrue(staleEntry.getExpiryTime() < lastGoodEntry.getExpiryTime());
+    }
+
+    private IdentityProvider createResidentIdP(String validityPeriod) {
+
+        Property entityId = new Property();
+        entityId.setName(IdentityApplicationConstants.Authenticator.SAML2SSO.IDP_ENTITY_ID);
+        entityId.setValue(ENTITY_ID);
+        Property validity = new Property();
+        validity.setName(IdentityApplicationConstants.Authenticator.SAML2SSO.SAML_METADATA_VALIDITY_PERIOD);
+        validity.setValue(validityPeriod);
+
+        FederatedAuthenticatorConfig samlConfig = new FederatedAuthenticatorConfig();
+        samlConfig.setName(IdentityApplicationConstants.Authenticator.SAML2SSO.NAME);
+        samlConfig.setProperties(new Property[]{entityId, validity});
+        IdentityProvider residentIdP = new IdentityProvider();
+        residentIdP.setFederatedAuthenticatorConfigs(new FederatedAuthenticatorConfig[]{samlConfig});
+        return residentIdP;
+    }
+
+    private void awaitWaiting(Thread thread) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_TIMEOUT_IN_SECONDS);
+        while (thread.getState() != Thread.State.TIMED_WAITING && thread.getState() != Thread.State.WAITING) {
+            assertTrue(System.currentTimeMillis() < deadline, "Load did not wait for the in-flight build.");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Metadata build which blocks the given number of first builds until it is released.
+     */
+    private static class BlockingBuild implements Answer<String> {
+
+        private final AtomicInteger buildCount = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final int blockedBuilds;
+
+        BlockingBuild(int blockedBuilds) {
+
+            this.blockedBuilds = blockedBuilds;
+        }
+
+        @Override
+        public String answer(InvocationOnMock invocation) throws Throwable {
+
+            int build = buildCount.incrementAndGet();
+            if (build <= blockedBuilds) {
+                started.countDown();
+                assertTrue(released.await(WAIT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+            }
+            return "<metadata build=\"" + build + "\"/>";
+        }
+
+        boolean awaitStarted() throws InterruptedException {
+
+            return started.await(WAIT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+        }
+
+        void release() {
+
+            released.countDown();
+        }
+
+        int getBuildCount() {
+
+            return buildCount.get();
+        }
+    }
+
+    /**
+     * Metadata build which fails, optionally after a concurrent build has cached the given metadata.
+     */
+    private static class FailingBuild implements Answer<String> {
+
+        private final IDPMetadataCacheEntry concurrentEntry;
+        private final Throwable cause;
+
+        FailingBuild(IDPMetadataCacheEntry concurrentEntry, Throwable cause) {
+
+            this.concurrentEntry = concurrentEntry;
+            this.cause = cause;
+        }
+
+        @Override
+        public String answer(InvocationOnMock invocation) throws Throwable {
+
+            if (concurrentEntry != null) {
+                IDPMetadataCache.getInstance().addToCache(TENANT_DOMAIN, concurrentEntry);
+            }
+            throw new IdentityProviderManagementException("Error while building the metadata.", cause);
+        }
+    }
+
+    /**
+     * Thread loading the metadata of the tenant.
+     */
+    private static class LoadThread extends Thread {
+
+        private final boolean forceRefresh;
+        private volatile IDPMetadataCacheEntry entry;
+        private volatile IdentityProviderManagementException error;
+
+        LoadThread(boolean forceRefresh) {
+
+            this.forceRefresh = forceRefresh;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                if (forceRefresh) {
+                    entry = IDPMetadataCacheLoader.getInstance().refreshMetadata(TENANT_DOMAIN);
+                } else {
+                    entry = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN);
+                }
+            } catch (IdentityProviderManagementException e) {
+                error = e;
+            }
+        }
+
+        IDPMetadataCacheEntry awaitEntry() throws Exception {
+
+            join(TimeUnit.SECONDS.toMillis(WAIT_TIMEOUT_IN_SECONDS));
+            if (error != null) {
+                throw error;
+            }
+            assertTrue(entry != null, "Metadata was not loaded.");
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Locale;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IDPMetadataCache}.
+ */
+public class IDPMetadataCacheTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String ENTITY_ID = "https://localhost:9443/samlsso";
+    private static final String SHA1_HEX = "5d3f4ace80ac8d1fbabffb76a31bed28dcad650f";
+    private static final String SHA1_IDENTIFIER = "{sha1}" + SHA1_HEX;
+
+    private final IDPMetadataCache cache = IDPMetadataCache.getInstance();
+
+    @AfterMethod
+    public void tearDown() {
+
+        cache.clear();
+    }
+
+    @Test
+    public void testCachedMetadata() {
+
+        IDPMetadataCacheEntry entry = createEntry(TENANT_DOMAIN, ENTITY_ID);
+        cache.addToCache(TENANT_DOMAIN, entry);
+
+        assertSame(cache.getValueFromCache(TENANT_DOMAIN), entry);
+        assertNull(cache.getValueFromCache("abc.com"));
+        assertEquals(cache.getEntries().size(), 1);
+    }
+
+    @Test
+    public void testClearCacheEntryOfTenant() {
+
+        cache.addToCache(TENANT_DOMAIN, createEntry(TENANT_DOMAIN, ENTITY_ID));
+        cache.addToCache("abc.com", createEntry("abc.com", "https://abc.com/samlsso"));
+
+        cache.clearCacheEntry(TENANT_DOMAIN);
+
+        assertNull(cache.getValueFromCache(TENANT_DOMAIN));
+        assertEquals(cache.getEntries().size(), 1);
+    }
+
+    @Test
+    public void testReplacedEntryIsNotCleared() {
+
+        IDPMetadataCacheEntry staleEntry = createEntry(TENANT_DOMAIN, ENTITY_ID);
+        IDPMetadataCacheEntry entry = createEntry(TENANT_DOMAIN, ENTITY_ID);
+        cache.addToCache(TENANT_DOMAIN, staleEntry);
+        cache.addToCache(TENANT_DOMAIN, entry);
+
+        cache.clearCacheEntry(staleEntry);
+        assertSame(cache.getValueFromCache(TENANT_DOMAIN), entry);
+
+        cache.clearCacheEntry(entry);
+        assertNull(cache.getValueFromCache(TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testEntityIdentifierMatching() {
+
+        assertTrue(IDPMetadataCache.isEntityIdentifierMatched(ENTITY_ID, ENTITY_ID));
+        assertTrue(IDPMetadataCache.isEntityIdentifierMatched(SHA1_IDENTIFIER, ENTITY_ID));
+        assertTrue(IDPMetadataCache.isEntityIdentifierMatched(SHA1_IDENTIFIER.toUpperCase(Locale.ENGLISH),
+                ENTITY_ID));
+        assertFalse(IDPMetadataCache.isEntityIdentifierMatched(ENTITY_ID, "https://wso2.com/samlsso"));
+        assertFalse(IDPMetadataCache.isEntityIdentifierMatched(ENTITY_ID, null));
+    }
+
+    static IDPMetadataCacheEntry createEntry(String tenantDomain, String entityId) {
+
+        long currentTime = System.currentTimeMillis();
+        return new IDPMetadataCacheEntry(tenantDomain, entityId, "<md:EntityDescriptor entityID=\"" + entityId +
+                "\"/>", "fingerprint:1", 1, currentTime, currentTime + 60000);
+    }
+}
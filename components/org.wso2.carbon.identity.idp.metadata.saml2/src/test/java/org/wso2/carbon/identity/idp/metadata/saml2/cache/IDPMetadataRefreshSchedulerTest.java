@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.idp.metadata.saml2.internal.IDPMetadataSAMLServiceComponentHolder;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for {@link IDPMetadataRefreshScheduler}.
+ */
+public class IDPMetadataRefreshSchedulerTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String ENTITY_ID = "https://localhost:9443/samlsso";
+    private static final long VALIDITY_PERIOD = TimeUnit.MINUTES.toMillis(60);
+
+    private IdentityProviderManager identityProviderManager;
+    private String configFingerprint;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        identityProviderManager = mock(IdentityProviderManager.class);
+        when(identityProviderManager.getResidentIdP(TENANT_DOMAIN)).thenReturn(createResidentIdP());
+        when(identityProviderManager.getResidentIDPMetadata(TENANT_DOMAIN)).thenReturn("<metadata/>");
+        IDPMetadataSAMLServiceComponentHolder.getInstance().setIdpManager(identityProviderManager);
+        IDPMetadataCache.getInstance().clear();
+        SigningCredentialCache.getInstance().clear();
+        configFingerprint = IDPMetadataCacheLoader.getInstance().getMetadata(TENANT_DOMAIN).getConfigFingerprint();
+        clearInvocations(identityProviderManager);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        IDPMetadataCache.getInstance().clear();
+        IDPMetadataSAMLServiceComponentHolder.getInstance().setIdpManager(null);
+    }
+
+    @Test
+    public void testMetadataIsRefreshedAheadOfExpiry() throws Exception {
+
+        long currentTime = System.currentTimeMillis();
+        // Past three quarters of its validity period.
+        IDPMetadataCacheEntry entry = addEntry(currentTime - TimeUnit.MINUTES.toMillis(50));
+        entry.setLastAccessedTime(currentTime);
+
+        IDPMetadataRefreshScheduler.getInstance().refreshMetadata();
+
+        IDPMetadataCacheEntry refreshedEntry = IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN);
+        assertNotNull(refreshedEntry);
+        assertNotSame(refreshedEntry, entry);
+        assertEquals(refreshedEntry.getLastAccessedTime(), currentTime);
+        verify(identityProviderManager, times(1)).getResidentIDPMetadata(TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testMetadataIsNotRefreshedEarly() throws Exception {
+
+        IDPMetadataCacheEntry entry = addEntry(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(30));
+
+        IDPMetadataRefreshScheduler.getInstance().refreshMetadata();
+
+        assertSame(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN), entry);
+        verify(identityProviderManager, never()).getResidentIDPMetadata(anyString());
+    }
+
+    @Test
+    public void testIdleMetadataIsNotRefreshed() throws Exception {
+
+        long currentTime = System.currentTimeMillis();
+        IDPMetadataCacheEntry entry = addEntry(currentTime - TimeUnit.MINUTES.toMillis(50));
+        // Carried over from the metadata it was refreshed from, and not requested since.
+        entry.setLastAccessedTime(currentTime - VALIDITY_PERIOD - 1);
+
+        IDPMetadataRefreshScheduler.getInstance().refreshMetadata();
+
+        assertNull(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN));
+        verify(identityProviderManager, never()).getResidentIDPMetadata(anyString());
+    }
+
+    @Test
+    public void testExpiredMetadataIsNotRefreshed() throws Exception {
+
+        long currentTime = System.currentTimeMillis();
+        IDPMetadataCacheEntry entry = addEntry(currentTime - VALIDITY_PERIOD - 1);
+        entry.setLastAccessedTime(currentTime);
+
+        IDPMetadataRefreshScheduler.getInstance().refreshMetadata();
+
+        assertNull(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN));
+        verify(identityProviderManager, never()).getResidentIDPMetadata(anyString());
+    }
+
+    private IDPMetadataCacheEntry addEntry(long createdTime) {
+
+        IDPMetadataCacheEntry entry = new IDPMetadataCacheEntry(TENANT_DOMAIN, ENTITY_ID, "<metadata/>",
+                configFingerprint, SigningCredentialCache.getInstance().getGeneration(TENANT_DOMAIN), createdTime,
+                createdTime + VALIDITY_PERIOD);
+        IDPMetadataCache.getInstance().addToCache(TENANT_DOMAIN, entry);
+        return entry;
+    }
+
+    private IdentityProvider createResidentIdP() {
+
+        Property entityId = new Property();
+        entityId.setName(IdentityApplicationConstants.Authenticator.SAML2SSO.IDP_ENTITY_ID);
+        entityId.setValue(ENTITY_ID);
+        Property validity = new Property();
+        validity.setName(IdentityApplicationConstants.Authenticator.SAML2SSO.SAML_METADATA_VALIDITY_PERIOD);
+        validity.setValue("60");
+
+        FederatedAuthenticatorConfig samlConfig = new FederatedAuthenticatorConfig();
+        samlConfig.setName(IdentityApplicationConstants.Authenticator.SAML2SSO.NAME);
+        samlConfig.setProperties(new Property[]{entityId, validity});
+        IdentityProvider residentIdP = new IdentityProvider();
+        residentIdP.setFederatedAuthenticatorConfigs(new FederatedAuthenticatorConfig[]{samlConfig});
+        return residentIdP;
+    }
+}
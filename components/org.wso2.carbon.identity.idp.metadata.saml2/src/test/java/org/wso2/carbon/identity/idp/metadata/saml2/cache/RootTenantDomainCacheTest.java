@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link RootTenantDomainCache}.
+ */
+public class RootTenantDomainCacheTest {
+
+    private static final String ROOT_TENANT_DOMAIN = "wso2.com";
+    private static final String ORGANIZATION_TENANT_DOMAIN = "c7a1f2a0-org";
+
+    @Test
+    public void testCachedRootTenantDomain() {
+
+        RootTenantDomainCache cache = new RootTenantDomainCache(10, 60000);
+        cache.addToCache(ORGANIZATION_TENANT_DOMAIN, ROOT_TENANT_DOMAIN);
+
+        assertEquals(cache.getValueFromCache(ORGANIZATION_TENANT_DOMAIN), ROOT_TENANT_DOMAIN);
+        assertNull(cache.getValueFromCache(ROOT_TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testExpiredEntryIsRemoved() throws Exception {
+
+        RootTenantDomainCache cache = new RootTenantDomainCache(10, 50);
+        cache.addToCache(ORGANIZATION_TENANT_DOMAIN, ROOT_TENANT_DOMAIN);
+
+        Thread.sleep(100);
+        assertNull(cache.getValueFromCache(ORGANIZATION_TENANT_DOMAIN));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testFullCacheEvictsEntriesClosestToExpiry() throws Exception {
+
+        RootTenantDomainCache cache = new RootTenantDomainCache(10, 60000);
+        for (int i = 0; i < 10; i++) {
+            cache.addToCache("tenant" + i + ".com", ROOT_TENANT_DOMAIN);
+            Thread.sleep(2);
+        }
+        cache.addToCache(ORGANIZATION_TENANT_DOMAIN, ROOT_TENANT_DOMAIN);
+
+        assertEquals(cache.size(), 9);
+        assertNull(cache.getValueFromCache("tenant0.com"));
+        assertNull(cache.getValueFromCache("tenant1.com"));
+        assertEquals(cache.getValueFromCache("tenant9.com"), ROOT_TENANT_DOMAIN);
+        assertEquals(cache.getValueFromCache(ORGANIZATION_TENANT_DOMAIN), ROOT_TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testCacheStaysBoundedUnderConcurrentAdditions() throws Exception {
+
+        final RootTenantDomainCache cache = new RootTenantDomainCache(100, 60000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread * 1000;
+                futures.add(executor.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+
+                        for (int i = 0; i < 1000; i++) {
+                            cache.addToCache("tenant" + (offset + i) + ".com", ROOT_TENANT_DOMAIN);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // An addition racing the eviction may be left over until the next one.
+        cache.addToCache(ORGANIZATION_TENANT_DOMAIN, ROOT_TENANT_DOMAIN);
+        assertTrue(cache.size() <= 100, "Cache size: " + cache.size());
+    }
+
+    @Test
+    public void testClearCacheEntryRemovesTenantsResolvedToIt() {
+
+        RootTenantDomainCache cache = new RootTenantDomainCache(10, 60000);
+        cache.addToCache(ROOT_TENANT_DOMAIN, ROOT_TENANT_DOMAIN);
+        cache.addToCache(ORGANIZATION_TENANT_DOMAIN, ROOT_TENANT_DOMAIN);
+        cache.addToCache("abc.com", "abc.com");
+
+        cache.clearCacheEntry(ROOT_TENANT_DOMAIN);
+
+        assertNull(cache.getValueFromCache(ROOT_TENANT_DOMAIN));
+        assertNull(cache.getValueFromCache(ORGANIZATION_TENANT_DOMAIN));
+        assertEquals(cache.getValueFromCache("abc.com"), "abc.com");
+    }
+}
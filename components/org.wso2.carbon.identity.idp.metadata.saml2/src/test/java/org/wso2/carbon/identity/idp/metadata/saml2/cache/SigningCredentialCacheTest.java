@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.cache;
+
+import org.mockito.MockedConstruction;
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.idp.metadata.saml2.IDPMetadataConstant;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.SignKeyDataHolder;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link SigningCredentialCache}.
+ */
+public class SigningCredentialCacheTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String OTHER_TENANT_DOMAIN = "abc.com";
+
+    private SigningCredentialCache credentialCache;
+
+    @BeforeMethod
+    public void setUp() {
+
+        credentialCache = SigningCredentialCache.getInstance();
+        credentialCache.clear();
+        IDPMetadataCache.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        credentialCache.clear();
+        MetadataConfiguration.reload(null);
+    }
+
+    @Test
+    public void testGetCredentialLoadsOncePerTenant() throws Exception {
+
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class)) {
+            SignKeyDataHolder credential = credentialCache.getCredential(TENANT_DOMAIN);
+
+            assertSame(credentialCache.getCredential(TENANT_DOMAIN), credential);
+            assertNotSame(credentialCache.getCredential(OTHER_TENANT_DOMAIN), credential);
+            assertEquals(construction.constructed().size(), 2);
+        }
+    }
+
+    @Test
+    public void testCertificateIsReadWithoutLoadingCredential() throws Exception {
+
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class);
+             MockedStatic<SignKeyDataHolder> signKeyDataHolder = mockStatic(SignKeyDataHolder.class)) {
+            mockEncodedCertificate(signKeyDataHolder, "certificate");
+
+            assertEquals(credentialCache.getEncodedCertificate(TENANT_DOMAIN), "certificate");
+            assertEquals(credentialCache.getEncodedCertificate(TENANT_DOMAIN), "certificate");
+
+            assertTrue(construction.constructed().isEmpty());
+            signKeyDataHolder.verify(new MockedStatic.Verification() {
+
+                @Override
+                public void apply() throws Throwable {
+
+                    SignKeyDataHolder.getEntityCertificate(anyInt(), eq(TENANT_DOMAIN));
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testCertificateOfCachedCredentialIsServed() throws Exception {
+
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class,
+                new MockedConstruction.MockInitializer<SignKeyDataHolder>() {
+
+                    @Override
+                    public void prepare(SignKeyDataHolder credential, MockedConstruction.Context context) {
+
+                        when(credential.getEncodedEntityCertificate()).thenReturn("certificate");
+                    }
+                });
+             MockedStatic<SignKeyDataHolder> signKeyDataHolder = mockStatic(SignKeyDataHolder.class)) {
+            credentialCache.getCredential(TENANT_DOMAIN);
+
+            assertEquals(credentialCache.getEncodedCertificate(TENANT_DOMAIN), "certificate");
+            signKeyDataHolder.verify(new MockedStatic.Verification() {
+
+                @Override
+                public void apply() throws Throwable {
+
+                    SignKeyDataHolder.getEntityCertificate(anyInt(), anyString());
+                }
+            }, never());
+        }
+    }
+
+    @Test
+    public void testCredentialReplacesCachedCertificate() throws Exception {
+
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class);
+             MockedStatic<SignKeyDataHolder> signKeyDataHolder = mockStatic(SignKeyDataHolder.class)) {
+            mockEncodedCertificate(signKeyDataHolder, "certificate");
+            credentialCache.getEncodedCertificate(TENANT_DOMAIN);
+            long generation = credentialCache.getGeneration(TENANT_DOMAIN);
+
+            SignKeyDataHolder credential = credentialCache.getCredential(TENANT_DOMAIN);
+
+            assertSame(credentialCache.getCredential(TENANT_DOMAIN), credential);
+            assertEquals(credentialCache.getGeneration(TENANT_DOMAIN), generation);
+            assertEquals(construction.constructed().size(), 1);
+        }
+    }
+
+    @Test
+    public void testClearCacheEntryMovesOnlyTheTenantToNewGeneration() throws Exception {
+
+        long generation = credentialCache.getGeneration(TENANT_DOMAIN);
+        long otherGeneration = credentialCache.getGeneration(OTHER_TENANT_DOMAIN);
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class)) {
+            SignKeyDataHolder credential = credentialCache.getCredential(TENANT_DOMAIN);
+            SignKeyDataHolder otherCredential = credentialCache.getCredential(OTHER_TENANT_DOMAIN);
+
+            credentialCache.clearCacheEntry(TENANT_DOMAIN);
+
+            assertTrue(credentialCache.getGeneration(TENANT_DOMAIN) > generation);
+            assertEquals(credentialCache.getGeneration(OTHER_TENANT_DOMAIN), otherGeneration);
+            assertNotSame(credentialCache.getCredential(TENANT_DOMAIN), credential);
+            assertSame(credentialCache.getCredential(OTHER_TENANT_DOMAIN), otherCredential);
+            assertEquals(construction.constructed().size(), 3);
+        }
+    }
+
+    @Test
+    public void testRotateMovesAllTenantsToNewGeneration() {
+
+        credentialCache.clearCacheEntry(TENANT_DOMAIN);
+        long generation = credentialCache.getGeneration(TENANT_DOMAIN);
+        long otherGeneration = credentialCache.getGeneration(OTHER_TENANT_DOMAIN);
+
+        IDPMetadataResigner.ResigningJob job = credentialCache.rotate();
+
+        assertEquals(job.getTotalCount(), 0);
+        assertTrue(credentialCache.getGeneration(TENANT_DOMAIN) > generation);
+        assertTrue(credentialCache.getGeneration(OTHER_TENANT_DOMAIN) > otherGeneration);
+        assertEquals(credentialCache.getGeneration(TENANT_DOMAIN),
+                credentialCache.getGeneration(OTHER_TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testCredentialLoadedAcrossRotationIsNotCached() throws Exception {
+
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class,
+                new MockedConstruction.MockInitializer<SignKeyDataHolder>() {
+
+                    @Override
+                    public void prepare(SignKeyDataHolder credential, MockedConstruction.Context context) {
+
+                        // The key store is rotated while the first credential is being loaded.
+                        if (context.getCount() == 1) {
+                            credentialCache.rotate();
+                        }
+                    }
+                })) {
+            SignKeyDataHolder staleCredential = credentialCache.getCredential(TENANT_DOMAIN);
+            SignKeyDataHolder credential = credentialCache.getCredential(TENANT_DOMAIN);
+
+            assertNotSame(credential, staleCredential);
+            assertSame(credentialCache.getCredential(TENANT_DOMAIN), credential);
+            assertEquals(construction.constructed().size(), 2);
+        }
+    }
+
+    @Test
+    public void testClearChangesGeneration() {
+
+        long generation = credentialCache.getGeneration(TENANT_DOMAIN);
+
+        credentialCache.clear();
+
+        assertNotEquals(credentialCache.getGeneration(TENANT_DOMAIN), generation);
+    }
+
+    @Test
+    public void testModifiedKeyStoreInvalidatesTenant() throws Exception {
+
+        MetadataConfiguration.reload(Collections.singletonMap(
+                IDPMetadataConstant.SAML_METADATA_SIGNING_CREDENTIAL_VALIDATION_INTERVAL, "1"));
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class);
+             MockedStatic<SignKeyDataHolder> signKeyDataHolder = mockStatic(SignKeyDataHolder.class)) {
+            SignKeyDataHolder credential = credentialCache.getCredential(TENANT_DOMAIN);
+            long generation = credentialCache.getGeneration(TENANT_DOMAIN);
+            signKeyDataHolder.when(new MockedStatic.Verification() {
+
+                @Override
+                public void apply() throws Throwable {
+
+                    SignKeyDataHolder.getKeyStoreLastModified(anyInt(), eq(TENANT_DOMAIN));
+                }
+            }).thenReturn(1000L);
+
+            // The key store is not checked again within the validation interval.
+            assertSame(credentialCache.getCredential(TENANT_DOMAIN), credential);
+
+            Thread.sleep(1100);
+            assertNotSame(credentialCache.getCredential(TENANT_DOMAIN), credential);
+            assertTrue(credentialCache.getGeneration(TENANT_DOMAIN) > generation);
+            assertEquals(construction.constructed().size(), 2);
+        }
+    }
+
+    @Test
+    public void testReloadedCredentialWithNewCertificateInvalidatesTenant() throws Exception {
+
+        MetadataConfiguration.reload(Collections.singletonMap(
+                IDPMetadataConstant.SAML_METADATA_SIGNING_CREDENTIAL_CACHE_TTL, "1"));
+        try (MockedConstruction<SignKeyDataHolder> construction = mockConstruction(SignKeyDataHolder.class,
+                new MockedConstruction.MockInitializer<SignKeyDataHolder>() {
+
+                    @Override
+                    public void prepare(SignKeyDataHolder credential, MockedConstruction.Context context) {
+
+                        // The certificate of the key store is replaced after the first credential is loaded.
+                        when(credential.getCertificateThumbprint()).thenReturn(context.getCount() == 1 ? "a" : "b");
+                    }
+                })) {
+            SignKeyDataHolder credential = credentialCache.getCredential(TENANT_DOMAIN);
+            long generation = credentialCache.getGeneration(TENANT_DOMAIN);
+
+            Thread.sleep(1100);
+            SignKeyDataHolder reloadedCredential = credentialCache.getCredential(TENANT_DOMAIN);
+
+            assertNotSame(reloadedCredential, credential);
+            assertTrue(credentialCache.getGeneration(TENANT_DOMAIN) > generation);
+            // The credential loaded across the invalidation is not cached, the next one is.
+            SignKeyDataHolder cachedCredential = credentialCache.getCredential(TENANT_DOMAIN);
+            assertSame(credentialCache.getCredential(TENANT_DOMAIN), cachedCredential);
+            assertEquals(construction.constructed().size(), 3);
+        }
+    }
+
+    private static void mockEncodedCertificate(MockedStatic<SignKeyDataHolder> signKeyDataHolder,
+                                               String encodedCertificate) {
+
+        signKeyDataHolder.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() throws Throwable {
+
+                SignKeyDataHolder.encodeCertificate(nullable(X509Certificate.class));
+            }
+        }).thenReturn(encodedCertificate);
+    }
+}
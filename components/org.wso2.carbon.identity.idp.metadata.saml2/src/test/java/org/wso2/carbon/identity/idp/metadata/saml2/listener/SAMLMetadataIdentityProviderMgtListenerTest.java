@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.listener;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheEntry;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link SAMLMetadataIdentityProviderMgtListener}.
+ */
+public class SAMLMetadataIdentityProviderMgtListenerTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String OTHER_TENANT_DOMAIN = "abc.com";
+
+    private final SAMLMetadataIdentityProviderMgtListener listener = new SAMLMetadataIdentityProviderMgtListener();
+
+    @AfterMethod
+    public void tearDown() {
+
+        IDPMetadataCache.getInstance().clear();
+    }
+
+    @Test
+    public void testResidentIdPUpdateClearsMetadataOfTenant() throws Exception {
+
+        IDPMetadataCache.getInstance().addToCache(TENANT_DOMAIN, createEntry(TENANT_DOMAIN));
+        IDPMetadataCache.getInstance().addToCache(OTHER_TENANT_DOMAIN, createEntry(OTHER_TENANT_DOMAIN));
+
+        assertTrue(listener.doPostUpdateResidentIdP(new IdentityProvider(), TENANT_DOMAIN));
+
+        assertNull(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN));
+        assertNotNull(IDPMetadataCache.getInstance().getValueFromCache(OTHER_TENANT_DOMAIN));
+    }
+
+    private static IDPMetadataCacheEntry createEntry(String tenantDomain) {
+
+        long currentTime = System.currentTimeMillis();
+        return new IDPMetadataCacheEntry(tenantDomain, "https://localhost:9443/samlsso", "<metadata/>",
+                "fingerprint:1", 1, currentTime, currentTime + 60000);
+    }
+}
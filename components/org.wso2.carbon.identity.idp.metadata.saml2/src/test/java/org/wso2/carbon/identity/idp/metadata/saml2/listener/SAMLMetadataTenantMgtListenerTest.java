@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.listener;
+
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheEntry;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.RootTenantDomainCache;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.SigningCredentialCache;
+import org.wso2.carbon.stratos.common.beans.TenantInfoBean;
+
+import static org.mockito.Mockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link SAMLMetadataTenantMgtListener}.
+ */
+public class SAMLMetadataTenantMgtListenerTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String ORGANIZATION_TENANT_DOMAIN = "c7a1f2a0-org";
+    private static final int TENANT_ID = 2;
+
+    private final SAMLMetadataTenantMgtListener listener = new SAMLMetadataTenantMgtListener();
+    private final RootTenantDomainCache cache = RootTenantDomainCache.getInstance();
+
+    @AfterMethod
+    public void tearDown() {
+
+        cache.clear();
+        IDPMetadataCache.getInstance().clear();
+    }
+
+    @Test
+    public void testTenantCreationClearsRootTenantDomain() throws Exception {
+
+        cache.addToCache(TENANT_DOMAIN, TENANT_DOMAIN);
+
+        listener.onTenantCreate(createTenantInfo());
+
+        assertNull(cache.getValueFromCache(TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testTenantUpdateClearsTenantsResolvedToIt() throws Exception {
+
+        cache.addToCache(TENANT_DOMAIN, TENANT_DOMAIN);
+        cache.addToCache(ORGANIZATION_TENANT_DOMAIN, TENANT_DOMAIN);
+        cache.addToCache("abc.com", "abc.com");
+
+        listener.onTenantUpdate(createTenantInfo());
+
+        assertNull(cache.getValueFromCache(TENANT_DOMAIN));
+        assertNull(cache.getValueFromCache(ORGANIZATION_TENANT_DOMAIN));
+        assertEquals(cache.getValueFromCache("abc.com"), "abc.com");
+    }
+
+    @Test
+    public void testTenantDeletionClearsRootTenantDomain() throws Exception {
+
+        cache.addToCache(ORGANIZATION_TENANT_DOMAIN, TENANT_DOMAIN);
+        try (MockedStatic<IdentityTenantUtil> identityTenantUtil = mockStatic(IdentityTenantUtil.class)) {
+            identityTenantUtil.when(new MockedStatic.Verification() {
+
+                @Override
+                public void apply() throws Throwable {
+
+                    IdentityTenantUtil.getTenantDomain(TENANT_ID);
+                }
+            }).thenReturn(TENANT_DOMAIN);
+
+            listener.onPreDelete(TENANT_ID);
+        }
+
+        assertNull(cache.getValueFromCache(ORGANIZATION_TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testTenantDeletionClearsCachedMetadata() throws Exception {
+
+        long currentTime = System.currentTimeMillis();
+        IDPMetadataCache.getInstance().addToCache(TENANT_DOMAIN, new IDPMetadataCacheEntry(TENANT_DOMAIN,
+                "https://localhost:9443/samlsso", "<metadata/>", "fingerprint:1", 1, currentTime,
+                currentTime + 60000));
+        try (MockedStatic<IdentityTenantUtil> identityTenantUtil = mockStatic(IdentityTenantUtil.class)) {
+            identityTenantUtil.when(new MockedStatic.Verification() {
+
+                @Override
+                public void apply() throws Throwable {
+
+                    IdentityTenantUtil.getTenantDomain(TENANT_ID);
+                }
+            }).thenReturn(TENANT_DOMAIN);
+
+            listener.onPreDelete(TENANT_ID);
+        }
+
+        assertNull(IDPMetadataCache.getInstance().getValueFromCache(TENANT_DOMAIN));
+        assertTrue(IDPMetadataCache.getInstance().getEntries().isEmpty());
+    }
+
+    @Test
+    public void testTenantDeletionDropsSigningCredentialGeneration() throws Exception {
+
+        SigningCredentialCache signingCredentialCache = SigningCredentialCache.getInstance();
+        signingCredentialCache.clearCacheEntry(TENANT_DOMAIN);
+        assertNotEquals(signingCredentialCache.getGeneration(TENANT_DOMAIN),
+                signingCredentialCache.getGeneration("abc.com"));
+        try (MockedStatic<IdentityTenantUtil> identityTenantUtil = mockStatic(IdentityTenantUtil.class)) {
+            identityTenantUtil.when(new MockedStatic.Verification() {
+
+                @Override
+                public void apply() throws Throwable {
+
+                    IdentityTenantUtil.getTenantDomain(TENANT_ID);
+                }
+            }).thenReturn(TENANT_DOMAIN);
+
+            listener.onPreDelete(TENANT_ID);
+        }
+
+        // The tenant falls back to the global generation shared by every tenant without an invalidation.
+        assertEquals(signingCredentialCache.getGeneration(TENANT_DOMAIN),
+                signingCredentialCache.getGeneration("abc.com"));
+    }
+
+    private static TenantInfoBean createTenantInfo() {
+
+        TenantInfoBean tenantInfo = new TenantInfoBean();
+        tenantInfo.setTenantId(TENANT_ID);
+        tenantInfo.setTenantDomain(TENANT_DOMAIN);
+        return tenantInfo;
+    }
+}
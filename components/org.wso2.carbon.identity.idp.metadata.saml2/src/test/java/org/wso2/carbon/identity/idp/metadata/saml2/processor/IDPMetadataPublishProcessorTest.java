@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.processor;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.idp.metadata.saml2.bean.SAMLMetadataResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheEntry;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataHttpUtil;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for the metadata response built by {@link IDPMetadataPublishProcessor}.
+ */
+public class IDPMetadataPublishProcessorTest {
+
+    private static final String METADATA = "<md:EntityDescriptor entityID=\"https://localhost:9443/samlsso\"/>";
+    private static final long CREATED_TIME = 1700000000123L;
+    private static final long VALIDITY_PERIOD = 3600000L;
+
+    private final IDPMetadataPublishProcessor processor = new IDPMetadataPublishProcessor();
+    private IDPMetadataCacheEntry metadataEntry;
+
+    @BeforeMethod
+    public void setUp() {
+
+        metadataEntry = new IDPMetadataCacheEntry("wso2.com", "https://localhost:9443/samlsso", METADATA,
+                "fingerprint:1", 1, CREATED_TIME, CREATED_TIME + VALIDITY_PERIOD);
+    }
+
+    @DataProvider(name = "conditionalHeaders")
+    public Object[][] getConditionalHeaders() {
+
+        String etag = new IDPMetadataCacheEntry("wso2.com", null, METADATA, "fingerprint:1", 1, CREATED_TIME,
+                CREATED_TIME + VALIDITY_PERIOD).getETag();
+        String lastModified = MetadataHttpUtil.formatHttpDate(CREATED_TIME);
+        return new Object[][]{
+                {null, null, false},
+                {etag, null, true},
+                {"W/" + etag, null, true},
+                {"\"other\", " + etag, null, true},
+                {"*", null, true},
+                {"\"other\"", null, false},
+                {null, lastModified, true},
+                {null, MetadataHttpUtil.formatHttpDate(CREATED_TIME + 60000), true},
+                {null, MetadataHttpUtil.formatHttpDate(CREATED_TIME - 60000), false},
+                {null, "not a date", false},
+                // If-Modified-Since is ignored when If-None-Match is present.
+                {"\"other\"", lastModified, false}
+        };
+    }
+
+    @Test(dataProvider = "conditionalHeaders")
+    public void testConditionalRequest(String ifNoneMatch, String ifModifiedSince, boolean notModified) {
+
+        SAMLMetadataResponse response = buildResponse(ifNoneMatch, ifModifiedSince);
+
+        assertEquals(response.isNotModified(), notModified);
+        assertEquals(response.getETag(), metadataEntry.getETag());
+        assertEquals(response.getLastModified(), metadataEntry.getLastModified());
+    }
+
+    @Test
+    public void testResponseCarriesCachedMetadata() {
+
+        SAMLMetadataResponse response = buildResponse(null, null);
+
+        assertEquals(response.getMetadata(), METADATA);
+        assertEquals(response.getContentLength(), metadataEntry.getContentLength());
+    }
+
+    @Test
+    public void testResponseExpiresWithMetadata() {
+
+        assertEquals(buildResponse(null, null).getExpiryTime(), CREATED_TIME + VALIDITY_PERIOD);
+    }
+
+    @Test
+    public void testMetadataWithoutValidityHasNoExpiry() {
+
+        metadataEntry = new IDPMetadataCacheEntry("wso2.com", "https://localhost:9443/samlsso", METADATA,
+                "fingerprint:1", 1, CREATED_TIME, CREATED_TIME);
+
+        assertEquals(buildResponse(null, null).getExpiryTime(), 0);
+    }
+
+    SAMLMetadataResponse buildResponse(String ifNoneMatch, String ifModifiedSince) {
+
+        IdentityRequest request = mock(IdentityRequest.class);
+        when(request.getHeader(MetadataHttpUtil.HEADER_IF_NONE_MATCH)).thenReturn(ifNoneMatch);
+        when(request.getHeader(MetadataHttpUtil.HEADER_IF_MODIFIED_SINCE)).thenReturn(ifModifiedSince);
+        return (SAMLMetadataResponse) processor.buildMetadataResponse(request, metadataEntry).build();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.processor;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.bean.SAMLMetadataErrorResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.bean.SAMLMetadataResponse;
+import org.wso2.carbon.identity.idp.metadata.saml2.cache.IDPMetadataCacheEntry;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IDPMetadataQueryProcessor}.
+ */
+public class IDPMetadataQueryProcessorTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String ENTITY_ID = "https://localhost:9443/samlsso+idp";
+    private static final String SHA1_ENTITY_ID_HEX = "fa062d7d681986b6577176138316ba0536f40abc";
+    private static final String OTHER_TENANT_DOMAIN = "abc.com";
+    private static final String QUERY_PATH = "https://localhost:9443/identity/metadata/saml2/entities/";
+
+    private final Map<String, IDPMetadataCacheEntry> metadataEntries = new HashMap<>();
+    private final IDPMetadataQueryProcessor processor = new IDPMetadataQueryProcessor() {
+
+        @Override
+        protected IDPMetadataCacheEntry loadMetadata(String tenantDomain) {
+
+            return metadataEntries.get(tenantDomain);
+        }
+
+        @Override
+        protected String getRootTenantDomain(String tenantDomain) {
+
+            return tenantDomain;
+        }
+    };
+
+    @BeforeMethod
+    public void setUp() {
+
+        metadataEntries.put(TENANT_DOMAIN, createEntry(TENANT_DOMAIN, ENTITY_ID));
+        metadataEntries.put(OTHER_TENANT_DOMAIN, createEntry(OTHER_TENANT_DOMAIN, "https://abc.com/samlsso"));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        metadataEntries.clear();
+    }
+
+    @Test
+    public void testCanHandleQueriesOnly() {
+
+        assertTrue(processor.canHandle(createRequest(QUERY_PATH + "x")));
+        assertFalse(processor.canHandle(createRequest("https://localhost:9443/identity/metadata/saml2")));
+        assertFalse(new IDPMetadataPublishProcessor().canHandle(createRequest(QUERY_PATH + "x")));
+        assertFalse(processor.canHandle(createRequest("https://localhost:9443/identity/oauth2" +
+                "/metadata/saml2/entities/x", "/oauth2/metadata/saml2/entities/x", TENANT_DOMAIN)));
+        assertTrue(processor.getPriority() != new IDPMetadataPublishProcessor().getPriority());
+    }
+
+    @Test
+    public void testQueryByPercentEncodedEntityId() throws Exception {
+
+        IdentityResponse response = processor.process(createRequest(QUERY_PATH +
+                "https%3A%2F%2Flocalhost%3A9443%2Fsamlsso+idp")).build();
+
+        assertTrue(response instanceof SAMLMetadataResponse);
+        assertEquals(((SAMLMetadataResponse) response).getMetadata(),
+                metadataEntries.get(TENANT_DOMAIN).getMetadata());
+        assertEquals(((SAMLMetadataResponse) response).getContentType(), "application/samlmetadata+xml");
+    }
+
+    @Test
+    public void testQueryBySHA1Identifier() throws Exception {
+
+        IdentityResponse response = processor.process(createRequest(QUERY_PATH + "%7Bsha1%7D" +
+                SHA1_ENTITY_ID_HEX)).build();
+
+        assertTrue(response instanceof SAMLMetadataResponse);
+    }
+
+    @Test
+    public void testUnknownEntityIsNotFound() throws Exception {
+
+        assertNotFound(processor.process(createRequest(QUERY_PATH + "https%3A%2F%2Fabc.com")).build());
+        assertNotFound(processor.process(createRequest(QUERY_PATH + "%E0%A4%A")).build());
+    }
+
+    @Test
+    public void testChangedEntityIdIsNotFound() throws Exception {
+
+        metadataEntries.put(TENANT_DOMAIN, createEntry(TENANT_DOMAIN, "https://wso2.com/samlsso"));
+
+        assertNotFound(processor.process(createRequest(QUERY_PATH +
+                "https%3A%2F%2Flocalhost%3A9443%2Fsamlsso+idp")).build());
+    }
+
+    @Test
+    public void testEntityOfAnotherTenantIsNotFound() throws Exception {
+
+        // Another tenant may configure the same entityID, but a query is only answered within its own tenant.
+        metadataEntries.put(OTHER_TENANT_DOMAIN, createEntry(OTHER_TENANT_DOMAIN, ENTITY_ID));
+        String query = QUERY_PATH + "https%3A%2F%2Fabc.com%2Fsamlsso";
+
+        assertNotFound(processor.process(createRequest(query, null, TENANT_DOMAIN)).build());
+        IdentityResponse response = processor.process(createRequest(QUERY_PATH +
+                "https%3A%2F%2Flocalhost%3A9443%2Fsamlsso+idp", null, OTHER_TENANT_DOMAIN)).build();
+        assertTrue(response instanceof SAMLMetadataResponse);
+        assertEquals(((SAMLMetadataResponse) response).getMetadata(),
+                metadataEntries.get(OTHER_TENANT_DOMAIN).getMetadata());
+    }
+
+    private static void assertNotFound(IdentityResponse response) {
+
+        assertTrue(response instanceof SAMLMetadataErrorResponse);
+        assertEquals(((SAMLMetadataErrorResponse) response).getStatusCode(), HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    private static IdentityRequest createRequest(String requestURI) {
+
+        return createRequest(requestURI, null, TENANT_DOMAIN);
+    }
+
+    private static IdentityRequest createRequest(String requestURI, String pathInfo, String tenantDomain) {
+
+        IdentityRequest request = mock(IdentityRequest.class);
+        when(request.getRequestURI()).thenReturn(requestURI);
+        when(request.getPathInfo()).thenReturn(pathInfo == null ?
+                requestURI.substring(requestURI.indexOf("/metadata/saml2")) : pathInfo);
+        when(request.getTenantDomain()).thenReturn(tenantDomain);
+        return request;
+    }
+
+    private static IDPMetadataCacheEntry createEntry(String tenantDomain, String entityId) {
+
+        long currentTime = System.currentTimeMillis();
+        return new IDPMetadataCacheEntry(tenantDomain, entityId, "<md:EntityDescriptor entityID=\"" + entityId +
+                "\"/>", "fingerprint:1", 1, currentTime, currentTime + 60000);
+    }
+}
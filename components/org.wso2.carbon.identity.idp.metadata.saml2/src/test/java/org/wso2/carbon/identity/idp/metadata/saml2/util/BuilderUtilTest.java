@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.xml.security.Init;
+import org.mockito.MockedStatic;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.XMLObjectBuilder;
+import org.opensaml.core.xml.XMLObjectBuilderFactory;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import javax.xml.namespace.QName;
+
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for the one-time initialization and the SAML object builder cache of {@link BuilderUtil} and
+ * {@link SAMLObjectFactory}. Builders are cached for the lifetime of the class, so every test uses elements of its
+ * own.
+ */
+public class BuilderUtilTest {
+
+    private static final String NAMESPACE = "urn:wso2:test:metadata";
+    private static final String PREFIX = "test";
+
+    private MockedStatic<XMLObjectProviderRegistrySupport> registrySupport;
+    private XMLObjectBuilderFactory builderFactory;
+
+    @BeforeMethod
+    public void setUp() {
+
+        builderFactory = mock(XMLObjectBuilderFactory.class);
+        registrySupport = mockStatic(XMLObjectProviderRegistrySupport.class);
+        registrySupport.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() {
+
+                XMLObjectProviderRegistrySupport.getBuilderFactory();
+            }
+        }).thenReturn(builderFactory);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        registrySupport.close();
+    }
+
+    @Test
+    public void testBuilderIsResolvedOnce() throws Exception {
+
+        QName elementName = new QName(NAMESPACE, "Cached", PREFIX);
+        XMLObjectBuilder<XMLObject> builder = registerBuilder(elementName);
+
+        assertSame(BuilderUtil.getBuilder(elementName), builder);
+        assertSame(BuilderUtil.getBuilder(new QName(NAMESPACE, "Cached", PREFIX)), builder);
+        verify(builderFactory, times(1)).getBuilder(elementName);
+    }
+
+    @Test
+    public void testCreateSAMLObjectUsesCachedBuilder() throws Exception {
+
+        QName elementName = new QName(NAMESPACE, "Created", PREFIX);
+        XMLObjectBuilder<XMLObject> builder = registerBuilder(elementName);
+        XMLObject samlObject = mock(XMLObject.class);
+        doReturn(samlObject).when(builder).buildObject(elementName);
+
+        XMLObject firstObject = BuilderUtil.createSAMLObject(NAMESPACE, "Created", PREFIX);
+        XMLObject secondObject = BuilderUtil.createSAMLObject(NAMESPACE, "Created", PREFIX);
+
+        assertSame(firstObject, samlObject);
+        assertSame(secondObject, samlObject);
+        verify(builder, times(2)).buildObject(elementName);
+        verify(builderFactory, times(1)).getBuilder(elementName);
+    }
+
+    @Test
+    public void testFactoryBuildsWithCachedBuilder() throws Exception {
+
+        QName elementName = new QName(NAMESPACE, "Factory", PREFIX);
+        XMLObjectBuilder<XMLObject> builder = registerBuilder(elementName);
+        XMLObject samlObject = mock(XMLObject.class);
+        doReturn(samlObject).when(builder).buildObject(elementName);
+        SAMLObjectFactory<XMLObject> factory = new SAMLObjectFactory<>(NAMESPACE, "Factory", PREFIX);
+
+        assertSame(factory.build(), samlObject);
+        assertSame(factory.build(), samlObject);
+        verify(builder, times(2)).buildObject(elementName);
+        verify(builderFactory, times(1)).getBuilder(elementName);
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testElementWithoutBuilderIsRejected() throws Exception {
+
+        BuilderUtil.getBuilder(new QName(NAMESPACE, "Unknown", PREFIX));
+    }
+
+    @Test
+    public void testXMLSecurityIsInitializedOnce() {
+
+        try (MockedStatic<Init> init = mockStatic(Init.class)) {
+            BuilderUtil.initXMLSecurity();
+            BuilderUtil.initXMLSecurity();
+            BuilderUtil.initXMLSecurity();
+
+            // The library may have already been initialized by an earlier test.
+            init.verify(new MockedStatic.Verification() {
+
+                @Override
+                public void apply() {
+
+                    Init.init();
+                }
+            }, atMost(1));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private XMLObjectBuilder<XMLObject> registerBuilder(QName elementName) {
+
+        XMLObjectBuilder<XMLObject> builder = mock(XMLObjectBuilder.class);
+        doReturn(builder).when(builderFactory).getBuilder(elementName);
+        return builder;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link CertificatePathValidator}.
+ */
+public class CertificatePathValidatorTest {
+
+    static final String CA_CERTIFICATE =
+            "MIIDJTCCAg2gAwIBAgIJAJ9OpkbuSb36MA0GCSqGSIb3DQEBCwUAMDcxCzAJBgNVBAYTAlVTMQ0wCwYDVQQKEwRXU08yMRkw" +
+            "FwYDVQQDExBNZXRhZGF0YSBUZXN0IENBMCAXDTI2MTAxNzA1MDUwOVoYDzIxMjYwOTIzMDUwNTA5WjA3MQswCQYDVQQGEwJV" +
+            "UzENMAsGA1UEChMEV1NPMjEZMBcGA1UEAxMQTWV0YWRhdGEgVGVzdCBDQTCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoC" +
+            "ggEBANSIxZhe/smQCieNirTlwDQEvfHV24/MXAeYihVd6D9WZ7xhEU5eXToSGaFWXCZvp75M7605uSGanxFkLd8cQS1+YLkw" +
+            "pB4wklSV3RBNsACabfTZBOGhHu1eUnS/c1+/KoNq+MzKyznmsZAac3HSTr1d3PXMmgv4LFTrZYU42JlSrkfYXfXRv+b3i7CZ" +
+            "LDalUwmOH3TkbUfHdjrGCR+3GTHffNXTxj2eOI6mIyaI9zzOdX6mToMKXR5DxqKWN/mQY7CmznFRHJVNI8wZ4yQPfr08kpWG" +
+            "PVJHESq4DGJJgHiaXKtfGqVS2CWh/DxyrbXyaC4OlivxyZEQ23mz0UwtDUkCAwEAAaMyMDAwHQYDVR0OBBYEFNw01vkokPms" +
+            "ODS+aIXknlZCxi2DMA8GA1UdEwEB/wQFMAMBAf8wDQYJKoZIhvcNAQELBQADggEBAFUcyK9XYaQmNUHMWEJOzfmWf/36Fl2g" +
+            "A2qgMJodfqRQfg5aT5lKtYL1n1IPBUJxLAh7wKIJFVhiOvmwZx++jcgRK+Iegoig4XfuCdc323SQ9WFTX5xMHoybFeSYo0x4" +
+            "TiOKEHZyGKBbKh55HDHaAnCfJZa/k0V8/ORsqBpWinBkv8iPQbMD6MQQ0cx5VvzVIX5sJccJ+3ET81AANeCIcnN5nTZlLth/" +
+            "fWfSkoPyEDiO8V+UXrkz1hmJi03+LvZfvA2gqRvjteMZVuQHjnKWlfgBIIk/kG9ryICUCIxHfhHJ7igV8iLIfJq9vG6/WrHW" +
+            "trbN35O4P61ESeaogsllZJw=";
+
+    private static final String CERTIFICATE =
+            "MIIDLjCCAhagAwIBAgIJAP/KxDfh8LmTMA0GCSqGSIb3DQEBCwUAMDcxCzAJBgNVBAYTAlVTMQ0wCwYDVQQKEwRXU08yMRkw" +
+            "FwYDVQQDExBNZXRhZGF0YSBUZXN0IENBMCAXDTI2MTAxNzA1MDUxMloYDzIxMjYwOTIzMDUwNTEyWjAwMQswCQYDVQQGEwJV" +
+            "UzENMAsGA1UEChMEV1NPMjESMBAGA1UEAxMJbG9jYWxob3N0MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEAxicC" +
+            "6ay5Pn+z2nO5mz8GQvniyEuCOFK1vT9W5zQua31OX56OnfKVf6RDnL0xPo65Ed3eKtypwl/sFHEH5qj7fOf1UvNw7/Ex0vCF" +
+            "KnP8e8k6VUn1VOlm6q2RzNmyiefh+ScsYC1s8v1TRhl7qbfJP+7gasjZYpS+q9o8r28D29tE5+UxetdFIMPELWAJzFzHu+Ty" +
+            "d0ru6LlJLtwPFBY8cyo9CGcUQkXVqUjmLUL1Ecl4AgwMeEW2FN+twleTxDJK5f0Jlq5KLNDbX9UCOGWwk/eoQjFddo/3gce9" +
+            "Zyrgq97uuKcrX4EkQ94YlmgJnF3KaFu6cCQGSCjmkPAz4WTzuwIDAQABo0IwQDAdBgNVHQ4EFgQUJJfXbVKVGkNNrSGQJb47" +
+            "F4MK3HIwHwYDVR0jBBgwFoAU3DTW+SiQ+aw4NL5oheSeVkLGLYMwDQYJKoZIhvcNAQELBQADggEBAKFHdpFpNdFwVyRNBGLV" +
+            "xlN1w+9Clqe1eoSQlBsrPsaERQXOiTPMGLXUdaBbBatgVW0gj/y9cruey0HOz5M+/r62zxaPYFRV+PuJyeL3bBMgh4b53lBJ" +
+            "yLJTghDrwI2Gp79wlvq+fHSYjkyGkvWRTEFSYzqnMrq4/EyYJjD0qHHJ1hW7MRj6mtk6q5CG+vd0ONE/jMo3F+3PRW2XV5b/" +
+            "Tcx6t+nfxGQ9sodiFEHVELq0dOXLNCp52e/3jCiUaiTbY1myzvmDlmZsb76twmThfi0T7mjPzeNVjXTrhC5C+EcYBitBx5t1" +
+            "wnuBrccS+cc5CizH1OzmLenpLUOEkwJplaI=";
+
+    private static final String UNTRUSTED_CERTIFICATE =
+            "MIIDBTCCAe2gAwIBAgIIAUkc9oCbyIowDQYJKoZIhvcNAQELBQAwMDELMAkGA1UEBhMCVVMxDTALBgNVBAoTBFdTTzIxEjAQ" +
+            "BgNVBAMTCVVudHJ1c3RlZDAgFw0yNjEwMTcwNTA1MTNaGA8yMTI2MDkyMzA1MDUxM1owMDELMAkGA1UEBhMCVVMxDTALBgNV" +
+            "BAoTBFdTTzIxEjAQBgNVBAMTCVVudHJ1c3RlZDCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEBAOTS38nrkoxYliqo" +
+            "1LJrMMeNo2zARnGywnl0pb0MRJjSBXXSIGnirPRO2lcpixPNg9aHPUWOKFRAOD38+Rfm5CvrMIydGEo3dBV1PspWxXxj0aZi" +
+            "N9rOzsd04SCk8JlunFXQnWKElDtN1eainIytUtWvNukwSOzIB9SMc2/b0OFrvN2qhf4S9kbP2A78a+SD259oO7UtqJssIpXB" +
+            "+HIXVnCCXJNspVMyx5WFhr1c7O84avlctWxN9zs3ZIgwH2lvzlshgtlE5v1Qg8Q+mQVZhPd5BjD2W8fxGBhwSYHVo4ggCujH" +
+            "OBv31UrUPZIEf5c8ZKPh2uPU2Lq8DL7gcj9xNTMCAwEAAaMhMB8wHQYDVR0OBBYEFKBkk0YF1+A+l5FEnIM3DppWxkTWMA0G" +
+            "CSqGSIb3DQEBCwUAA4IBAQCLTYd2qWJOdSbiO/wCcsA0hgevH/vQgnp3sEeNhXd5VFNLc+q8fHtK0AEBZnkJOZ1J+QTJN5eB" +
+            "KzlJIX2uLDlODlAmPQiOKe5FOKQU8sZBNqa3T3SgzfSJCW2sUFB0URO6JPsMZTaM6CTGaDFm/XZTwVo+fEsNxyeQZuO94kPP" +
+            "YtSeIM3zsvIO+8s/uU6xcDe8NDr6zTZWDL/EdHkX8tb0nO2QuhbBvkaZsi/b/MDj2f5v1R9CYSB7Fu3KheVTLTyB9LST6K+c" +
+            "DwsaNlLLRvdnpCvCWA3zu4yhpg95nP32EUd0ypH6mqo5cw0QXATKCrOWRzFVKy05VlbkOiOwwdS8";
+
+    private MockedStatic<MetadataTrustStore> metadataTrustStore;
+    private MetadataTrustStore trustStore;
+
+    @BeforeMethod
+    public void setUp() {
+
+        trustStore = mock(MetadataTrustStore.class);
+        metadataTrustStore = mockStatic(MetadataTrustStore.class);
+        metadataTrustStore.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() {
+
+                MetadataTrustStore.getInstance();
+            }
+        }).thenReturn(trustStore);
+        CertificatePathValidator.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        CertificatePathValidator.getInstance().clear();
+        metadataTrustStore.close();
+    }
+
+    @Test
+    public void testCertificateIssuedByTrustAnchorIsValidated() throws Exception {
+
+        setTrustAnchors(1, CA_CERTIFICATE);
+
+        validate(CERTIFICATE);
+    }
+
+    @Test
+    public void testTrustAnchorIsValidated() throws Exception {
+
+        setTrustAnchors(1, CA_CERTIFICATE);
+
+        validate(CA_CERTIFICATE);
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testUntrustedCertificateIsRejected() throws Exception {
+
+        setTrustAnchors(1, CA_CERTIFICATE);
+
+        validate(UNTRUSTED_CERTIFICATE);
+    }
+
+    @Test
+    public void testValidatedPathIsCached() throws Exception {
+
+        setTrustAnchors(1, CA_CERTIFICATE);
+        validate(CERTIFICATE);
+
+        // No path could be built without the trust anchor, so the validation is served from the cache.
+        setTrustAnchors(1);
+        validate(CERTIFICATE);
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testReloadedTrustStoreValidatesAgain() throws Exception {
+
+        setTrustAnchors(1, CA_CERTIFICATE);
+        validate(CERTIFICATE);
+
+        setTrustAnchors(2);
+        validate(CERTIFICATE);
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testClearDiscardsValidatedPaths() throws Exception {
+
+        setTrustAnchors(1, CA_CERTIFICATE);
+        validate(CERTIFICATE);
+
+        CertificatePathValidator.getInstance().clear();
+        setTrustAnchors(1);
+        validate(CERTIFICATE);
+    }
+
+    @Test
+    public void testDecodePemCertificate() throws Exception {
+
+        String pem = "-----BEGIN CERTIFICATE-----\n" + CA_CERTIFICATE + "\n-----END CERTIFICATE-----\n";
+
+        assertEquals(CertificatePathValidator.decodeCertificate(pem),
+                CertificatePathValidator.decodeCertificate(CA_CERTIFICATE));
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testDecodeInvalidCertificate() throws Exception {
+
+        CertificatePathValidator.decodeCertificate("not a certificate");
+    }
+
+    private void setTrustAnchors(long version, String... certificates) throws MetadataException {
+
+        Set<TrustAnchor> anchors = new HashSet<>();
+        for (String certificate : certificates) {
+            anchors.add(new TrustAnchor(CertificatePathValidator.decodeCertificate(certificate), null));
+        }
+        when(trustStore.getSnapshot()).thenReturn(new MetadataTrustStore.Snapshot(anchors, version, null, 0));
+    }
+
+    private static void validate(String certificate) throws MetadataException {
+
+        CertificatePathValidator.getInstance().validate(CertificatePathValidator.decodeCertificate(certificate),
+                Collections.<X509Certificate>emptyList());
+    }
+}
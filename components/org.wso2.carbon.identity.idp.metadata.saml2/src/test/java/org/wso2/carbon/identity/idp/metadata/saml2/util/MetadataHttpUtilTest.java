@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link MetadataHttpUtil}.
+ */
+public class MetadataHttpUtilTest {
+
+    private static final String ETAG = "\"b5d1f1e2\"";
+
+    @Test
+    public void testHttpDateRoundTrip() {
+
+        assertEquals(MetadataHttpUtil.formatHttpDate(1700000000000L), "Tue, 14 Nov 2023 22:13:20 GMT");
+        assertEquals(MetadataHttpUtil.parseHttpDate("Tue, 14 Nov 2023 22:13:20 GMT"), 1700000000000L);
+    }
+
+    @Test
+    public void testInvalidHttpDate() {
+
+        assertEquals(MetadataHttpUtil.parseHttpDate(null), -1);
+        assertEquals(MetadataHttpUtil.parseHttpDate(" "), -1);
+        assertEquals(MetadataHttpUtil.parseHttpDate("2023-11-14T22:13:20Z"), -1);
+    }
+
+    @Test
+    public void testETagMatching() {
+
+        assertTrue(MetadataHttpUtil.isETagMatched(ETAG, ETAG));
+        assertTrue(MetadataHttpUtil.isETagMatched("W/" + ETAG, ETAG));
+        assertTrue(MetadataHttpUtil.isETagMatched("\"a\", " + ETAG + " ,\"b\"", ETAG));
+        assertTrue(MetadataHttpUtil.isETagMatched("*", ETAG));
+        assertFalse(MetadataHttpUtil.isETagMatched("\"a\"", ETAG));
+        assertFalse(MetadataHttpUtil.isETagMatched("b5d1f1e2", ETAG));
+        assertFalse(MetadataHttpUtil.isETagMatched(null, ETAG));
+        assertFalse(MetadataHttpUtil.isETagMatched(ETAG, null));
+    }
+}
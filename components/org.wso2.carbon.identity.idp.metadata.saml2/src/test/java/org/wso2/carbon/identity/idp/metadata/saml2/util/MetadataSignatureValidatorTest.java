@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.xml.security.keys.content.X509Data;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.transforms.Transforms;
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link MetadataSignatureValidator}.
+ */
+public class MetadataSignatureValidatorTest {
+
+    private static final String MD_NS = "urn:oasis:names:tc:SAML:2.0:metadata";
+    private static final String ENTITY_ID = "https://localhost:9443/samlsso";
+    private static final String CERTIFICATE =
+            "MIIDLjCCAhagAwIBAgIJAP/KxDfh8LmTMA0GCSqGSIb3DQEBCwUAMDcxCzAJBgNVBAYTAlVTMQ0wCwYDVQQKEwRXU08yMRkw" +
+            "FwYDVQQDExBNZXRhZGF0YSBUZXN0IENBMCAXDTI2MTAxNzA1MDUxMloYDzIxMjYwOTIzMDUwNTEyWjAwMQswCQYDVQQGEwJV" +
+            "UzENMAsGA1UEChMEV1NPMjESMBAGA1UEAxMJbG9jYWxob3N0MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEAxicC" +
+            "6ay5Pn+z2nO5mz8GQvniyEuCOFK1vT9W5zQua31OX56OnfKVf6RDnL0xPo65Ed3eKtypwl/sFHEH5qj7fOf1UvNw7/Ex0vCF" +
+            "KnP8e8k6VUn1VOlm6q2RzNmyiefh+ScsYC1s8v1TRhl7qbfJP+7gasjZYpS+q9o8r28D29tE5+UxetdFIMPELWAJzFzHu+Ty" +
+            "d0ru6LlJLtwPFBY8cyo9CGcUQkXVqUjmLUL1Ecl4AgwMeEW2FN+twleTxDJK5f0Jlq5KLNDbX9UCOGWwk/eoQjFddo/3gce9" +
+            "Zyrgq97uuKcrX4EkQ94YlmgJnF3KaFu6cCQGSCjmkPAz4WTzuwIDAQABo0IwQDAdBgNVHQ4EFgQUJJfXbVKVGkNNrSGQJb47" +
+            "F4MK3HIwHwYDVR0jBBgwFoAU3DTW+SiQ+aw4NL5oheSeVkLGLYMwDQYJKoZIhvcNAQELBQADggEBAKFHdpFpNdFwVyRNBGLV" +
+            "xlN1w+9Clqe1eoSQlBsrPsaERQXOiTPMGLXUdaBbBatgVW0gj/y9cruey0HOz5M+/r62zxaPYFRV+PuJyeL3bBMgh4b53lBJ" +
+            "yLJTghDrwI2Gp79wlvq+fHSYjkyGkvWRTEFSYzqnMrq4/EyYJjD0qHHJ1hW7MRj6mtk6q5CG+vd0ONE/jMo3F+3PRW2XV5b/" +
+            "Tcx6t+nfxGQ9sodiFEHVELq0dOXLNCp52e/3jCiUaiTbY1myzvmDlmZsb76twmThfi0T7mjPzeNVjXTrhC5C+EcYBitBx5t1" +
+            "wnuBrccS+cc5CizH1OzmLenpLUOEkwJplaI=";
+
+    private static final String PRIVATE_KEY =
+            "MIIEvAIBADANBgkqhkiG9w0BAQEFAASCBKYwggSiAgEAAoIBAQDGJwLprLk+f7Pac7mbPwZC+eLIS4I4UrW9P1bnNC5rfU5f" +
+            "no6d8pV/pEOcvTE+jrkR3d4q3KnCX+wUcQfmqPt85/VS83Dv8THS8IUqc/x7yTpVSfVU6WbqrZHM2bKJ5+H5JyxgLWzy/VNG" +
+            "GXupt8k/7uBqyNlilL6r2jyvbwPb20Tn5TF610Ugw8QtYAnMXMe75PJ3Su7ouUku3A8UFjxzKj0IZxRCRdWpSOYtQvURyXgC" +
+            "DAx4RbYU363CV5PEMkrl/QmWrkos0Ntf1QI4ZbCT96hCMV12j/eBx71nKuCr3u64pytfgSRD3hiWaAmcXcpoW7pwJAZIKOaQ" +
+            "8DPhZPO7AgMBAAECggEAAuMwpK0Sqfl8anODQeLiOXmgt2B6Tk3OPiq9HnNhNcnGqZgK5fxR92EyZwdOv2WfBsaf5SoAA0gY" +
+            "jZe0EMVnnMNYjNPlUmnGWxeMKTk1daxSAEoqnAkmqcbLuBt4AZByd4n9mI0w6D2OyBe4+JkoApl9hbDVkh0uxhxRBBFvEfYS" +
+            "cOo/et7jG//WBvCCRJYzJbVMNt4d7u06Zi1YxZp5utNYj/Xdy7md35nZd1FtzLy6LBWegGnmGhHjGDbT2gtXa1VbS6VR0NlJ" +
+            "07g89ZO2zPUrNPPIk3bAC4BfdFofF5dfaP4onbA3VLjqOE+Aql0Mpkj/T83qjtBFI7PZZVxRQQKBgQDuRHFV7x8aNtjcjB0q" +
+            "ClcDVko27VspoRXDNl+weUZkIFcTpG+clNsYYiGscFsBri9q45SCanKhoVEwNd5lc1ixj7cHFbsQ+giFcTWhgoajSRXOqW/z" +
+            "wiPR7+lY8qj1r3xLtvtLcz0e2n17Bu5qyd7XTA5YzQmmxJYKfV0UZBoPYQKBgQDU5kiX9k9cRImXRXCoPkc+7R/7Bn880vz4" +
+            "Doj7b1HEI1uAbcUjFD4Um6rTj6Gvyu7Ii5/cEorVMmuZIc4joK5RDBSEg3dBMfNQCFbRnUwNYWhfmH1zjonD7W8oe5c+bi/4" +
+            "9OuCrZWBzyzlEqHWFD9qTw+RIy0KV6hROi3E0/QkmwKBgCQzJ9j7hIkyDg6sBv5NJd0u7gWcWD5h5/GJwE4KjuRFeZVVZVOv" +
+            "1f3FYwJU6668rR2bSAPsclAWN0SQ2qIlPTN090TPS2WP512GzrQkJZqHTxXf7k9ljpWl0pkd/Qeeys6iFVnoP0AByBC6A90b" +
+            "oIyrVH6vYCkDMxyS4WJotwDhAoGAYYs9GXr9821niQqEymD2batharcYVvrocpLeSi0/zljQ1K/2kdL1eqW0CAiX8R5Od04Z" +
+            "qVBJkdLvH5MwinxVQccCI5DEc/d53mJjvNiP/tVxZ9NLL0XQcxd3RZoSusTrb+pveUkk5fvROwdlZNuUDpY4sKvoOAPfl4/L" +
+            "ZpIiGx8CgYA8CX22Q+cu25GJ2QYgVvXZnQtX3+l8vLZ4d6V3R9EbSn8DL4MLsPIuZl0bvFcplrmw/VJDxRP2UMjfaL92XTeG" +
+            "3ZqVggernHPA0YLZAIlbvrW337bUrZkwavSm9+Uq9mG38DlbDAMnrzvPHpl7SSC2yZHs+zqNc3i5Md2xAl+jdw==";
+
+    private MockedStatic<CertificatePathValidator> certificatePathValidator;
+    private CertificatePathValidator pathValidator;
+
+    @BeforeMethod
+    public void setUp() {
+
+        pathValidator = mock(CertificatePathValidator.class);
+        certificatePathValidator = mockStatic(CertificatePathValidator.class);
+        certificatePathValidator.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() {
+
+                CertificatePathValidator.getInstance();
+            }
+        }).thenReturn(pathValidator);
+        MetadataSignatureValidator.getInstance().clear();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        MetadataSignatureValidator.getInstance().clear();
+        certificatePathValidator.close();
+    }
+
+    @Test
+    public void testSignedMetadataIsValidated() throws Exception {
+
+        MetadataSignatureValidator.getInstance().validate(sign(ENTITY_ID, ""));
+    }
+
+    @Test
+    public void testMetadataSignedByIdIsValidated() throws Exception {
+
+        MetadataSignatureValidator.getInstance().validate(sign(ENTITY_ID, "#_metadata"));
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testUnsignedMetadataIsRejected() throws Exception {
+
+        MetadataSignatureValidator.getInstance().validate("<md:EntityDescriptor xmlns:md=\"" + MD_NS +
+                "\" entityID=\"" + ENTITY_ID + "\"/>");
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testModifiedMetadataIsRejected() throws Exception {
+
+        String metadata = sign(ENTITY_ID, "");
+
+        MetadataSignatureValidator.getInstance().validate(metadata.replace(ENTITY_ID, "https://wso2.com/samlsso"));
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testSignatureOfOtherElementIsRejected() throws Exception {
+
+        MetadataSignatureValidator.getInstance().validate(sign(ENTITY_ID, "#_other"));
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testModifiedMetadataIsRejectedAfterValidation() throws Exception {
+
+        String metadata = sign(ENTITY_ID, "");
+        MetadataSignatureValidator.getInstance().validate(metadata);
+
+        MetadataSignatureValidator.getInstance().validate(metadata.replace(ENTITY_ID, "https://wso2.com/samlsso"));
+    }
+
+    @Test
+    public void testExclusiveCanonicalizationWithCommentsIsAccepted() throws Exception {
+
+        MetadataSignatureValidator.getInstance().validate(sign(ENTITY_ID, "",
+                Transforms.TRANSFORM_ENVELOPED_SIGNATURE, Transforms.TRANSFORM_C14N_EXCL_WITH_COMMENTS));
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testUnsupportedTransformIsRejected() throws Exception {
+
+        MetadataSignatureValidator.getInstance().validate(sign(ENTITY_ID, "",
+                Transforms.TRANSFORM_ENVELOPED_SIGNATURE, Transforms.TRANSFORM_C14N_OMIT_COMMENTS));
+    }
+
+    @Test
+    public void testOtherKeyInfoCertificatesArePassedAsIntermediates() throws Exception {
+
+        // The path validator is mocked, so the certificate is decoded without it.
+        X509Certificate intermediate = getCertificate(CertificatePathValidatorTest.CA_CERTIFICATE);
+
+        MetadataSignatureValidator.getInstance().validate(sign(ENTITY_ID, "", intermediate));
+
+        verify(pathValidator).validate(getCertificate(), Collections.singletonList(intermediate));
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testRepeatedImportValidatesSignerPath() throws Exception {
+
+        String metadata = sign(ENTITY_ID, "");
+        MetadataSignatureValidator.getInstance().validate(metadata);
+        MetadataSignatureValidator.getInstance().validate(metadata);
+        verify(pathValidator, times(2)).validate(any(X509Certificate.class), anyCollection());
+
+        // The signer is no longer trusted, so the cached validation of the document is not enough.
+        doThrow(new MetadataException("Certificate is not trusted.")).when(pathValidator)
+                .validate(any(X509Certificate.class), anyCollection());
+        MetadataSignatureValidator.getInstance().validate(metadata);
+    }
+
+    private static String sign(String entityId, String referenceUri) throws Exception {
+
+        return sign(entityId, referenceUri, new X509Certificate[0], Transforms.TRANSFORM_ENVELOPED_SIGNATURE,
+                Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+    }
+
+    private static String sign(String entityId, String referenceUri, String... transformAlgorithms)
+            throws Exception {
+
+        return sign(entityId, referenceUri, new X509Certificate[0], transformAlgorithms);
+    }
+
+    private static String sign(String entityId, String referenceUri, X509Certificate intermediate)
+            throws Exception {
+
+        return sign(entityId, referenceUri, new X509Certificate[]{intermediate},
+                Transforms.TRANSFORM_ENVELOPED_SIGNATURE, Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+    }
+
+    /**
+     * Create metadata with an enveloped signature of the given reference, which is either the metadata document or
+     * its extensions element. The key info holds the signer certificate followed by the given intermediates.
+     */
+    private static String sign(String entityId, String referenceUri, X509Certificate[] intermediates,
+                               String... transformAlgorithms) throws Exception {
+
+        BuilderUtil.initXMLSecurity();
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().newDocument();
+        Element root = document.createElementNS(MD_NS, "md:EntityDescriptor");
+        // Canonicalization only sees declared namespaces, as they are declared once the metadata is parsed.
+        root.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:md", MD_NS);
+        root.setAttributeNS(null, "entityID", entityId);
+        root.setAttributeNS(null, "ID", "_metadata");
+        root.setIdAttributeNS(null, "ID", true);
+        document.appendChild(root);
+        Element extensions = document.createElementNS(MD_NS, "md:Extensions");
+        extensions.setAttributeNS(null, "ID", "_other");
+        extensions.setIdAttributeNS(null, "ID", true);
+        root.appendChild(extensions);
+
+        XMLSignature signature = new XMLSignature(document, "", XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256);
+        root.insertBefore(signature.getElement(), extensions);
+        Transforms transforms = new Transforms(document);
+        for (String transformAlgorithm : transformAlgorithms) {
+            transforms.addTransform(transformAlgorithm);
+        }
+        signature.addDocument(referenceUri, transforms, "http://www.w3.org/2001/04/xmlenc#sha256");
+        X509Data x509Data = new X509Data(document);
+        x509Data.addCertificate(getCertificate());
+        for (X509Certificate intermediate : intermediates) {
+            x509Data.addCertificate(intermediate);
+        }
+        signature.getKeyInfo().add(x509Data);
+        signature.sign(getPrivateKey());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(out));
+        return out.toString("UTF-8");
+    }
+
+    private static X509Certificate getCertificate() throws Exception {
+
+        return getCertificate(CERTIFICATE);
+    }
+
+    private static X509Certificate getCertificate(String certificate) throws Exception {
+
+        return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(
+                new ByteArrayInputStream(Base64.getDecoder().decode(certificate)));
+    }
+
+    private static PrivateKey getPrivateKey() throws Exception {
+
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(
+                Base64.getDecoder().decode(PRIVATE_KEY)));
+    }
+}
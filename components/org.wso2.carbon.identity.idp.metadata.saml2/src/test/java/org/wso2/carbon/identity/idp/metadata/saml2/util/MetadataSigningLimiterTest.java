@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.idp.metadata.saml2.exception.SigningCapacityExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for {@link MetadataSigningLimiter}.
+ */
+public class MetadataSigningLimiterTest {
+
+    private static final long WAIT_TIMEOUT_IN_MILLIS = 10000;
+
+    @Test
+    public void testPermitsUpToMaxConcurrency() throws Exception {
+
+        MetadataSigningLimiter limiter = new MetadataSigningLimiter(2, 1, 100);
+
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release();
+        limiter.acquire();
+    }
+
+    @Test(expectedExceptions = SigningCapacityExceededException.class)
+    public void testQueuedAcquireTimesOut() throws Exception {
+
+        MetadataSigningLimiter limiter = new MetadataSigningLimiter(1, 1, 50);
+        limiter.acquire();
+
+        limiter.acquire();
+    }
+
+    @Test
+    public void testFullQueueRejectsWithoutWaiting() throws Exception {
+
+        MetadataSigningLimiter limiter = new MetadataSigningLimiter(1, 1, WAIT_TIMEOUT_IN_MILLIS);
+        limiter.acquire();
+        AcquireThread queued = new AcquireThread(limiter);
+        queued.start();
+        awaitWaiting(queued);
+
+        long startTime = System.nanoTime();
+        try {
+            limiter.acquire();
+            fail("Acquired a signing permit while the signing queue was full.");
+        } catch (SigningCapacityExceededException e) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < WAIT_TIMEOUT_IN_MILLIS / 2);
+        }
+
+        // The released permit goes to the queued thread.
+        limiter.release();
+        queued.join(WAIT_TIMEOUT_IN_MILLIS);
+        assertNull(queued.error);
+    }
+
+    @Test
+    public void testQueueIsFreedAfterTimeout() throws Exception {
+
+        MetadataSigningLimiter limiter = new MetadataSigningLimiter(1, 1, 50);
+        limiter.acquire();
+        for (int i = 0; i < 3; i++) {
+            try {
+                limiter.acquire();
+                fail("Acquired a signing permit while all permits were in use.");
+            } catch (SigningCapacityExceededException e) {
+                assertTrue(e.getMessage().startsWith("Timed out"), "Queued acquire was rejected: " + e.getMessage());
+            }
+        }
+    }
+
+    private void awaitWaiting(Thread thread) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_IN_MILLIS;
+        while (thread.getState() != Thread.State.TIMED_WAITING && thread.getState() != Thread.State.WAITING) {
+            assertTrue(System.currentTimeMillis() < deadline, "Acquire did not wait for a signing permit.");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Thread waiting for a signing permit.
+     */
+    private static class AcquireThread extends Thread {
+
+        private final MetadataSigningLimiter limiter;
+        private volatile Exception error;
+
+        AcquireThread(MetadataSigningLimiter limiter) {
+
+            this.limiter = limiter;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                limiter.acquire();
+            } catch (SigningCapacityExceededException e) {
+                error = e;
+            }
+        }
+    }
+}
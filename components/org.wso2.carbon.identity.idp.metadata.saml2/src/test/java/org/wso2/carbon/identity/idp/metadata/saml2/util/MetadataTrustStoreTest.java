@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.identity.idp.metadata.saml2.MetadataConfiguration;
+import org.wso2.carbon.idp.mgt.MetadataException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for {@link MetadataTrustStore}.
+ */
+public class MetadataTrustStoreTest {
+
+    private static final String PASSWORD = "wso2carbon";
+    private static final String SECURITY_TRUST_STORE_LOCATION = "Security.TrustStore.Location";
+    private static final String SECURITY_TRUST_STORE_TYPE = "Security.TrustStore.Type";
+    private static final String SECURITY_TRUST_STORE_PASSWORD = "Security.TrustStore.Password";
+
+    private MockedStatic<ServerConfiguration> serverConfigurationStatic;
+    private ServerConfiguration serverConfiguration;
+    private File trustStoreFile;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        serverConfiguration = mock(ServerConfiguration.class);
+        serverConfigurationStatic = mockStatic(ServerConfiguration.class);
+        serverConfigurationStatic.when(new MockedStatic.Verification() {
+
+            @Override
+            public void apply() {
+
+                ServerConfiguration.getInstance();
+            }
+        }).thenReturn(serverConfiguration);
+        trustStoreFile = File.createTempFile("saml-metadata-trust", ".p12");
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("ca", getCaCertificate());
+        try (OutputStream out = new FileOutputStream(trustStoreFile)) {
+            trustStore.store(out, PASSWORD.toCharArray());
+        }
+        MetadataTrustStore.getInstance().reload();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        MetadataConfiguration.reload(null);
+        MetadataTrustStore.getInstance().reload();
+        serverConfigurationStatic.close();
+        Files.deleteIfExists(trustStoreFile.toPath());
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testUnconfiguredTrustStoreFailsClosed() throws Exception {
+
+        MetadataConfiguration.reload(null);
+
+        MetadataTrustStore.getInstance().getSnapshot();
+    }
+
+    @Test(expectedExceptions = MetadataException.class)
+    public void testServerTrustStoreIsNotUsed() throws Exception {
+
+        when(serverConfiguration.getFirstProperty(SECURITY_TRUST_STORE_LOCATION))
+                .thenReturn(trustStoreFile.getAbsolutePath());
+        when(serverConfiguration.getFirstProperty(SECURITY_TRUST_STORE_TYPE)).thenReturn("PKCS12");
+        when(serverConfiguration.getFirstProperty(SECURITY_TRUST_STORE_PASSWORD)).thenReturn(PASSWORD);
+        MetadataConfiguration.reload(null);
+
+        MetadataTrustStore.getInstance().getSnapshot();
+    }
+
+    @Test
+    public void testTrustAnchorsAreLoadedOnce() throws Exception {
+
+        configure();
+
+        MetadataTrustStore.Snapshot snapshot = MetadataTrustStore.getInstance().getSnapshot();
+
+        assertEquals(snapshot.getTrustAnchors().size(), 1);
+        assertEquals(snapshot.getTrustAnchors().iterator().next().getTrustedCert(), getCaCertificate());
+        assertSame(MetadataTrustStore.getInstance().getSnapshot(), snapshot);
+    }
+
+    @Test
+    public void testChangedConfigurationReloadsTrustStore() throws Exception {
+
+        configure();
+        MetadataTrustStore.Snapshot snapshot = MetadataTrustStore.getInstance().getSnapshot();
+
+        File movedTrustStoreFile = new File(trustStoreFile.getAbsolutePath() + ".moved");
+        try {
+            Files.copy(trustStoreFile.toPath(), movedTrustStoreFile.toPath());
+            when(serverConfiguration.getFirstProperty(MetadataTrustStore.SECURITY_SAML_METADATA_TRUST_STORE_LOCATION))
+                    .thenReturn(movedTrustStoreFile.getAbsolutePath());
+            MetadataConfiguration.reload(null);
+
+            assertNotEquals(MetadataTrustStore.getInstance().getSnapshot().getVersion(), snapshot.getVersion());
+        } finally {
+            Files.deleteIfExists(movedTrustStoreFile.toPath());
+        }
+    }
+
+    private void configure() {
+
+        when(serverConfiguration.getFirstProperty(MetadataTrustStore.SECURITY_SAML_METADATA_TRUST_STORE_LOCATION))
+                .thenReturn(trustStoreFile.getAbsolutePath());
+        when(serverConfiguration.getFirstProperty(MetadataTrustStore.SECURITY_SAML_METADATA_TRUST_STORE_TYPE))
+                .thenReturn("PKCS12");
+        when(serverConfiguration.getFirstProperty(MetadataTrustStore.SECURITY_SAML_METADATA_TRUST_STORE_PASSWORD))
+                .thenReturn(PASSWORD);
+        MetadataConfiguration.reload(null);
+    }
+
+    private static X509Certificate getCaCertificate() throws MetadataException {
+
+        return CertificatePathValidator.decodeCertificate(CertificatePathValidatorTest.CA_CERTIFICATE);
+    }
+}
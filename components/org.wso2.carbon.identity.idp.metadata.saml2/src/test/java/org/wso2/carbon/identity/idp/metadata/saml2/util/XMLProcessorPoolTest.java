@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link XMLProcessorPool}, along with a measurement of the pooled processors against the secured
+ * factories being looked up and configured for every document, as the metadata components did before pooling. The
+ * measurement belongs to the benchmark group, which is excluded from the default test suite and run with the
+ * benchmark profile.
+ */
+public class XMLProcessorPoolTest {
+
+    private static final Log log = LogFactory.getLog(XMLProcessorPoolTest.class);
+    private static final String METADATA = "<md:EntityDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" " +
+            "entityID=\"https://localhost:9443/samlsso\"><md:IDPSSODescriptor protocolSupportEnumeration=" +
+            "\"urn:oasis:names:tc:SAML:2.0:protocol\"><md:SingleSignOnService Binding=" +
+            "\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-POST\" Location=\"https://localhost:9443/samlsso\"/>" +
+            "</md:IDPSSODescriptor></md:EntityDescriptor>";
+    private static final int WARM_UP_ITERATIONS = 500;
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    private XMLProcessorPool pool;
+
+    @BeforeMethod(alwaysRun = true)
+    public void setUp() {
+
+        pool = XMLProcessorPool.getInstance();
+        pool.clear();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+
+        pool.clear();
+    }
+
+    @Test
+    public void testReturnedDocumentBuilderIsReused() throws Exception {
+
+        DocumentBuilder builder = pool.borrowDocumentBuilder();
+        pool.returnDocumentBuilder(builder);
+
+        assertSame(pool.borrowDocumentBuilder(), builder);
+    }
+
+    @Test
+    public void testReturnedTransformerIsReset() throws Exception {
+
+        Transformer transformer = pool.borrowTransformer();
+        String indent = transformer.getOutputProperty(OutputKeys.INDENT);
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes".equals(indent) ? "no" : "yes");
+        pool.returnTransformer(transformer);
+
+        Transformer borrowedTransformer = pool.borrowTransformer();
+        assertSame(borrowedTransformer, transformer);
+        assertEquals(borrowedTransformer.getOutputProperty(OutputKeys.INDENT), indent);
+    }
+
+    @Test
+    public void testBorrowingFromEmptyPoolCreatesInstance() throws Exception {
+
+        DocumentBuilder builder = pool.borrowDocumentBuilder();
+
+        assertNotEquals(pool.borrowDocumentBuilder(), builder);
+        assertTrue(builder.isNamespaceAware());
+    }
+
+    @Test(groups = "benchmark")
+    public void testPooledProcessorsAgainstPerDocumentFactories() throws Exception {
+
+        String unpooledOutput = roundTripUnpooled();
+        assertEquals(roundTripPooled(), unpooledOutput);
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            roundTripUnpooled();
+            roundTripPooled();
+        }
+        long unpooledTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            roundTripUnpooled();
+        }
+        unpooledTime = System.nanoTime() - unpooledTime;
+        long pooledTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            roundTripPooled();
+        }
+        pooledTime = System.nanoTime() - pooledTime;
+
+        // Timings depend on the machine, so they are reported rather than asserted.
+        log.info(String.format("Parsed and serialized %d metadata documents in %.1f ms with per-document " +
+                        "factories and in %.1f ms with pooled processors (%.1f us and %.1f us per document).",
+                MEASURED_ITERATIONS, unpooledTime / 1e6, pooledTime / 1e6,
+                unpooledTime / 1e3 / MEASURED_ITERATIONS, pooledTime / 1e3 / MEASURED_ITERATIONS));
+    }
+
+    private String roundTripPooled() throws Exception {
+
+        DocumentBuilder builder = pool.borrowDocumentBuilder();
+        Transformer transformer = null;
+        try {
+            Document document = builder.parse(new ByteArrayInputStream(METADATA.getBytes(StandardCharsets.UTF_8)));
+            transformer = pool.borrowTransformer();
+            return transform(transformer, document);
+        } finally {
+            pool.returnDocumentBuilder(builder);
+            pool.returnTransformer(transformer);
+        }
+    }
+
+    private String roundTripUnpooled() throws Exception {
+
+        DocumentBuilderFactory factory = IdentityUtil.getSecuredDocumentBuilderFactory();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(
+                new ByteArrayInputStream(METADATA.getBytes(StandardCharsets.UTF_8)));
+        return transform(TransformerFactory.newInstance().newTransformer(), document);
+    }
+
+    private String transform(Transformer transformer, Document document) throws Exception {
+
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(document), new StreamResult(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com) All Rights Reserved.
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.idp.metadata.saml2.util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link XMLStreamUtil}, checking that documents are serialized as the JDK identity Transformer
+ * serialized the metadata before the stream writer was used.
+ */
+public class XMLStreamUtilTest {
+
+    private static final String MD_NS = "urn:oasis:names:tc:SAML:2.0:metadata";
+    private static final String DS_NS = "http://www.w3.org/2000/09/xmldsig#";
+    // Markup, quotes, whitespace, controls, C1 controls, non ASCII and supplementary characters.
+    private static final String SPECIAL_CHARACTERS =
+            "a&b<c>d\"e'f\tg\nh\ri\u0001j\u0085k\u009f l\u00e9\u20ac \ud83d\ude00]]>";
+
+    @DataProvider(name = "documents")
+    public Object[][] getDocuments() throws Exception {
+
+        return new Object[][]{
+                {parse("<md:EntityDescriptor xmlns:md=\"" + MD_NS + "\" entityID=\"https://localhost:9443/samlsso\" " +
+                        "validUntil=\"2026-10-17T10:00:00.000Z\"><md:IDPSSODescriptor " +
+                        "protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\">" +
+                        "<md:KeyDescriptor use=\"signing\"><ds:KeyInfo xmlns:ds=\"" + DS_NS + "\"><ds:X509Data>" +
+                        "<ds:X509Certificate>MIIDSTCCAjGgAwIBAgIEAoLQ/TANBgkqhkiG9w0BAQsF\nADBVMQswCQYDVQQG" +
+                        "</ds:X509Certificate></ds:X509Data></ds:KeyInfo></md:KeyDescriptor><md:SingleSignOnService " +
+                        "Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-POST\" " +
+                        "Location=\"https://localhost:9443/samlsso?a=1&amp;b=2\"/></md:IDPSSODescriptor>" +
+                        "</md:EntityDescriptor>")},
+                {createDocument(SPECIAL_CHARACTERS)},
+                {createDocument("")}
+        };
+    }
+
+    @Test(dataProvider = "documents")
+    public void testDocumentIsWrittenAsTransformerOutput(Document document) throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLStreamUtil.writeDocument(document, out);
+
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), transform(document));
+    }
+
+    @Test
+    public void testXMLDeclarationIsStandalone() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLStreamUtil.writeDocument(createDocument("value"), out);
+
+        assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).startsWith(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?><md:EntityDescriptor"));
+    }
+
+    @Test
+    public void testOutputStreamIsNotClosed() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+
+            @Override
+            public void close() {
+
+                throw new IllegalStateException("The output stream is closed.");
+            }
+        };
+        XMLStreamUtil.writeDocument(createDocument("value"), out);
+        out.write('\n');
+    }
+
+    /**
+     * Create a document whose namespaces are not declared by xmlns attributes, with the given value in attributes
+     * and text.
+     */
+    private static Document createDocument(String value) throws Exception {
+
+        Document document = newDocumentBuilderFactory().newDocumentBuilder().newDocument();
+        Element root = document.createElementNS(MD_NS, "md:EntityDescriptor");
+        root.setAttributeNS(null, "validUntil", "2026-10-17T10:00:00.000Z");
+        root.setAttributeNS(null, "entityID", value);
+        root.setAttributeNS(XMLConstants.XML_NS_URI, "xml:lang", "en");
+        document.appendChild(root);
+
+        Element certificate = document.createElementNS(DS_NS, "ds:X509Certificate");
+        certificate.appendChild(document.createTextNode(value));
+        root.appendChild(certificate);
+        Element empty = document.createElementNS(MD_NS, "md:Extensions");
+        empty.setAttributeNS("urn:test", "t:flag", value);
+        root.appendChild(empty);
+        Element unqualified = document.createElementNS(null, "Unqualified");
+        unqualified.appendChild(document.createTextNode(value));
+        root.appendChild(unqualified);
+        root.appendChild(document.createComment(" comment "));
+        root.appendChild(document.createCDATASection("cdata&<"));
+        return document;
+    }
+
+    private static Document parse(String xml) throws Exception {
+
+        return newDocumentBuilderFactory().newDocumentBuilder().parse(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static DocumentBuilderFactory newDocumentBuilderFactory() {
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory;
+    }
+
+    private static String transform(Document document) throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(out));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
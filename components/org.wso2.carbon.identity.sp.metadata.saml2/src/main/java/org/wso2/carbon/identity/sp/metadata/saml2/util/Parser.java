@@ -40,13 +40,17 @@ import org.wso2.carbon.identity.application.common.util.IdentityApplicationConst
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.CertificatePathValidator;
+import org.wso2.carbon.identity.idp.metadata.saml2.util.MetadataSignatureValidator;
 import org.wso2.carbon.identity.saml.common.util.SAMLInitializer;
 import org.wso2.carbon.identity.sp.metadata.saml2.exception.InvalidMetadataException;
+import org.wso2.carbon.idp.mgt.MetadataException;
 import org.wso2.carbon.registry.core.Registry;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -164,7 +168,8 @@ public class Parser {
     }
 
     private void setX509Certificate(EntityDescriptor entityDescriptor, SPSSODescriptor spssoDescriptor,
-                                    SAMLSSOServiceProviderDO samlssoServiceProviderDO) {
+                                    SAMLSSOServiceProviderDO samlssoServiceProviderDO)
+            throws InvalidMetadataException {
 
         List<KeyDescriptor> descriptors = spssoDescriptor.getKeyDescriptors();
         if (descriptors != null && descriptors.size() > 0) {
@@ -172,18 +177,41 @@ public class Parser {
             if (descriptor != null) {
                 if (descriptor.getUse().toString().equals("SIGNING")) {
 
+                    List<X509Certificate> certificates;
                     try {
-                        samlssoServiceProviderDO.setX509Certificate(org.opensaml.xmlsec.keyinfo.KeyInfoSupport.
-                                getCertificates(descriptor.getKeyInfo()).get(0));
+                        certificates = org.opensaml.xmlsec.keyinfo.KeyInfoSupport.
+                                getCertificates(descriptor.getKeyInfo());
+                        samlssoServiceProviderDO.setX509Certificate(certificates.get(0));
                         samlssoServiceProviderDO.setCertAlias(entityDescriptor.getEntityID());
                     } catch (Exception ex) {
                         log.error("Error While setting Certificate and alias", ex);
+                        return;
                     }
+                    validateCertificationPath(certificates);
                 }
             }
         }
     }
 
+    /**
+     * Validate the certification path of the signing certificate, if certificate validation is enabled.
+     *
+     * @param certificates Certificates of the signing key descriptor, starting with the signing certificate.
+     * @throws InvalidMetadataException if the signing certificate is not valid or not trusted.
+     */
+    private void validateCertificationPath(List<X509Certificate> certificates) throws InvalidMetadataException {
+
+        if (!CertificatePathValidator.getInstance().isEnabled()) {
+            return;
+        }
+        try {
+            CertificatePathValidator.getInstance().validate(certificates.get(0),
+                    certificates.subList(1, certificates.size()));
+        } catch (MetadataException e) {
+            throw new InvalidMetadataException("Invalid SAML Service Provider signing certificate.", e);
+        }
+    }
+
     private void setSigningAlgorithmUri(SPSSODescriptor spssoDescriptor,
                                         SAMLSSOServiceProviderDO samlssoServiceProviderDO) {
 
@@ -231,10 +259,19 @@ public class Parser {
      * @param metadata                 String which contains the metadata.
      * @param samlssoServiceProviderDO SAMLSSOServiceProviderDO object which the extracted metadata is populated to.
      * @return SAMLSSOServiceProviderDO object that is populated.
+     * @throws InvalidMetadataException if the metadata is invalid, or its signature is invalid when signature
+     *                                  validation is enabled.
      */
     public SAMLSSOServiceProviderDO parse(String metadata, SAMLSSOServiceProviderDO samlssoServiceProviderDO)
             throws InvalidMetadataException {
 
+        if (MetadataSignatureValidator.getInstance().isEnabled()) {
+            try {
+                MetadataSignatureValidator.getInstance().validate(metadata);
+            } catch (MetadataException e) {
+                throw new InvalidMetadataException("Invalid SAML Service Provider metadata signature.", e);
+            }
+        }
         EntityDescriptor entityDescriptor = this.generateMetadataObjectFromString(metadata);
         if (entityDescriptor != null) {
             this.setIssuer(entityDescriptor, samlssoServiceProviderDO);